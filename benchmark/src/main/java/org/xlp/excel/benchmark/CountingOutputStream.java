@@ -0,0 +1,31 @@
+package org.xlp.excel.benchmark;
+
+import java.io.OutputStream;
+
+/**
+ * 只统计写入字节数、不保存数据的输出流，避免磁盘IO影响写excel的测试结果
+ *
+ * @author xlp
+ */
+public class CountingOutputStream extends OutputStream {
+	private long count;
+
+	@Override
+	public void write(int b) {
+		count++;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) {
+		count += len;
+	}
+
+	/**
+	 * 获取已写入的字节数
+	 *
+	 * @return
+	 */
+	public long getCount() {
+		return count;
+	}
+}
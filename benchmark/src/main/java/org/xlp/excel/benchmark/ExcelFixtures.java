@@ -0,0 +1,218 @@
+package org.xlp.excel.benchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.xlp.excel.write.complexity.ComplicatedSheetData;
+import org.xlp.excel.write.complexity.ExcelCellData;
+import org.xlp.excel.write.complexity.enumeration.DataType;
+import org.xlp.excel.write.complexity.font.CellFont;
+
+/**
+ * 生成基准测试所用的excel文件和写入数据
+ * <p>
+ * 列按序号依次为字符串、小数、日期、整数四种类型，表头为col0、col1...，
+ * 同样的行列数每次生成的数据相同
+ * </p>
+ *
+ * @author xlp
+ */
+public final class ExcelFixtures {
+	/**
+	 * xls格式最大行数
+	 */
+	public static final int XLS_MAX_ROWS = 65535;
+
+	/**
+	 * 日期列的起始时间
+	 */
+	private static final long BASE_TIME = 1577808000000L;
+
+	private ExcelFixtures() {
+	}
+
+	/**
+	 * 生成表头
+	 *
+	 * @param columns 列数
+	 * @return
+	 */
+	public static String[] createTitles(int columns) {
+		String[] titles = new String[columns];
+		for (int i = 0; i < columns; i++) {
+			titles[i] = "col" + i;
+		}
+		return titles;
+	}
+
+	/**
+	 * 生成给定位置的cell值
+	 *
+	 * @param row 数据行序号，从0开始
+	 * @param column 列序号，从0开始
+	 * @return
+	 */
+	public static Object cellValue(int row, int column) {
+		switch (column % 4) {
+			case 0:
+				return "name-" + row + "-" + column;
+			case 1:
+				return Double.valueOf(row * 1.25 + column);
+			case 2:
+				return new Date(BASE_TIME + row * 3600000L);
+			default:
+				return Integer.valueOf(row * 10 + column);
+		}
+	}
+
+	/**
+	 * 生成写入数据
+	 *
+	 * @param rows 数据行数
+	 * @param columns 列数
+	 * @return
+	 */
+	public static List<Object[]> createRows(int rows, int columns) {
+		List<Object[]> dataList = new ArrayList<Object[]>(rows);
+		for (int r = 0; r < rows; r++) {
+			Object[] data = new Object[columns];
+			for (int c = 0; c < columns; c++) {
+				data[c] = cellValue(r, c);
+			}
+			dataList.add(data);
+		}
+		return dataList;
+	}
+
+	/**
+	 * 生成{@link org.xlp.excel.write.complexity.AbstractWriteExcelExt}写入数据：
+	 * 第一行为合并所有列的粗体标题，第二行为表头，之后为数据行，日期列和整数列设置数据类型
+	 *
+	 * @param rows 数据行数
+	 * @param columns 列数
+	 * @return
+	 */
+	public static List<ExcelCellData> createCellDatas(int rows, int columns) {
+		List<ExcelCellData> cellDatas = new ArrayList<ExcelCellData>((rows + 1) * columns + 1);
+		ExcelCellData caption = new ExcelCellData("benchmark", 0, 0, 0, columns - 1);
+		caption.setCellFont(CellFont.BLOD_FONT_16);
+		cellDatas.add(caption);
+		String[] titles = createTitles(columns);
+		for (int c = 0; c < columns; c++) {
+			ExcelCellData title = new ExcelCellData(titles[c], 1, 1, c, c);
+			title.setCellFont(CellFont.BLOD_FONT);
+			cellDatas.add(title);
+		}
+		for (int r = 0; r < rows; r++) {
+			for (int c = 0; c < columns; c++) {
+				ExcelCellData cellData;
+				switch (c % 4) {
+					case 2:
+						cellData = new ExcelCellData(r + 2, r + 2, c, c, cellValue(r, c), "yyyy-MM-dd",
+								DataType.DATE);
+						break;
+					case 3:
+						cellData = new ExcelCellData(r + 2, r + 2, c, c, cellValue(r, c), "0", DataType.INT);
+						break;
+					default:
+						cellData = new ExcelCellData(cellValue(r, c), r + 2, r + 2, c, c);
+				}
+				cellDatas.add(cellData);
+			}
+		}
+		return cellDatas;
+	}
+
+	/**
+	 * 用给定的cell数据创建一个sheet页数据对象
+	 *
+	 * @param cellDatas
+	 * @return
+	 */
+	public static ComplicatedSheetData createComplicatedSheetData(List<ExcelCellData> cellDatas) {
+		return new ComplicatedSheetData("benchmark", 0, new ArrayList<ExcelCellData>(cellDatas));
+	}
+
+	/**
+	 * 生成excel临时文件，退出虚拟机时删除
+	 *
+	 * @param format xls或xlsx
+	 * @param rows 数据行数，xls格式最多{@link #XLS_MAX_ROWS}行
+	 * @param columns 列数
+	 * @return
+	 * @throws IOException
+	 * @throws IllegalArgumentException 假如格式不支持或行数超出范围，则抛出该异常
+	 */
+	public static File createExcelFile(String format, int rows, int columns) throws IOException {
+		Workbook workbook;
+		if ("xls".equals(format)) {
+			if (rows > XLS_MAX_ROWS) {
+				throw new IllegalArgumentException("xls格式最多" + XLS_MAX_ROWS + "行数据！");
+			}
+			workbook = new HSSFWorkbook();
+		} else if ("xlsx".equals(format)) {
+			workbook = new SXSSFWorkbook(200);
+		} else {
+			throw new IllegalArgumentException("不支持的格式：" + format);
+		}
+		File file = File.createTempFile("xlp-benchmark-" + rows + "x" + columns + "-", "." + format);
+		file.deleteOnExit();
+		OutputStream outputStream = new FileOutputStream(file);
+		try {
+			fillWorkbook(workbook, rows, columns);
+			workbook.write(outputStream);
+		} finally {
+			outputStream.close();
+			if (workbook instanceof SXSSFWorkbook) {
+				((SXSSFWorkbook) workbook).dispose();
+			}
+			workbook.close();
+		}
+		return file;
+	}
+
+	/**
+	 * 向workbook中写入表头和数据
+	 *
+	 * @param workbook
+	 * @param rows
+	 * @param columns
+	 */
+	private static void fillWorkbook(Workbook workbook, int rows, int columns) {
+		Sheet sheet = workbook.createSheet("benchmark");
+		CellStyle dateStyle = workbook.createCellStyle();
+		dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy-mm-dd hh:mm"));
+		String[] titles = createTitles(columns);
+		Row row = sheet.createRow(0);
+		for (int c = 0; c < columns; c++) {
+			row.createCell(c).setCellValue(titles[c]);
+		}
+		for (int r = 0; r < rows; r++) {
+			row = sheet.createRow(r + 1);
+			for (int c = 0; c < columns; c++) {
+				Cell cell = row.createCell(c);
+				Object value = cellValue(r, c);
+				if (value instanceof String) {
+					cell.setCellValue((String) value);
+				} else if (value instanceof Date) {
+					cell.setCellValue((Date) value);
+					cell.setCellStyle(dateStyle);
+				} else {
+					cell.setCellValue(((Number) value).doubleValue());
+				}
+			}
+		}
+	}
+}
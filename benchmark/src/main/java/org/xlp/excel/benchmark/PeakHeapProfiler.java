@@ -0,0 +1,67 @@
+package org.xlp.excel.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+/**
+ * 统计每次迭代中堆内存的峰值占用（各堆内存池峰值之和，单位MB）
+ * <p>
+ * 使用方式：java -jar target/benchmarks.jar -prof org.xlp.excel.benchmark.PeakHeapProfiler；
+ * 配合-prof gc可同时得到内存分配速率
+ * </p>
+ *
+ * @author xlp
+ */
+public class PeakHeapProfiler implements InternalProfiler {
+	@Override
+	public String getDescription() {
+		return "Peak heap usage per iteration";
+	}
+
+	@Override
+	public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+		System.gc();
+		for (MemoryPoolMXBean pool : heapPools()) {
+			pool.resetPeakUsage();
+		}
+	}
+
+	@Override
+	public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams,
+			IterationParams iterationParams, IterationResult result) {
+		long peak = 0;
+		for (MemoryPoolMXBean pool : heapPools()) {
+			peak += pool.getPeakUsage().getUsed();
+		}
+		List<Result> results = new ArrayList<Result>(1);
+		results.add(new ScalarResult("peak.heap", peak / (1024.0 * 1024.0), "MB", AggregationPolicy.MAX));
+		return results;
+	}
+
+	/**
+	 * 获取所有堆内存池
+	 *
+	 * @return
+	 */
+	private static List<MemoryPoolMXBean> heapPools() {
+		List<MemoryPoolMXBean> pools = new ArrayList<MemoryPoolMXBean>();
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+				pools.add(pool);
+			}
+		}
+		return pools;
+	}
+}
@@ -0,0 +1,111 @@
+package org.xlp.excel.benchmark;
+
+import java.util.Date;
+
+import org.xlp.excel.annotation.ExcelField;
+
+/**
+ * {@link ExcelFixtures}生成的excel前8列对应的bean
+ *
+ * @author xlp
+ */
+public class SampleBean {
+	@ExcelField(name = "col0")
+	private String name0;
+
+	@ExcelField(name = "col1")
+	private Double amount1;
+
+	@ExcelField(name = "col2")
+	private Date date2;
+
+	@ExcelField(name = "col3")
+	private Integer count3;
+
+	@ExcelField(name = "col4")
+	private String name4;
+
+	@ExcelField(name = "col5")
+	private Double amount5;
+
+	@ExcelField(name = "col6")
+	private Date date6;
+
+	@ExcelField(name = "col7")
+	private Integer count7;
+
+	@ExcelField(name = "sheetRowNo")
+	private Integer rowNo;
+
+	public String getName0() {
+		return name0;
+	}
+
+	public void setName0(String name0) {
+		this.name0 = name0;
+	}
+
+	public Double getAmount1() {
+		return amount1;
+	}
+
+	public void setAmount1(Double amount1) {
+		this.amount1 = amount1;
+	}
+
+	public Date getDate2() {
+		return date2;
+	}
+
+	public void setDate2(Date date2) {
+		this.date2 = date2;
+	}
+
+	public Integer getCount3() {
+		return count3;
+	}
+
+	public void setCount3(Integer count3) {
+		this.count3 = count3;
+	}
+
+	public String getName4() {
+		return name4;
+	}
+
+	public void setName4(String name4) {
+		this.name4 = name4;
+	}
+
+	public Double getAmount5() {
+		return amount5;
+	}
+
+	public void setAmount5(Double amount5) {
+		this.amount5 = amount5;
+	}
+
+	public Date getDate6() {
+		return date6;
+	}
+
+	public void setDate6(Date date6) {
+		this.date6 = date6;
+	}
+
+	public Integer getCount7() {
+		return count7;
+	}
+
+	public void setCount7(Integer count7) {
+		this.count7 = count7;
+	}
+
+	public Integer getRowNo() {
+		return rowNo;
+	}
+
+	public void setRowNo(Integer rowNo) {
+		this.rowNo = rowNo;
+	}
+}
@@ -0,0 +1,59 @@
+package org.xlp.excel.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xlp.excel.read.ReadExcel;
+import org.xlp.excel.read.SheetData;
+
+/**
+ * {@link SheetData#toBeanList(Class)}基准测试，只测试已读取的数据转换成bean的开销
+ *
+ * @author xlp
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ToBeanListBenchmark {
+	@Param({ "1000", "50000" })
+	private int rows;
+
+	@Param({ "8", "32" })
+	private int columns;
+
+	private SheetData sheetData;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		File excelFile = ExcelFixtures.createExcelFile("xlsx", rows, columns);
+		ReadExcel readExcel = new ReadExcel(excelFile);
+		try {
+			readExcel.readExcel();
+			sheetData = readExcel.getSheetData();
+		} finally {
+			readExcel.close();
+		}
+	}
+
+	@Benchmark
+	public List<SampleBean> toBeanList() {
+		return sheetData.toBeanList(SampleBean.class);
+	}
+}
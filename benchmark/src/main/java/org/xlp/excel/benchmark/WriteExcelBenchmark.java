@@ -0,0 +1,96 @@
+package org.xlp.excel.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xlp.excel.write.AbstractWriteExcel;
+import org.xlp.excel.write.WriteCSVExcel;
+import org.xlp.excel.write.WriteSXSSFExcel;
+import org.xlp.excel.write.WriteXLSExcel;
+import org.xlp.excel.write.WriteXLSXExcel;
+import org.xlp.excel.write.WriteXLSXStreamExcel;
+
+/**
+ * {@link AbstractWriteExcel#write(java.io.OutputStream)}基准测试，
+ * 每次调用都会新建writer并添加数据，写入不落盘的输出流
+ *
+ * @author xlp
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WriteExcelBenchmark {
+	/**
+	 * sxssf为流式写xlsx，ooxml为直接生成xlsx内容，csv为写CSV文本
+	 */
+	@Param({ "xls", "xlsx", "sxssf", "ooxml", "csv" })
+	private String format;
+
+	@Param({ "1000", "50000" })
+	private int rows;
+
+	@Param({ "8", "32" })
+	private int columns;
+
+	/**
+	 * 是否按值类型写入数据
+	 */
+	@Param({ "false", "true" })
+	private boolean typed;
+
+	private String[] titles;
+
+	private List<Object[]> dataList;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		titles = ExcelFixtures.createTitles(columns);
+		dataList = ExcelFixtures.createRows("xls".equals(format) ? Math.min(rows, ExcelFixtures.XLS_MAX_ROWS) : rows,
+				columns);
+	}
+
+	@Benchmark
+	public long write() throws IOException {
+		CountingOutputStream outputStream = new CountingOutputStream();
+		if ("ooxml".equals(format)) {
+			WriteXLSXStreamExcel writeExcel = new WriteXLSXStreamExcel();
+			writeExcel.addExcelData(titles, dataList);
+			writeExcel.write(outputStream);
+			return outputStream.getCount();
+		}
+		if ("csv".equals(format)) {
+			WriteCSVExcel writeExcel = new WriteCSVExcel();
+			writeExcel.addExcelData(titles, dataList);
+			writeExcel.write(outputStream);
+			return outputStream.getCount();
+		}
+		AbstractWriteExcel writeExcel;
+		if ("xls".equals(format)) {
+			writeExcel = new WriteXLSExcel();
+		} else if ("sxssf".equals(format)) {
+			writeExcel = new WriteSXSSFExcel();
+		} else {
+			writeExcel = new WriteXLSXExcel();
+		}
+		writeExcel.setWriteTypedValue(typed);
+		writeExcel.addExcelData(titles, dataList);
+		writeExcel.write(outputStream);
+		return outputStream.getCount();
+	}
+}
@@ -0,0 +1,70 @@
+package org.xlp.excel.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xlp.excel.write.ExcelType;
+import org.xlp.excel.write.complexity.AbstractWriteExcelExt;
+import org.xlp.excel.write.complexity.ExcelCellData;
+import org.xlp.excel.write.complexity.WriteExcelExt;
+import org.xlp.excel.write.complexity.WriteSXSSFExcelExt;
+
+/**
+ * {@link AbstractWriteExcelExt#write(java.io.OutputStream)}基准测试，
+ * 数据包含合并的标题行、粗体表头以及设置了格式的日期和整数列
+ *
+ * @author xlp
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WriteExcelExtBenchmark {
+	/**
+	 * sxssf为流式写xlsx
+	 */
+	@Param({ "xls", "xlsx", "sxssf" })
+	private String format;
+
+	@Param({ "1000", "20000" })
+	private int rows;
+
+	@Param({ "8", "32" })
+	private int columns;
+
+	private List<ExcelCellData> cellDatas;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		cellDatas = ExcelFixtures.createCellDatas(Math.min(rows, ExcelFixtures.XLS_MAX_ROWS - 1), columns);
+	}
+
+	@Benchmark
+	public long write() throws IOException {
+		AbstractWriteExcelExt writeExcel;
+		if ("sxssf".equals(format)) {
+			writeExcel = new WriteSXSSFExcelExt(ExcelFixtures.createComplicatedSheetData(cellDatas));
+		} else {
+			ExcelType excelType = "xls".equals(format) ? ExcelType.XLS : ExcelType.XLSX;
+			writeExcel = new WriteExcelExt(ExcelFixtures.createComplicatedSheetData(cellDatas), excelType);
+		}
+		CountingOutputStream outputStream = new CountingOutputStream();
+		writeExcel.write(outputStream);
+		return outputStream.getCount();
+	}
+}
@@ -0,0 +1,100 @@
+package org.xlp.excel.read;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.xlp.javabean.processer.ValueProcesser;
+
+/**
+ * 逐行把sheet页数据转换成Javabean对象后再处理的处理器，读取的数据不保存，适用于大数据量excel
+ * <p>
+ * 每个sheet页只在第一次处理数据行时根据表头创建一次{@link SheetRowBeanBinder}，并行读取时也可使用
+ * </p>
+ *
+ * @author xlp
+ */
+public abstract class AbstractBeanRowDataHandler<T> implements RowDataHandler {
+	private final Class<T> beanClass;
+
+	/**
+	 * 是否启用注解进行转换
+	 */
+	private final boolean isUsedAnnotation;
+
+	/**
+	 * 把cell值转换成属性类型的值处理器，值为null时使用默认处理器
+	 */
+	private ValueProcesser valueProcesser;
+
+	/**
+	 * sheet页对应的转换器
+	 */
+	private final Map<SheetData, SheetRowBeanBinder<T>> binders = new ConcurrentHashMap<SheetData, SheetRowBeanBinder<T>>();
+
+	/**
+	 * 默认启用注解进行转换
+	 *
+	 * @param beanClass
+	 * @throws NullPointerException 假如参数为null，则抛出该异常
+	 */
+	public AbstractBeanRowDataHandler(Class<T> beanClass) {
+		this(beanClass, true);
+	}
+
+	/**
+	 * @param beanClass
+	 * @param isUsedAnnotation 是否启用注解进行转换，true是，false不启用
+	 * @throws NullPointerException 假如参数为null，则抛出该异常
+	 */
+	public AbstractBeanRowDataHandler(Class<T> beanClass, boolean isUsedAnnotation) {
+		if (beanClass == null) {
+			throw new NullPointerException("beanClass param is null!");
+		}
+		this.beanClass = beanClass;
+		this.isUsedAnnotation = isUsedAnnotation;
+	}
+
+	@Override
+	public final boolean handleRowData(SheetData sheetData, int rowNo, Object[] rowData) {
+		SheetRowBeanBinder<T> binder = binders.get(sheetData);
+		if (binder == null) {
+			binder = new SheetRowBeanBinder<T>(beanClass, sheetData.getSheetTitles(), isUsedAnnotation);
+			binder.setValueProcesser(valueProcesser);
+			binders.put(sheetData, binder);
+		}
+		return handleBean(sheetData, rowNo, binder.toBean(rowData, Integer.valueOf(rowNo)));
+	}
+
+	/**
+	 * 处理一行数据转换成的Javabean对象
+	 *
+	 * @param sheetData 当前sheet页，可从中获取表头、sheet名称、索引等信息
+	 * @param rowNo 行号，从1开始
+	 * @param bean 行数据转换成的Javabean对象
+	 * @return 返回false时停止读取该sheet页后面的数据
+	 */
+	protected abstract boolean handleBean(SheetData sheetData, int rowNo, T bean);
+
+	public Class<T> getBeanClass() {
+		return beanClass;
+	}
+
+	public boolean isUsedAnnotation() {
+		return isUsedAnnotation;
+	}
+
+	public ValueProcesser getValueProcesser() {
+		return valueProcesser;
+	}
+
+	/**
+	 * 设置把cell值转换成属性类型的值处理器，需在读取前设置
+	 *
+	 * @param valueProcesser
+	 */
+	public void setValueProcesser(ValueProcesser valueProcesser) {
+		if (valueProcesser != null) {
+			this.valueProcesser = valueProcesser;
+		}
+	}
+}
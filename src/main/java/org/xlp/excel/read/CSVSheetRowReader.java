@@ -0,0 +1,268 @@
+package org.xlp.excel.read;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.xlp.excel.util.CellValueConverter;
+import org.xlp.utils.XLPStringUtil;
+
+/**
+ * 逐行解析CSV/TSV文本数据，每次只在内存中保存一行数据
+ * <p>
+ * 按RFC 4180解析：字段可用双引号包围，双引号内可包含分隔符、换行符，两个连续的双引号表示一个双引号；
+ * 行结束符可以是\r\n、\n或\r，开头的UTF-8 BOM会被忽略；所有值都以字符串读取，空字段为""
+ * </p>
+ *
+ * @author xlp
+ */
+class CSVSheetRowReader implements SheetRowReader {
+	/**
+	 * 字符读取缓存大小
+	 */
+	private static final int BUFFER_SIZE = 8192;
+
+	private static final char QUOTE = '"';
+
+	private static final char BOM = '\uFEFF';
+
+	private final Reader reader;
+
+	/**
+	 * 字段分隔符
+	 */
+	private final char delimiter;
+
+	/**
+	 * 按列索引值排列的值转换器，可以为null
+	 */
+	private final CellValueConverter[] columnConverters;
+
+	private final char[] buffer = new char[BUFFER_SIZE];
+
+	/**
+	 * 缓存中下一个要读取的字符位置
+	 */
+	private int position;
+
+	/**
+	 * 缓存中有效字符数
+	 */
+	private int limit;
+
+	/**
+	 * 标记是否已读到数据末尾
+	 */
+	private boolean eof;
+
+	/**
+	 * 标记是否已处理开头的BOM
+	 */
+	private boolean bomChecked;
+
+	/**
+	 * 当前行的字段值，解析每行时复用
+	 */
+	private final List<String> fields = new ArrayList<String>();
+
+	/**
+	 * 当前字段值缓存
+	 */
+	private final StringBuilder field = new StringBuilder();
+
+	/**
+	 * 当前行索引值，从0开始
+	 */
+	private int rowIndex = -1;
+
+	/**
+	 * 当前行数据
+	 */
+	private Object[] rowData;
+
+	/**
+	 * 要解析的列索引值，值为null时解析所有列
+	 */
+	private int[] columns;
+
+	/**
+	 * @param reader 字符输入流
+	 * @param delimiter 字段分隔符
+	 * @param columnConverters 按列索引值排列的值转换器，可以为null
+	 */
+	CSVSheetRowReader(Reader reader, char delimiter, CellValueConverter[] columnConverters) {
+		this.reader = reader;
+		this.delimiter = delimiter;
+		this.columnConverters = columnConverters;
+	}
+
+	/**
+	 * @throws UncheckedIOException 假如读取数据失败，则抛出该异常
+	 */
+	@Override
+	public boolean nextRow() {
+		rowData = null;
+		try {
+			if (!readRecord()) {
+				return false;
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		rowIndex++;
+		return true;
+	}
+
+	@Override
+	public int getRowIndex() {
+		return rowIndex;
+	}
+
+	@Override
+	public Object[] getRowData() {
+		if (rowData == null) {
+			if (columns == null) {
+				int size = fields.size();
+				rowData = new Object[size];
+				for (int i = 0; i < size; i++) {
+					rowData[i] = convert(i, fields.get(i));
+				}
+			} else {
+				rowData = new Object[columns.length];
+				for (int i = 0; i < columns.length; i++) {
+					int index = columns[i];
+					rowData[i] = index >= 0 && index < fields.size() ? convert(index, fields.get(index))
+							: XLPStringUtil.EMPTY;
+				}
+			}
+		}
+		return rowData;
+	}
+
+	@Override
+	public void setColumns(int[] columns) {
+		this.columns = columns;
+	}
+
+	/**
+	 * 用列的值转换器转换字段值，空字段及不能转换的值返回原字符串
+	 *
+	 * @param index 列索引值
+	 * @param value
+	 * @return
+	 */
+	private Object convert(int index, String value) {
+		CellValueConverter converter = columnConverters != null && index < columnConverters.length
+				? columnConverters[index] : null;
+		if (converter != null && !value.isEmpty()) {
+			try {
+				return converter.convertString(value);
+			} catch (IllegalArgumentException e) {
+				// 不能转换时返回原字符串
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * 读取一行的所有字段
+	 *
+	 * @return 假如已没有数据，返回false
+	 * @throws IOException
+	 */
+	private boolean readRecord() throws IOException {
+		fields.clear();
+		int c = read();
+		if (c < 0) {
+			return false;
+		}
+		field.setLength(0);
+		// 是否在双引号内
+		boolean inQuotes = false;
+		// 当前字段是否以双引号开始
+		boolean quotedField = false;
+		while (true) {
+			if (inQuotes) {
+				if (c < 0) {
+					// 缺少结束双引号时，读取到末尾为止
+					fields.add(field.toString());
+					return true;
+				}
+				if (c == QUOTE) {
+					c = read();
+					if (c == QUOTE) {
+						field.append(QUOTE);
+						c = read();
+					} else {
+						inQuotes = false;
+					}
+					continue;
+				}
+				field.append((char) c);
+			} else if (c < 0 || c == '\n' || c == '\r') {
+				fields.add(field.toString());
+				if (c == '\r' && read() != '\n') {
+					unread();
+				}
+				return true;
+			} else if (c == delimiter) {
+				fields.add(field.toString());
+				field.setLength(0);
+				quotedField = false;
+			} else if (c == QUOTE && !quotedField && field.length() == 0) {
+				inQuotes = true;
+				quotedField = true;
+			} else {
+				field.append((char) c);
+			}
+			c = read();
+		}
+	}
+
+	/**
+	 * 读取下一个字符
+	 *
+	 * @return 假如已读到末尾，返回-1
+	 * @throws IOException
+	 */
+	private int read() throws IOException {
+		if (position >= limit) {
+			if (eof) {
+				return -1;
+			}
+			int count = reader.read(buffer, 0, buffer.length);
+			if (count <= 0) {
+				eof = true;
+				limit = 0;
+				position = 0;
+				return -1;
+			}
+			limit = count;
+			position = 0;
+			if (!bomChecked) {
+				bomChecked = true;
+				if (buffer[0] == BOM) {
+					position = 1;
+					return read();
+				}
+			}
+		}
+		return buffer[position++];
+	}
+
+	/**
+	 * 退回上一次读取的字符，已读到末尾时不做任何处理
+	 */
+	private void unread() {
+		if (position > 0) {
+			position--;
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+}
@@ -0,0 +1,24 @@
+package org.xlp.excel.read;
+
+/**
+ * 读取excel时，公式cell的取值方式
+ *
+ * @author xlp
+ */
+public enum FormulaOptionType {
+	/**
+	 * 取excel中缓存的公式计算结果，不计算公式，也不创建公式计算器；没有缓存结果时取""
+	 */
+	CACHED,
+
+	/**
+	 * 有缓存的计算结果时取缓存结果，没有时才计算公式，计算结果不写回cell；
+	 * 第一次需要计算时才创建公式计算器
+	 */
+	LAZY,
+
+	/**
+	 * 计算所有公式，计算结果写回cell，同一workbook的sheet页共用一个公式计算器及其计算结果缓存
+	 */
+	EVALUATE
+}
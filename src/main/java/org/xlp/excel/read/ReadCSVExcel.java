@@ -0,0 +1,154 @@
+package org.xlp.excel.read;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import org.xlp.assertion.AssertUtils;
+import org.xlp.assertion.IllegalObjectException;
+import org.xlp.utils.io.XLPIOUtil;
+
+/**
+ * 以流的方式读取CSV/TSV格式的数据
+ * <p>
+ * 不经过POI，逐行解析文本数据，读取结果与{@link ReadExcel}一样保存到{@link SheetData}中，
+ * 表头、行号、空行处理、读取行范围、读取的列、{@link #rowIterator()}及{@link RowDataHandler}等用法与读取excel一致
+ * </p>
+ * <p>
+ * 注意：数据只有一个sheet页，{@link #setReadAllSheet(boolean)}、{@link #setParallelRead(boolean)}及
+ * {@link #setFormulaOptionType(FormulaOptionType)}不生效；所有值都以字符串读取，
+ * 可用{@link #setColumnType(int, Class)}声明列的值类型；以输入流方式构造时只能读取一次
+ * </p>
+ *
+ * @author xlp
+ */
+public class ReadCSVExcel extends ReadExcel {
+	/**
+	 * 默认字段分隔符
+	 */
+	public static final char COMMA = ',';
+
+	/**
+	 * TSV格式的字段分隔符
+	 */
+	public static final char TAB = '\t';
+
+	/**
+	 * 要读取的文件，值为null时从输入流中读取
+	 */
+	private File csvFile;
+
+	/**
+	 * 还未读取的输入流
+	 */
+	private InputStream inputStream;
+
+	/**
+	 * 字符编码，默认UTF-8
+	 */
+	private Charset charset = StandardCharsets.UTF_8;
+
+	/**
+	 * 字段分隔符，默认逗号
+	 */
+	private char delimiter = COMMA;
+
+	/**
+	 * @param inputStream
+	 * @throws NullPointerException 假如参数为空，抛出该异常
+	 */
+	public ReadCSVExcel(InputStream inputStream) {
+		AssertUtils.isNotNull(inputStream, "inputStream param is null!");
+		this.inputStream = inputStream;
+	}
+
+	/**
+	 * @param csvFile
+	 * @throws NullPointerException 假如参数为空，抛出该异常
+	 * @throws IllegalArgumentException 假如给定的文件是目录或不存在时，抛出该异常
+	 */
+	public ReadCSVExcel(File csvFile) {
+		AssertUtils.isNotNull(csvFile, "csvFile param is null!");
+		AssertUtils.assertFile(csvFile);
+		this.csvFile = csvFile;
+	}
+
+	/**
+	 * @param csvFile
+	 * @throws NullPointerException 假如参数为空，抛出该异常
+	 * @throws IllegalObjectException  假如给定的文件是目录或不存在，则抛出该异常
+	 */
+	public ReadCSVExcel(String csvFile) {
+		this(csvFile == null ? null : new File(csvFile));
+	}
+
+	/**
+	 * 只有一个sheet页，用文件方式构造时sheet页名称为不含后缀的文件名
+	 */
+	@Override
+	SheetRowReader openSheetRowReader(SheetData sheetData) throws IOException {
+		if (sheetData.getSheetIndex() != 0) {
+			return null;
+		}
+		InputStream in;
+		if (csvFile != null) {
+			in = new FileInputStream(csvFile);
+			String fileName = csvFile.getName();
+			int index = fileName.lastIndexOf('.');
+			sheetData.setSheetName(index > 0 ? fileName.substring(0, index) : fileName);
+		} else if (inputStream != null) {
+			in = inputStream;
+			inputStream = null;
+		} else {
+			return null;
+		}
+		return new CSVSheetRowReader(new InputStreamReader(in, charset), delimiter, getColumnConverterArray());
+	}
+
+	/**
+	 * 关闭还未读取的输入流
+	 */
+	@Override
+	public void close() throws IOException {
+		if (inputStream != null) {
+			XLPIOUtil.closeInputStream(inputStream);
+			inputStream = null;
+		}
+	}
+
+	public Charset getCharset() {
+		return charset;
+	}
+
+	/**
+	 * 设置字符编码，默认UTF-8
+	 *
+	 * @param charset
+	 */
+	public void setCharset(Charset charset) {
+		if (charset != null) {
+			this.charset = charset;
+		}
+	}
+
+	public char getDelimiter() {
+		return delimiter;
+	}
+
+	/**
+	 * 设置字段分隔符，默认{@link #COMMA}，读取TSV格式时设置为{@link #TAB}
+	 *
+	 * @param delimiter
+	 * @throws IllegalArgumentException 假如分隔符为双引号或换行符，则抛出该异常
+	 */
+	public void setDelimiter(char delimiter) {
+		if (delimiter == '"' || delimiter == '\r' || delimiter == '\n') {
+			throw new IllegalArgumentException("分隔符不能是双引号或换行符！");
+		}
+		this.delimiter = delimiter;
+	}
+}
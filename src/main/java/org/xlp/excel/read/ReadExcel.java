@@ -1,18 +1,31 @@
 package org.xlp.excel.read;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
 
 import org.apache.poi.EncryptedDocumentException;
 import org.apache.poi.ss.usermodel.FormulaEvaluator;
+import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.usermodel.WorkbookFactory;
 import org.xlp.assertion.AssertUtils;
 import org.xlp.assertion.IllegalObjectException;
+import org.xlp.excel.util.CellValueConverter;
+import org.xlp.excel.util.CellValueConverters;
 
 /**
  * 读取Excel
@@ -20,7 +33,7 @@ import org.xlp.assertion.IllegalObjectException;
  * @author xlp
  * @date 2020-04-15
  */
-public class ReadExcel {
+public class ReadExcel implements Closeable {
 	/**
 	 * 存储sheet页数据
 	 */
@@ -28,6 +41,11 @@ public class ReadExcel {
 	
 	private Workbook workbook;
 	
+	/**
+	 * 读取公式cell所用
+	 */
+	private FormulaEvaluator formulaEvaluator;
+	
 	/**
 	 * sheet页是否有标题栏
 	 */
@@ -48,6 +66,57 @@ public class ReadExcel {
 	 */
 	private boolean readAllSheet = false;
 	
+	/**
+	 * 标记读取所有sheet页时是否多线程并行读取，默认false
+	 */
+	private boolean parallelRead = false;
+	
+	/**
+	 * 并行读取sheet页所用的线程池，值为null时每次读取临时创建
+	 */
+	private Executor executor;
+	
+	/**
+	 * 公式cell的取值方式，默认计算所有公式
+	 */
+	private FormulaOptionType formulaOptionType = FormulaOptionType.EVALUATE;
+	
+	/**
+	 * 列索引值对应的cell值转换器，没有转换器的列按默认方式读取
+	 */
+	private Map<Integer, CellValueConverter> columnConverters = new HashMap<Integer, CellValueConverter>();
+	
+	/**
+	 * 只读取这些表头对应的列，值为null时读取所有列
+	 */
+	private String[] readColumnTitles;
+	
+	/**
+	 * 只读取这些索引值对应的列，值为null时读取所有列
+	 */
+	private int[] readColumnIndexes;
+	
+	/**
+	 * 读取的第一行数据的行号，从1开始
+	 */
+	private int firstRowNo = 1;
+	
+	/**
+	 * 读取的最后一行数据的行号，值小于等于0时读取到最后一行
+	 */
+	private int lastRowNo = 0;
+	
+	/**
+	 * 每个sheet页最多读取的数据行数，值小于等于0时不限制
+	 */
+	private int maxRows = 0;
+	
+	/**
+	 * 供子类使用，由子类自行打开excel数据
+	 */
+	protected ReadExcel() {
+	}
+	
 	/**
 	 * @param inputStream
 	 * @throws IOException 
@@ -127,28 +196,257 @@ public class ReadExcel {
 	 * @throws IOException 
 	 */
 	public void readExcel() throws IOException{
+		readExcel(null);
+	}
+	
+	/**
+	 * 逐行读取Excel中的内容，每行数据交由给定的处理器处理，不保存到{@link SheetData}中，
+	 * 读取后{@link #getSheetDataList()}中只有sheet页的表头、名称等信息
+	 * 
+	 * @param rowDataHandler 行数据处理器，值为null时，读取的数据保存到{@link SheetData}中
+	 * @throws IOException 
+	 */
+	public void readExcel(RowDataHandler rowDataHandler) throws IOException{
 		try{
-			//读取公式cell所用
-			FormulaEvaluator fe = workbook.getCreationHelper().createFormulaEvaluator();
-			
-			//获取sheet页数量
-			int sheetCount = workbook.getNumberOfSheets();
-			sheetCount = sheetCount > 0 && !readAllSheet ? 1 : sheetCount;
+			if (parallelRead && readAllSheet && isParallelReadSupported()) {
+				readSheetsParallel(rowDataHandler);
+				return;
+			}
 			SheetData sheetData;
-			for (int i = 0; i < sheetCount; i++) {
-				sheetData = new SheetData(workbook.getSheetAt(i));
-				sheetData.setSheetIndex(i); 
-				sheetData.setValidateRowData(validateRowData);
-				sheetData.setBlankRowOptionType(blankRowOptionType);
-				sheetData.readSheet(fe, excelHasTitles); 
-				sheetData.releaseSheet();  
+			SheetRowReader rowReader;
+			for (int i = 0; i == 0 || readAllSheet; i++) {
+				sheetData = createSheetData(i);
+				sheetData.setRowDataHandler(rowDataHandler);
+				rowReader = openSheetRowReader(sheetData);
+				if (rowReader == null) {
+					break;
+				}
+				try {
+					readSheet(sheetData, rowReader);
+				} catch (UncheckedIOException e) {
+					throw e.getCause();
+				} finally {
+					rowReader.close();
+				}
 				sheetDataList.add(sheetData);
 			}
 		}finally {
-			if (workbook != null) {
-				workbook.close();
+			close();
+		}
+	}
+	
+	/**
+	 * 并行读取所有sheet页，读取结果按sheet页索引顺序保存
+	 * 
+	 * @param rowDataHandler 行数据处理器，可以为null
+	 * @throws IOException
+	 */
+	private void readSheetsParallel(RowDataHandler rowDataHandler) throws IOException{
+		List<SheetData> sheetDatas = new ArrayList<SheetData>();
+		List<SheetRowReader> rowReaders = new ArrayList<SheetRowReader>();
+		List<FutureTask<Void>> tasks = new ArrayList<FutureTask<Void>>();
+		ExecutorService ownExecutor = null;
+		try {
+			// sheet页在当前线程中按顺序打开
+			SheetData sheetData;
+			SheetRowReader rowReader;
+			for (int i = 0; ; i++) {
+				sheetData = createSheetData(i);
+				sheetData.setRowDataHandler(rowDataHandler);
+				rowReader = openSheetRowReader(sheetData);
+				if (rowReader == null) {
+					break;
+				}
+				sheetDatas.add(sheetData);
+				rowReaders.add(rowReader);
+			}
+			
+			int sheetCount = sheetDatas.size();
+			Executor sheetExecutor = executor;
+			if (sheetExecutor == null) {
+				int threads = Math.max(1, Math.min(sheetCount, Runtime.getRuntime().availableProcessors()));
+				ownExecutor = Executors.newFixedThreadPool(threads);
+				sheetExecutor = ownExecutor;
+			}
+			for (int i = 0; i < sheetCount; i++) {
+				final SheetData data = sheetDatas.get(i);
+				final SheetRowReader reader = rowReaders.get(i);
+				FutureTask<Void> task = new FutureTask<Void>(new Callable<Void>() {
+					@Override
+					public Void call() throws Exception {
+						readSheet(data, reader);
+						return null;
+					}
+				});
+				tasks.add(task);
+				sheetExecutor.execute(task);
+			}
+			for (FutureTask<Void> task : tasks) {
+				try {
+					task.get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("读取sheet页数据被中断！");
+				} catch (ExecutionException e) {
+					Throwable cause = e.getCause();
+					if (cause instanceof UncheckedIOException) {
+						throw ((UncheckedIOException) cause).getCause();
+					}
+					if (cause instanceof RuntimeException) {
+						throw (RuntimeException) cause;
+					}
+					if (cause instanceof Error) {
+						throw (Error) cause;
+					}
+					throw new IOException(cause);
+				}
+			}
+			sheetDataList.addAll(sheetDatas);
+		} finally {
+			for (FutureTask<Void> task : tasks) {
+				task.cancel(true);
 			}
+			if (ownExecutor != null) {
+				ownExecutor.shutdownNow();
+			}
+			for (SheetRowReader rowReader : rowReaders) {
+				rowReader.close();
+			}
+		}
+	}
+	
+	/**
+	 * 读取sheet页数据
+	 * 
+	 * @param sheetData
+	 * @param rowReader
+	 */
+	private void readSheet(SheetData sheetData, SheetRowReader rowReader) {
+		sheetData.readSheetRows(rowReader, excelHasTitles); 
+		sheetData.setRowDataHandler(null);
+		sheetData.releaseSheet();  
+	}
+	
+	/**
+	 * 获取第一个sheet页逐行读取数据的迭代器，用完后需调用{@link SheetRowIterator#close()}，
+	 * 关闭迭代器时同时释放该对象所占资源
+	 * 
+	 * @return
+	 * @throws IOException 
+	 */
+	public SheetRowIterator rowIterator() throws IOException{
+		return rowIterator(0);
+	}
+	
+	/**
+	 * 获取给定索引sheet页逐行读取数据的迭代器，用完后需调用{@link SheetRowIterator#close()}，
+	 * 关闭迭代器时同时释放该对象所占资源
+	 * 
+	 * @param sheetIndex sheet页索引值
+	 * @return
+	 * @throws IOException 
+	 * @throws IllegalArgumentException 假如给定的sheet页不存在，则抛出该异常
+	 */
+	public SheetRowIterator rowIterator(int sheetIndex) throws IOException{
+		SheetData sheetData = createSheetData(sheetIndex);
+		SheetRowReader rowReader = openSheetRowReader(sheetData);
+		if (rowReader == null) {
+			close();
+			throw new IllegalArgumentException("sheet页[" + sheetIndex + "]不存在！");
+		}
+		return new SheetRowIterator(sheetData, rowReader, excelHasTitles, this);
+	}
+	
+	/**
+	 * 打开给定sheet页的逐行读取器，并设置sheet页的名称
+	 * 
+	 * @param sheetData
+	 * @return 假如sheet页不存在，返回null
+	 * @throws IOException 
+	 */
+	SheetRowReader openSheetRowReader(SheetData sheetData) throws IOException{
+		int sheetIndex = sheetData.getSheetIndex();
+		if (sheetIndex >= workbook.getNumberOfSheets()) {
+			return null;
+		}
+		Sheet sheet = workbook.getSheetAt(sheetIndex);
+		sheetData.setSheet(sheet);
+		sheetData.setSheetName(sheet.getSheetName());
+		if (formulaOptionType != FormulaOptionType.EVALUATE) {
+			// 不预先创建公式计算器，需要时再创建
+			return new UserModelSheetRowReader(sheet, null, false, getColumnConverterArray(), 
+					formulaOptionType);
+		}
+		if (formulaEvaluator == null) {
+			//读取公式cell所用
+			formulaEvaluator = workbook.getCreationHelper().createFormulaEvaluator();
+		}
+		return new UserModelSheetRowReader(sheet, formulaEvaluator, true, getColumnConverterArray());
+	}
+	
+	/**
+	 * 判断是否支持多线程并行读取sheet页
+	 * <p>
+	 * POI的usermodel对象不支持多线程同时访问，同一workbook的sheet页之间共享样式表、共享字符串表，
+	 * 公式计算时还会访问其他sheet页，所以默认不支持；只有各sheet页是相互独立的数据流时才支持
+	 * </p>
+	 * 
+	 * @return
+	 */
+	boolean isParallelReadSupported() {
+		return false;
+	}
+	
+	/**
+	 * 获取按列索引值排列的cell值转换器
+	 * 
+	 * @return 假如没有设置转换器，返回null
+	 */
+	CellValueConverter[] getColumnConverterArray() {
+		if (columnConverters.isEmpty()) {
+			return null;
+		}
+		int length = 0;
+		for (Integer columnIndex : columnConverters.keySet()) {
+			length = Math.max(length, columnIndex.intValue() + 1);
+		}
+		CellValueConverter[] converters = new CellValueConverter[length];
+		for (Map.Entry<Integer, CellValueConverter> entry : columnConverters.entrySet()) {
+			converters[entry.getKey().intValue()] = entry.getValue();
+		}
+		return converters;
+	}
+	
+	/**
+	 * 释放所占资源，{@link #readExcel()}结束后自动调用
+	 * 
+	 * @throws IOException
+	 */
+	@Override
+	public void close() throws IOException{
+		if (workbook != null) {
+			workbook.close();
+			workbook = null;
 		}
+		formulaEvaluator = null;
+	}
+	
+	/**
+	 * 创建sheet页数据对象，并设置读取配置
+	 * 
+	 * @param sheetIndex sheet页索引值
+	 * @return
+	 */
+	protected SheetData createSheetData(int sheetIndex) {
+		SheetData sheetData = new SheetData();
+		sheetData.setSheetIndex(sheetIndex); 
+		sheetData.setValidateRowData(validateRowData);
+		sheetData.setBlankRowOptionType(blankRowOptionType);
+		sheetData.setReadColumnTitles(readColumnTitles);
+		sheetData.setReadColumnIndexes(readColumnIndexes);
+		sheetData.setRowRange(firstRowNo, lastRowNo);
+		sheetData.setMaxRows(maxRows);
+		return sheetData;
 	}
 	
 	/**
@@ -352,4 +650,171 @@ public class ReadExcel {
 	public void setReadAllSheet(boolean readAllSheet) {
 		this.readAllSheet = readAllSheet;
 	}
+
+	/**
+	 * 标记读取所有sheet页时是否多线程并行读取
+	 * 
+	 * @return
+	 */
+	public boolean isParallelRead() {
+		return parallelRead;
+	}
+
+	/**
+	 * 设置读取所有sheet页时是否多线程并行读取，只有{@link #isReadAllSheet()}为true时生效
+	 * <p>
+	 * 只对{@link ReadXLSXStreamExcel}生效，其各sheet页是相互独立的数据流；POI的usermodel对象不支持多线程同时访问，
+	 * 且公式可以引用其他sheet页，所以本类及其他子类总是按顺序读取，设置该值不影响读取结果
+	 * </p>
+	 * <p>
+	 * 并行读取时，{@link #getSheetDataList()}仍按sheet页索引顺序保存；设置了{@link RowDataHandler}时，
+	 * 该处理器会被多个线程同时调用，需保证线程安全
+	 * </p>
+	 * 
+	 * @param parallelRead
+	 */
+	public void setParallelRead(boolean parallelRead) {
+		this.parallelRead = parallelRead;
+	}
+
+	public Executor getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * 设置并行读取sheet页所用的线程池，值为null时每次读取按sheet页数量和cpu核数临时创建，读取完后关闭
+	 * 
+	 * @param executor
+	 */
+	public void setExecutor(Executor executor) {
+		this.executor = executor;
+	}
+
+	public FormulaOptionType getFormulaOptionType() {
+		return formulaOptionType;
+	}
+
+	/**
+	 * 设置公式cell的取值方式，默认{@link FormulaOptionType#EVALUATE}；
+	 * 公式多的excel设置为{@link FormulaOptionType#CACHED}时不计算公式，读取最快
+	 * 
+	 * @param formulaOptionType
+	 */
+	public void setFormulaOptionType(FormulaOptionType formulaOptionType) {
+		if (formulaOptionType != null) {
+			this.formulaOptionType = formulaOptionType;
+		}
+	}
+
+	public Map<Integer, CellValueConverter> getColumnConverters() {
+		return columnConverters;
+	}
+
+	/**
+	 * 声明列的值类型，读取时该列数字或字符串cell直接转换成该类型的值，不能转换的cell（如：表头）仍按默认方式读取
+	 * <p>
+	 * 支持的类型见{@link CellValueConverters#forType(Class)}，对所有读取的sheet页生效
+	 * </p>
+	 * 
+	 * @param columnIndex 列索引值，从0开始
+	 * @param type 列的值类型
+	 * @throws IllegalArgumentException 假如列索引值小于0或不支持给定类型，则抛出该异常
+	 * @throws NullPointerException 假如类型为null，则抛出该异常
+	 */
+	public void setColumnType(int columnIndex, Class<?> type) {
+		setColumnConverter(columnIndex, CellValueConverters.forType(type));
+	}
+
+	/**
+	 * 设置列的cell值转换器，对所有读取的sheet页生效
+	 * 
+	 * @param columnIndex 列索引值，从0开始
+	 * @param converter 值为null时取消该列的转换器
+	 * @throws IllegalArgumentException 假如列索引值小于0，则抛出该异常
+	 */
+	public void setColumnConverter(int columnIndex, CellValueConverter converter) {
+		if (columnIndex < 0) {
+			throw new IllegalArgumentException("列索引值不能小于0！");
+		}
+		if (converter == null) {
+			columnConverters.remove(Integer.valueOf(columnIndex));
+		} else {
+			columnConverters.put(Integer.valueOf(columnIndex), converter);
+		}
+	}
+
+	public String[] getReadColumnTitles() {
+		return readColumnTitles;
+	}
+
+	/**
+	 * 设置只读取给定表头对应的列，读取后表头和每行数据都只包含这些列，按给定顺序排列，
+	 * 其他列的cell值不解析也不保存；sheet页中不存在的表头对应的值为""
+	 * <p>
+	 * 空行按读取的列判断；设置后{@link #setReadColumnIndexes(int...)}的设置失效
+	 * </p>
+	 * 
+	 * @param readColumnTitles 值为null时读取所有列
+	 */
+	public void setReadColumnTitles(String... readColumnTitles) {
+		this.readColumnTitles = readColumnTitles;
+		if (readColumnTitles != null) {
+			this.readColumnIndexes = null;
+		}
+	}
+
+	public int[] getReadColumnIndexes() {
+		return readColumnIndexes;
+	}
+
+	/**
+	 * 设置只读取给定索引值对应的列，读取后表头和每行数据都只包含这些列，按给定顺序排列，
+	 * 其他列的cell值不解析也不保存；设置后{@link #setReadColumnTitles(String...)}的设置失效
+	 * 
+	 * @param readColumnIndexes 列索引值，从0开始，值为null时读取所有列
+	 * @throws IllegalArgumentException 假如有列索引值小于0，则抛出该异常
+	 */
+	public void setReadColumnIndexes(int... readColumnIndexes) {
+		if (readColumnIndexes != null) {
+			for (int index : readColumnIndexes) {
+				if (index < 0) {
+					throw new IllegalArgumentException("列索引值不能小于0！");
+				}
+			}
+			this.readColumnTitles = null;
+		}
+		this.readColumnIndexes = readColumnIndexes;
+	}
+
+	public int getFirstRowNo() {
+		return firstRowNo;
+	}
+
+	public int getLastRowNo() {
+		return lastRowNo;
+	}
+
+	/**
+	 * 设置读取的数据行的行号范围，范围外的行不解析，表头行不受该范围限制
+	 * 
+	 * @param firstRowNo 第一行数据的行号，从1开始，假如参数小于1，则自动设置为1
+	 * @param lastRowNo 最后一行数据的行号（包含），值小于等于0时读取到最后一行
+	 */
+	public void setRowRange(int firstRowNo, int lastRowNo) {
+		this.firstRowNo = firstRowNo < 1 ? 1 : firstRowNo;
+		this.lastRowNo = lastRowNo < 0 ? 0 : lastRowNo;
+	}
+
+	public int getMaxRows() {
+		return maxRows;
+	}
+
+	/**
+	 * 设置每个sheet页最多读取的数据行数，读取到该行数后不再继续往下读
+	 * 
+	 * @param maxRows 值小于等于0时不限制
+	 */
+	public void setMaxRows(int maxRows) {
+		this.maxRows = maxRows < 0 ? 0 : maxRows;
+	}
 }
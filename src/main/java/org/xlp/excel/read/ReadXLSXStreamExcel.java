@@ -0,0 +1,299 @@
+package org.xlp.excel.read;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.poi.EncryptedDocumentException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.crypt.Decryptor;
+import org.apache.poi.poifs.crypt.EncryptionInfo;
+import org.apache.poi.poifs.filesystem.FileMagic;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.util.StaxHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.xlp.assertion.AssertUtils;
+import org.xlp.assertion.IllegalObjectException;
+import org.xlp.utils.io.XLPIOUtil;
+import org.xml.sax.SAXException;
+
+/**
+ * 以流的方式读取xlsx格式的Excel
+ * <p>
+ * 不创建POI的usermodel对象，而是通过{@link XSSFReader}逐行解析sheet页的xml数据，
+ * 读取大数据量的excel时，内存占用远小于{@link ReadExcel}，读取结果与{@link ReadExcel}一致
+ * </p>
+ * <p>
+ * 注意：只支持xlsx格式；公式cell总是取excel中缓存的计算结果，{@link #setFormulaOptionType(FormulaOptionType)}不生效；以文件方式构造时内存占用最小，
+ * 以输入流方式构造时需把压缩包内容读入内存
+ * </p>
+ *
+ * @author xlp
+ */
+public class ReadXLSXStreamExcel extends ReadExcel {
+	/**
+	 * xlsx文件包
+	 */
+	private OPCPackage opcPackage;
+
+	private XSSFReader xssfReader;
+
+	/**
+	 * 共享字符串表
+	 */
+	private ReadOnlySharedStringsTable sharedStrings;
+
+	/**
+	 * 样式表
+	 */
+	private StylesTable stylesTable;
+
+	/**
+	 * 标记是否使用1904日期系统
+	 */
+	private boolean date1904;
+
+	/**
+	 * sheet迭代器
+	 */
+	private XSSFReader.SheetIterator sheetIterator;
+
+	/**
+	 * sheet迭代器当前位置
+	 */
+	private int sheetIteratorIndex = -1;
+
+	/**
+	 * @param inputStream
+	 * @throws IOException
+	 * @throws NullPointerException 假如参数为空，抛出该异常
+	 * @throws IllegalArgumentException 假如数据不是xlsx格式，则抛出该异常
+	 */
+	public ReadXLSXStreamExcel(InputStream inputStream) throws IOException{
+		this(inputStream, null);
+	}
+
+	/**
+	 * @param inputStream
+	 * @param password 密码
+	 * @throws IOException
+	 * @throws EncryptedDocumentException 假如用错误的密码去解析加密的excle文件，则抛出该异常
+	 * @throws NullPointerException 假如参数为空，抛出该异常
+	 * @throws IllegalArgumentException 假如数据不是xlsx格式，则抛出该异常
+	 */
+	public ReadXLSXStreamExcel(InputStream inputStream, String password) throws IOException{
+		AssertUtils.isNotNull(inputStream, "inputStream param is null!");
+		inputStream = FileMagic.prepareToCheckMagic(inputStream);
+		FileMagic fileMagic = FileMagic.valueOf(inputStream);
+		try {
+			if (fileMagic == FileMagic.OLE2) {
+				opcPackage = openEncryptedPackage(new POIFSFileSystem(inputStream), password);
+			} else if (fileMagic == FileMagic.OOXML) {
+				opcPackage = OPCPackage.open(inputStream);
+			} else {
+				throw new IllegalArgumentException("只支持读取xlsx格式的excel！");
+			}
+		} catch (OpenXML4JException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * @param xlsxFile
+	 * @throws IOException
+	 * @throws NullPointerException 假如参数为空，抛出该异常
+	 * @throws IllegalArgumentException 假如给定的文件是目录或不存在或不是xlsx格式时，抛出该异常
+	 */
+	public ReadXLSXStreamExcel(File xlsxFile) throws IOException{
+		this(xlsxFile, null);
+	}
+
+	/**
+	 * @param xlsxFile
+	 * @param password 密码
+	 * @throws IOException
+	 * @throws EncryptedDocumentException 假如用错误的密码去解析加密的excle文件，则抛出该异常
+	 * @throws NullPointerException 假如参数为空，抛出该异常
+	 * @throws IllegalArgumentException 假如给定的文件是目录或不存在或不是xlsx格式时，抛出该异常
+	 */
+	public ReadXLSXStreamExcel(File xlsxFile, String password) throws IOException{
+		AssertUtils.isNotNull(xlsxFile, "xlsxFile param is null!");
+		AssertUtils.assertFile(xlsxFile);
+		FileMagic fileMagic = FileMagic.valueOf(xlsxFile);
+		try {
+			if (fileMagic == FileMagic.OLE2) {
+				opcPackage = openEncryptedPackage(new POIFSFileSystem(xlsxFile, true), password);
+			} else if (fileMagic == FileMagic.OOXML) {
+				opcPackage = OPCPackage.open(xlsxFile, PackageAccess.READ);
+			} else {
+				throw new IllegalArgumentException("只支持读取xlsx格式的excel！");
+			}
+		} catch (OpenXML4JException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * @param xlsxFile
+	 * @throws IOException
+	 * @throws NullPointerException 假如参数为空，抛出该异常
+	 * @throws IllegalObjectException  假如给定的文件是目录或不存在，则抛出该异常
+	 * @throws IllegalArgumentException 假如给定的文件不是xlsx格式时，抛出该异常
+	 */
+	public ReadXLSXStreamExcel(String xlsxFile) throws IOException{
+		this(xlsxFile, null);
+	}
+
+	/**
+	 * @param xlsxFile
+	 * @param password 密码
+	 * @throws IOException
+	 * @throws EncryptedDocumentException 假如用错误的密码去解析加密的excle文件，则抛出该异常
+	 * @throws NullPointerException 假如参数xlsxFile为空，抛出该异常
+	 * @throws IllegalObjectException  假如给定的文件是目录或不存在，则抛出该异常
+	 * @throws IllegalArgumentException 假如给定的文件不是xlsx格式时，抛出该异常
+	 */
+	public ReadXLSXStreamExcel(String xlsxFile, String password) throws IOException{
+		this(xlsxFile == null ? null : new File(xlsxFile), password);
+	}
+
+	/**
+	 * 打开加密的xlsx文件包
+	 *
+	 * @param fileSystem
+	 * @param password
+	 * @return
+	 * @throws IOException
+	 * @throws OpenXML4JException
+	 * @throws EncryptedDocumentException 假如密码错误，则抛出该异常
+	 * @throws IllegalArgumentException 假如不是加密的xlsx文件（如xls文件），则抛出该异常
+	 */
+	private static OPCPackage openEncryptedPackage(POIFSFileSystem fileSystem, String password)
+			throws IOException, OpenXML4JException {
+		try {
+			// 没有加密信息的OLE2文件是xls格式
+			if (!fileSystem.getRoot().hasEntry(Decryptor.DEFAULT_POIFS_ENTRY)) {
+				throw new IllegalArgumentException("只支持读取xlsx格式的excel！");
+			}
+			EncryptionInfo info = new EncryptionInfo(fileSystem);
+			Decryptor decryptor = Decryptor.getInstance(info);
+			if (!decryptor.verifyPassword(password == null ? Decryptor.DEFAULT_PASSWORD : password)) {
+				throw new EncryptedDocumentException("密码错误，无法打开excel！");
+			}
+			return OPCPackage.open(decryptor.getDataStream(fileSystem));
+		} catch (GeneralSecurityException e) {
+			throw new EncryptedDocumentException(e);
+		} finally {
+			fileSystem.close();
+		}
+	}
+
+	@Override
+	SheetRowReader openSheetRowReader(SheetData sheetData) throws IOException{
+		try {
+			if (xssfReader == null) {
+				xssfReader = new XSSFReader(opcPackage);
+				sharedStrings = new ReadOnlySharedStringsTable(opcPackage, false);
+				stylesTable = xssfReader.getStylesTable();
+				date1904 = isDate1904(xssfReader);
+			}
+			int sheetIndex = sheetData.getSheetIndex();
+			// 按顺序读取时复用sheet迭代器
+			if (sheetIterator == null || sheetIteratorIndex >= sheetIndex) {
+				sheetIterator = (XSSFReader.SheetIterator) xssfReader.getSheetsData();
+				sheetIteratorIndex = -1;
+			}
+			InputStream inputStream = null;
+			while (sheetIteratorIndex < sheetIndex && sheetIterator.hasNext()) {
+				XLPIOUtil.closeInputStream(inputStream);
+				inputStream = sheetIterator.next();
+				sheetIteratorIndex++;
+			}
+			if (sheetIteratorIndex < sheetIndex) {
+				XLPIOUtil.closeInputStream(inputStream);
+				return null;
+			}
+			sheetData.setSheetName(sheetIterator.getSheetName());
+			return new XLSXSheetRowReader(inputStream, sharedStrings, stylesTable, date1904, 
+					getColumnConverterArray());
+		} catch (OpenXML4JException e) {
+			throw new IOException(e);
+		} catch (SAXException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * 各sheet页是相互独立的数据流，解析时只读访问共享字符串表和样式表，支持多线程并行读取
+	 */
+	@Override
+	boolean isParallelReadSupported() {
+		return true;
+	}
+
+	/**
+	 * 释放所占资源，{@link #readExcel()}结束后自动调用
+	 *
+	 * @throws IOException
+	 */
+	@Override
+	public void close() throws IOException{
+		if (opcPackage != null) {
+			// 只读方式打开，不需要保存
+			opcPackage.revert();
+			opcPackage = null;
+		}
+		xssfReader = null;
+		sharedStrings = null;
+		stylesTable = null;
+		sheetIterator = null;
+	}
+
+	/**
+	 * 判断excel是否使用1904日期系统
+	 *
+	 * @param xssfReader
+	 * @return
+	 * @throws IOException
+	 * @throws OpenXML4JException
+	 */
+	private boolean isDate1904(XSSFReader xssfReader) throws IOException, OpenXML4JException {
+		InputStream inputStream = xssfReader.getWorkbookData();
+		XMLStreamReader reader = null;
+		try {
+			reader = StaxHelper.newXMLInputFactory().createXMLStreamReader(inputStream);
+			while (reader.hasNext()) {
+				if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+					String name = reader.getLocalName();
+					if ("workbookPr".equals(name)) {
+						String date1904 = reader.getAttributeValue(null, "date1904");
+						return "1".equals(date1904) || "true".equalsIgnoreCase(date1904);
+					}
+					if ("sheets".equals(name)) {
+						break;
+					}
+				}
+			}
+			return false;
+		} catch (XMLStreamException e) {
+			throw new IOException(e);
+		} finally {
+			if (reader != null) {
+				try {
+					reader.close();
+				} catch (XMLStreamException e) {
+				}
+			}
+			XLPIOUtil.closeInputStream(inputStream);
+		}
+	}
+}
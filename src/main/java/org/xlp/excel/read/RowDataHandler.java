@@ -0,0 +1,22 @@
+package org.xlp.excel.read;
+
+/**
+ * 逐行处理excel中sheet页数据的接口，读取时每行数据交由该接口处理，不再保存到{@link SheetData}中
+ * 
+ * @author xlp
+ */
+public interface RowDataHandler {
+	/**
+	 * 处理sheet页中的一行数据（不包括表头行）
+	 * 
+	 * @param sheetData
+	 *            当前sheet页，可从中获取表头、sheet名称、索引等信息，
+	 *            需要key-value形式的数据时可调用{@link SheetData#toRowMap(Object[], Integer)}
+	 * @param rowNo
+	 *            行号，从1开始
+	 * @param rowData
+	 *            行数据
+	 * @return 返回false时，中断读取该sheet页
+	 */
+	public boolean handleRowData(SheetData sheetData, int rowNo, Object[] rowData);
+}
@@ -1,15 +1,11 @@
 package org.xlp.excel.read;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.FormulaEvaluator;
-import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
-import org.xlp.excel.util.ExcelUtils;
 import org.xlp.utils.XLPObjectUtil;
 import org.xlp.utils.XLPStringUtil;
 
@@ -23,9 +19,9 @@ public class SheetData {
 	 */
 	private List<Object[]> sheetData = new ArrayList<Object[]>();
 	/**
-	 * 存储每行数据每行数据已key-value存储
+	 * 存储每行数据每行数据已key-value存储，第一次获取时才根据sheetData创建
 	 */
-	private List<Map<String, ?>> sheetDataMap = new ArrayList<Map<String, ?>>();
+	private List<Map<String, ?>> sheetDataMap;
 
 	/**
 	 * sheet索引值
@@ -82,6 +78,61 @@ public class SheetData {
 	 */
 	private int fixedRows = 0;
 	
+	/**
+	 * 读取时标记sheet的第一行是否是表头栏
+	 */
+	private boolean readHasTitle = true;
+	
+	/**
+	 * 读取时标记是否已确定表头
+	 */
+	private boolean titlesRead = false;
+	
+	/**
+	 * 逐行处理sheet页数据的处理器，设置后读取的数据不再保存到该对象中
+	 */
+	private RowDataHandler rowDataHandler;
+	
+	/**
+	 * 表头到列索引值的映射，创建行key-value视图时共享
+	 */
+	private SheetRowMap.TitleIndex titleIndex;
+	
+	/**
+	 * 读取时只读取这些表头对应的列，按给定顺序保存
+	 */
+	private String[] readColumnTitles;
+	
+	/**
+	 * 读取时只读取这些索引值对应的列，按给定顺序保存
+	 */
+	private int[] readColumnIndexes;
+	
+	/**
+	 * 读取时根据表头确定的实际读取的列索引值，值为null时读取所有列
+	 */
+	private int[] readColumns;
+	
+	/**
+	 * 读取的第一行数据的行号，从1开始
+	 */
+	private int firstRowNo = 1;
+	
+	/**
+	 * 读取的最后一行数据的行号，值小于等于0时读取到最后一行
+	 */
+	private int lastRowNo = 0;
+	
+	/**
+	 * 最多读取的数据行数，值小于等于0时不限制
+	 */
+	private int maxRows = 0;
+	
+	/**
+	 * 已读取的数据行数
+	 */
+	private int readRowCount;
+	
 	public SheetData() {
 	}
 
@@ -135,72 +186,198 @@ public class SheetData {
 	public void readSheet(FormulaEvaluator formulaEvaluator, boolean hasTitle) {
 		if (sheet != null) {
 			sheetName = sheet.getSheetName();
-
-			int lastRowNo = sheet.getLastRowNum();
-			Object[] rowData;
-			Row row;
-			Cell cell;
-			// 循环获取sheet页每行数据，改行为空跳过
-			for (int i = 0; i <= lastRowNo; i++) {
-				row = sheet.getRow(i);
-				if (row != null) {
-					int cellnum = row.getLastCellNum();
-					rowData = new Object[cellnum];
-					for (int j = 0; j < cellnum; j++) {
-						cell = row.getCell(j);
-						rowData[j] = ExcelUtils.getCellValue(cell, formulaEvaluator);
-					}
-					// 判断该行是否为空
-					if (validateRowData != null && validateRowData.rowDataIsEmpty(rowData)) {
-						if(blankRowOptionType == BlankRowOptionType.BREAK){
-							break;
-						}
-						if (blankRowOptionType == BlankRowOptionType.SKIP) {
-							continue;
-						}
-					}
-					sheetData.add(rowData);
-					rowNoList.add(Integer.valueOf(i + 1));
-				}else {
-					if(blankRowOptionType == BlankRowOptionType.BREAK){
-						break;
-					}
-					if (blankRowOptionType == BlankRowOptionType.SKIP) {
-						continue;
-					}
-					sheetData.add(new Object[0]);
-					rowNoList.add(Integer.valueOf(i + 1));
-				}
+			readSheetRows(new UserModelSheetRowReader(sheet, formulaEvaluator), hasTitle);
+		}
+	}
+	
+	/**
+	 * 逐行读取sheet页的内容
+	 * 
+	 * @param rowReader
+	 * @param hasTitle
+	 *            表示sheet的第一行是否是表头栏， true表示是
+	 * @throws java.io.UncheckedIOException 假如读取数据失败，则抛出该异常
+	 */
+	void readSheetRows(SheetRowReader rowReader, boolean hasTitle) {
+		startRead(hasTitle);
+		// 循环获取sheet页每行数据
+		while (readNextRow(rowReader)) {
+		}
+	}
+	
+	/**
+	 * 开始逐行读取sheet页数据前调用
+	 * 
+	 * @param hasTitle
+	 *            表示sheet的第一行是否是表头栏， true表示是
+	 */
+	void startRead(boolean hasTitle) {
+		this.readHasTitle = hasTitle;
+		this.titlesRead = false;
+		this.readColumns = null;
+		this.readRowCount = 0;
+	}
+	
+	/**
+	 * 读取下一行，不在读取行范围内的行不解析其cell值；确定表头后，只解析要读取的列
+	 * 
+	 * @param rowReader
+	 * @return 返回false时，表示已读取完毕，不继续往下读
+	 * @throws java.io.UncheckedIOException 假如读取数据失败，则抛出该异常
+	 */
+	boolean readNextRow(SheetRowReader rowReader) {
+		if (!rowReader.nextRow()) {
+			return false;
+		}
+		int rowNo = rowReader.getRowIndex() + 1;
+		// 表头行不受读取行范围限制
+		if (titlesRead || !readHasTitle) {
+			if (lastRowNo > 0 && rowNo > lastRowNo) {
+				return false;
 			}
-			if (!sheetData.isEmpty() && hasTitle) {
-				Object[] titles = sheetData.remove(0);
-				rowNoList.remove(0);
-				int len = titles.length;
-				sheetTitles = new String[len];
-				for (int i = 0; i < len; i++) {
-					sheetTitles[i] = XLPObjectUtil.object2Str(titles[i]); 
+			if (rowNo < firstRowNo) {
+				return true;
+			}
+		}
+		boolean titlesReadBefore = titlesRead;
+		boolean goOn = readRowData(rowNo, rowReader.getRowData());
+		if (!titlesReadBefore && titlesRead && readColumns != null) {
+			rowReader.setColumns(readColumns);
+		}
+		return goOn;
+	}
+	
+	/**
+	 * 处理读取到的一行数据，按空行处理类型判断是否保留该行，第一个保留的行用来确定表头
+	 * 
+	 * @param rowNo
+	 *            行号，从1开始
+	 * @param rowData
+	 *            行数据，值为null时表示该行不存在
+	 * @return 返回false时，表示中断读取，不继续往下读
+	 */
+	boolean readRowData(int rowNo, Object[] rowData) {
+		boolean columnsSelected = false;
+		if (!titlesRead && !readHasTitle && rowData != null 
+				&& (readColumnTitles != null || readColumnIndexes != null)) {
+			// 之后的行在判断是否为空行前已只取要读取的列，第一行也先取出要读取的列，保证每行的判断一致
+			readTitles(rowData);
+			rowData = selectColumns(rowData, readColumns);
+			columnsSelected = true;
+		}
+		// 判断该行是否为空
+		if (rowData == null || (validateRowData != null && validateRowData.rowDataIsEmpty(rowData))) {
+			if(blankRowOptionType == BlankRowOptionType.BREAK){
+				return false;
+			}
+			if (blankRowOptionType == BlankRowOptionType.SKIP) {
+				return true;
+			}
+			if (rowData == null) {
+				rowData = new Object[0];
+			}
+		}
+		if (!titlesRead) {
+			titlesRead = true;
+			if (!columnsSelected) {
+				readTitles(rowData);
+				if (readHasTitle) {
+					return true;
 				}
-			}else if (!sheetData.isEmpty()) {
-				Object[] titles = sheetData.get(0);
-				int len = titles.length;
-				sheetTitles = new String[len];
-				for (int i = 0; i < len; i++) {
-					sheetTitles[i] = String.valueOf(i);  
+				if (readColumns != null) {
+					rowData = selectColumns(rowData, readColumns);
 				}
 			}
-			
-			int index = 0;
-			for(Object[] data : sheetData){
-				int len = Math.min(data.length, sheetTitles.length);
-				Map<String, Object> map = new HashMap<String, Object>();
-				for (int i = 0; i < len; i++) {
-					map.put(sheetTitles[i], data[i]);
+		}
+		boolean goOn = true;
+		if (rowDataHandler != null) {
+			goOn = rowDataHandler.handleRowData(this, rowNo, rowData);
+		} else {
+			sheetData.add(rowData);
+			rowNoList.add(Integer.valueOf(rowNo));
+		}
+		readRowCount++;
+		return goOn && (maxRows <= 0 || readRowCount < maxRows);
+	}
+	
+	/**
+	 * 根据第一个保留的行确定表头及要读取的列，没有表头行时表头为列索引值
+	 * 
+	 * @param rowData
+	 */
+	private void readTitles(Object[] rowData) {
+		titleIndex = null;
+		int len = rowData.length;
+		sheetTitles = new String[len];
+		for (int i = 0; i < len; i++) {
+			sheetTitles[i] = readHasTitle ? XLPObjectUtil.object2Str(rowData[i]) : String.valueOf(i);
+		}
+		resolveReadColumns();
+	}
+	
+	/**
+	 * 根据表头确定要读取的列索引值，并把表头替换成要读取的列的表头
+	 */
+	private void resolveReadColumns() {
+		if (readColumnTitles != null) {
+			readColumns = new int[readColumnTitles.length];
+			for (int i = 0; i < readColumns.length; i++) {
+				readColumns[i] = -1;
+				// 表头重复时取最后一个
+				for (int j = sheetTitles.length - 1; j >= 0; j--) {
+					if (sheetTitles[j].equals(readColumnTitles[i])) {
+						readColumns[i] = j;
+						break;
+					}
 				}
-				map.put("sheetRowNo", rowNoList.get(index++));
-				sheetDataMap.add(map);
 			}
+			sheetTitles = readColumnTitles.clone();
+		} else if (readColumnIndexes != null) {
+			readColumns = readColumnIndexes.clone();
+			String[] titles = new String[readColumns.length];
+			for (int i = 0; i < titles.length; i++) {
+				int index = readColumns[i];
+				titles[i] = index < sheetTitles.length ? sheetTitles[index] 
+						: (readHasTitle ? XLPStringUtil.EMPTY : String.valueOf(index));
+			}
+			sheetTitles = titles;
 		}
 	}
+	
+	/**
+	 * 从行数据中取出给定列的值，不存在的列取""
+	 * 
+	 * @param rowData
+	 * @param columns
+	 * @return
+	 */
+	private static Object[] selectColumns(Object[] rowData, int[] columns) {
+		Object[] data = new Object[columns.length];
+		for (int i = 0; i < columns.length; i++) {
+			int index = columns[i];
+			data[i] = index >= 0 && index < rowData.length ? rowData[index] : XLPStringUtil.EMPTY;
+		}
+		return data;
+	}
+	
+	/**
+	 * 把一行数据转换成key-value形式，key为表头，另外用sheetRowNo保存行号
+	 * <p>
+	 * 返回的map不复制行数据，同一sheet页的所有行共享表头索引
+	 * </p>
+	 * 
+	 * @param rowData
+	 *            行数据
+	 * @param rowNo
+	 *            行号，从1开始，值为null时不保存行号
+	 * @return
+	 */
+	public Map<String, Object> toRowMap(Object[] rowData, Integer rowNo) {
+		if (titleIndex == null) {
+			titleIndex = new SheetRowMap.TitleIndex(sheetTitles);
+		}
+		return new SheetRowMap(titleIndex, rowData, rowNo);
+	}
 
 	public String[] getSheetTitles() {
 		return sheetTitles;
@@ -209,6 +386,8 @@ public class SheetData {
 	public void setSheetTitles(String[] sheetTitles) {
 		if (sheetTitles != null) {
 			this.sheetTitles = sheetTitles;
+			this.titleIndex = null;
+			this.sheetDataMap = null;
 		}
 	}
 
@@ -219,10 +398,26 @@ public class SheetData {
 	public void setSheetData(List<Object[]> sheetData) {
 		if (sheetData != null) {
 			this.sheetData = sheetData;
+			this.sheetDataMap = null;
 		}
 	}
 
+	/**
+	 * 获取key-value形式的每行数据，第一次调用时才根据每行数组数据创建
+	 * 
+	 * @return
+	 */
 	public List<Map<String, ?>> getSheetDataMap() {
+		if (sheetDataMap == null) {
+			List<Map<String, ?>> dataMaps = new ArrayList<Map<String, ?>>(sheetData.size());
+			int index = 0;
+			int rowNoCount = rowNoList.size();
+			for(Object[] data : sheetData){
+				dataMaps.add(toRowMap(data, index < rowNoCount ? rowNoList.get(index) : null));
+				index++;
+			}
+			sheetDataMap = dataMaps;
+		}
 		return sheetDataMap;
 	}
 
@@ -255,6 +450,7 @@ public class SheetData {
 	public void setRowNoList(List<Integer> rowNoList) {
 		if (rowNoList != null) {
 			this.rowNoList = rowNoList;
+			this.sheetDataMap = null;
 		}
 	}
 	
@@ -269,15 +465,22 @@ public class SheetData {
 	}
 	
 	/**
-	 * 把sheet页数据转换Javabean对象
+	 * 把sheet页数据转换Javabean对象，按表头直接把行数据写入bean，不经过key-value形式
 	 * 
 	 * @param beanClass
 	 * @param isUsedAnnotation 是否启用注解进行转换，true是，false不启用
 	 * @return
 	 */
 	public <T> List<T> toBeanList(Class<T> beanClass, boolean isUsedAnnotation){
-		SheetDataBeanConverter<T> sheetDataToBean = new SheetDataBeanConverter<T>(isUsedAnnotation);
-		return sheetDataToBean.mapListToBeanList(sheetDataMap, beanClass);
+		SheetRowBeanBinder<T> binder = new SheetRowBeanBinder<T>(beanClass, sheetTitles, isUsedAnnotation);
+		List<T> beanList = new ArrayList<T>(sheetData.size());
+		int index = 0;
+		int rowNoCount = rowNoList.size();
+		for(Object[] data : sheetData){
+			beanList.add(binder.toBean(data, index < rowNoCount ? rowNoList.get(index) : null));
+			index++;
+		}
+		return beanList;
 	}
 
 	public ValidateRowData getValidateRowData() {
@@ -288,6 +491,19 @@ public class SheetData {
 		this.validateRowData = validateRowData;
 	}
 
+	public RowDataHandler getRowDataHandler() {
+		return rowDataHandler;
+	}
+
+	/**
+	 * 设置逐行处理sheet页数据的处理器，设置后读取的数据不再保存到该对象中
+	 * 
+	 * @param rowDataHandler
+	 */
+	public void setRowDataHandler(RowDataHandler rowDataHandler) {
+		this.rowDataHandler = rowDataHandler;
+	}
+
 	/**
 	 * 释放所占Sheet资源
 	 */
@@ -395,4 +611,75 @@ public class SheetData {
 	public void setFixedRows(int fixedRows) {
 		this.fixedRows = fixedRows < 0 ? 0 : fixedRows;
 	}
+
+	public String[] getReadColumnTitles() {
+		return readColumnTitles;
+	}
+
+	/**
+	 * 设置读取时只读取给定表头对应的列，读取后表头和每行数据都只包含这些列，按给定顺序排列，
+	 * 其他列的cell值不解析也不保存；sheet页中不存在的表头对应的值为""
+	 * <p>
+	 * 空行按读取的列判断；同时设置了{@link #setReadColumnIndexes(int...)}时，以表头为准
+	 * </p>
+	 * 
+	 * @param readColumnTitles 值为null时读取所有列
+	 */
+	public void setReadColumnTitles(String... readColumnTitles) {
+		this.readColumnTitles = readColumnTitles;
+	}
+
+	public int[] getReadColumnIndexes() {
+		return readColumnIndexes;
+	}
+
+	/**
+	 * 设置读取时只读取给定索引值对应的列，读取后表头和每行数据都只包含这些列，按给定顺序排列，
+	 * 其他列的cell值不解析也不保存
+	 * 
+	 * @param readColumnIndexes 列索引值，从0开始，值为null时读取所有列
+	 * @throws IllegalArgumentException 假如有列索引值小于0，则抛出该异常
+	 */
+	public void setReadColumnIndexes(int... readColumnIndexes) {
+		if (readColumnIndexes != null) {
+			for (int index : readColumnIndexes) {
+				if (index < 0) {
+					throw new IllegalArgumentException("列索引值不能小于0！");
+				}
+			}
+		}
+		this.readColumnIndexes = readColumnIndexes;
+	}
+
+	public int getFirstRowNo() {
+		return firstRowNo;
+	}
+
+	public int getLastRowNo() {
+		return lastRowNo;
+	}
+
+	/**
+	 * 设置读取的数据行的行号范围，范围外的行不解析，表头行不受该范围限制
+	 * 
+	 * @param firstRowNo 第一行数据的行号，从1开始，假如参数小于1，则自动设置为1
+	 * @param lastRowNo 最后一行数据的行号（包含），值小于等于0时读取到最后一行
+	 */
+	public void setRowRange(int firstRowNo, int lastRowNo) {
+		this.firstRowNo = firstRowNo < 1 ? 1 : firstRowNo;
+		this.lastRowNo = lastRowNo < 0 ? 0 : lastRowNo;
+	}
+
+	public int getMaxRows() {
+		return maxRows;
+	}
+
+	/**
+	 * 设置最多读取的数据行数，读取到该行数后不再继续往下读
+	 * 
+	 * @param maxRows 值小于等于0时不限制
+	 */
+	public void setMaxRows(int maxRows) {
+		this.maxRows = maxRows < 0 ? 0 : maxRows;
+	}
 }
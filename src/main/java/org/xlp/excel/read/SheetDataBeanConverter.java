@@ -1,6 +1,8 @@
 package org.xlp.excel.read;
 
 import org.xlp.excel.annotation.ExcelField;
+import org.xlp.excel.util.ExcelBeanMetadata;
+import org.xlp.excel.util.ExcelFieldMetadata;
 import org.xlp.javabean.PropertyDescriptor;
 import org.xlp.javabean.convert.mapandbean.MapBeanAbstract;
 import org.xlp.javabean.processer.ValueProcesser;
@@ -12,6 +14,11 @@ public class SheetDataBeanConverter<T> extends MapBeanAbstract<T> {
 	 */
 	private boolean isUsedAnnotation = true;
 
+	/**
+	 * 要转换的bean类型，不为null时从按类缓存的{@link ExcelBeanMetadata}中获取列名称
+	 */
+	private Class<?> beanClass;
+
 	public SheetDataBeanConverter() {
 		super();
 	}
@@ -25,6 +32,17 @@ public class SheetDataBeanConverter<T> extends MapBeanAbstract<T> {
 		this.isUsedAnnotation = isUsedAnnotation;
 	}
 
+	/**
+	 * @param beanClass
+	 *            要转换的bean类型，指定后列名称从按类缓存的元数据中获取，不再每次反射解析注解
+	 * @param isUsedAnnotation
+	 *            是否启用ExcelField注解转换 true是，false不启用
+	 */
+	public SheetDataBeanConverter(Class<? extends T> beanClass, boolean isUsedAnnotation) {
+		this(isUsedAnnotation);
+		this.beanClass = beanClass;
+	}
+
 	/**
 	 * @param format
 	 *            字符串日期相互转换格式
@@ -43,7 +61,12 @@ public class SheetDataBeanConverter<T> extends MapBeanAbstract<T> {
 
 	private String virtualFieldName(PropertyDescriptor<?> pd) {
 		String virtualFieldName = null;
-		if (isUsedAnnotation) {
+		if (isUsedAnnotation && beanClass != null) {
+			ExcelFieldMetadata field = ExcelBeanMetadata.getMetadata(beanClass, true).getField(pd.getFieldName());
+			if (field != null) {
+				virtualFieldName = field.getColumnName();
+			}
+		} else if (isUsedAnnotation) {
 			ExcelField excelField = pd.getFieldAnnotation(ExcelField.class);
 			if (excelField != null) {
 				String fieldName = XLPStringUtil.emptyTrim(excelField.name());
@@ -77,6 +100,19 @@ public class SheetDataBeanConverter<T> extends MapBeanAbstract<T> {
 		this.isUsedAnnotation = isUsedAnnotation;
 	}
 
+	public Class<?> getBeanClass() {
+		return beanClass;
+	}
+
+	/**
+	 * 设置要转换的bean类型，设置后列名称从按类缓存的元数据中获取
+	 * 
+	 * @param beanClass
+	 */
+	public void setBeanClass(Class<? extends T> beanClass) {
+		this.beanClass = beanClass;
+	}
+
 	@Override
 	protected boolean canUseBeanAnnotation() {
 		return isUsedAnnotation;
@@ -0,0 +1,196 @@
+package org.xlp.excel.read;
+
+import java.lang.invoke.MethodHandle;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.xlp.excel.annotation.ExcelField;
+import org.xlp.excel.util.ExcelBeanMetadata;
+import org.xlp.excel.util.ExcelFieldMetadata;
+import org.xlp.javabean.convert.mapandbean.MapValueProcesser;
+import org.xlp.javabean.processer.ValueProcesser;
+
+/**
+ * 把sheet页中的行数据直接转换成Javabean对象，不经过key-value中间形式
+ * <p>
+ * 创建时根据表头把bean属性对应到列索引值，之后每行只需按索引值取值并通过{@link MethodHandle}调用set方法，
+ * 同一sheet页的所有行共用一个该对象，也可在{@link RowDataHandler}中逐行使用；
+ * 属性信息取自按类缓存的{@link ExcelBeanMetadata}
+ * </p>
+ * <p>
+ * 属性与表头的对应规则与{@link SheetDataBeanConverter}一致：启用注解时只转换有{@link ExcelField}注解的字段，
+ * 注解name为空时取字段名称；不启用注解时取字段名称；名称为sheetRowNo的属性保存行号
+ * </p>
+ *
+ * @author xlp
+ */
+public class SheetRowBeanBinder<T> {
+	/**
+	 * bean元数据
+	 */
+	private final ExcelBeanMetadata metadata;
+
+	/**
+	 * 属性与列的对应关系
+	 */
+	private final Binding[] bindings;
+
+	/**
+	 * 把cell值转换成属性类型的值处理器
+	 */
+	private ValueProcesser valueProcesser = new MapValueProcesser();
+
+	/**
+	 * 默认启用注解进行转换
+	 *
+	 * @param beanClass
+	 * @param sheetTitles sheet页表头
+	 * @throws NullPointerException 假如参数为null，则抛出该异常
+	 * @throws IllegalArgumentException 假如解析bean信息失败，则抛出该异常
+	 */
+	public SheetRowBeanBinder(Class<T> beanClass, String[] sheetTitles) {
+		this(beanClass, sheetTitles, true);
+	}
+
+	/**
+	 * @param beanClass
+	 * @param sheetTitles sheet页表头
+	 * @param isUsedAnnotation 是否启用注解进行转换，true是，false不启用
+	 * @throws NullPointerException 假如参数为null，则抛出该异常
+	 * @throws IllegalArgumentException 假如解析bean信息失败，则抛出该异常
+	 */
+	public SheetRowBeanBinder(Class<T> beanClass, String[] sheetTitles, boolean isUsedAnnotation) {
+		if (beanClass == null || sheetTitles == null) {
+			throw new NullPointerException("beanClass or sheetTitles param is null!");
+		}
+		metadata = ExcelBeanMetadata.getMetadata(beanClass, isUsedAnnotation);
+		List<Binding> bindingList = new ArrayList<Binding>();
+		for (ExcelFieldMetadata field : metadata.getFields()) {
+			if (!field.isWritable()) {
+				continue;
+			}
+			String name = field.getColumnName();
+			boolean rowNo = SheetRowMap.ROW_NO_KEY.equals(name);
+			int[] columns = columnIndexes(sheetTitles, name);
+			if (!rowNo && columns.length == 0) {
+				continue;
+			}
+			bindingList.add(new Binding(field, rowNo ? null : columns));
+		}
+		bindings = bindingList.toArray(new Binding[0]);
+	}
+
+	/**
+	 * 获取给定名称在表头中的所有列索引值，从小到大排列
+	 *
+	 * @param sheetTitles
+	 * @param name
+	 * @return
+	 */
+	private static int[] columnIndexes(String[] sheetTitles, String name) {
+		int count = 0;
+		for (String title : sheetTitles) {
+			if (name.equals(title)) {
+				count++;
+			}
+		}
+		int[] columns = new int[count];
+		for (int i = 0, j = 0; j < count; i++) {
+			if (name.equals(sheetTitles[i])) {
+				columns[j++] = i;
+			}
+		}
+		return columns;
+	}
+
+	/**
+	 * 把一行数据转换成Javabean对象
+	 *
+	 * @param rowData 行数据
+	 * @return
+	 */
+	public T toBean(Object[] rowData) {
+		return toBean(rowData, null);
+	}
+
+	/**
+	 * 把一行数据转换成Javabean对象
+	 *
+	 * @param rowData 行数据
+	 * @param rowNo 行号，值为null时不设置保存行号的属性
+	 * @return
+	 * @throws IllegalArgumentException 假如创建bean或调用set方法失败，则抛出该异常
+	 */
+	@SuppressWarnings("unchecked")
+	public T toBean(Object[] rowData, Integer rowNo) {
+		Object bean = metadata.newInstance();
+		for (Binding binding : bindings) {
+			Object value;
+			if (binding.columns == null) {
+				if (rowNo == null) {
+					continue;
+				}
+				value = rowNo;
+			} else {
+				int column = binding.column(rowData.length);
+				if (column < 0) {
+					continue;
+				}
+				value = rowData[column];
+			}
+			ExcelFieldMetadata field = binding.field;
+			field.setValue(bean, valueProcesser.processValue(field.getValueType(), value));
+		}
+		return (T) bean;
+	}
+
+	public ValueProcesser getValueProcesser() {
+		return valueProcesser;
+	}
+
+	/**
+	 * 设置把cell值转换成属性类型的值处理器
+	 *
+	 * @param valueProcesser
+	 */
+	public void setValueProcesser(ValueProcesser valueProcesser) {
+		if (valueProcesser != null) {
+			this.valueProcesser = valueProcesser;
+		}
+	}
+
+	/**
+	 * 属性与列的对应关系
+	 */
+	private static class Binding {
+		/**
+		 * 属性元数据
+		 */
+		final ExcelFieldMetadata field;
+
+		/**
+		 * 对应的列索引值，值为null时表示该属性保存行号
+		 */
+		final int[] columns;
+
+		Binding(ExcelFieldMetadata field, int[] columns) {
+			this.field = field;
+			this.columns = columns;
+		}
+
+		/**
+		 * 获取给定长度的行中该属性对应的列索引值，表头重复时取行长度范围内最后一个
+		 *
+		 * @param rowLength
+		 * @return 假如不存在，返回-1
+		 */
+		int column(int rowLength) {
+			for (int i = columns.length - 1; i >= 0; i--) {
+				if (columns[i] < rowLength) {
+					return columns[i];
+				}
+			}
+			return -1;
+		}
+	}
+}
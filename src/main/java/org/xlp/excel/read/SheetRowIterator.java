@@ -0,0 +1,161 @@
+package org.xlp.excel.read;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 逐行读取sheet页数据的迭代器，每次只读取一行，读取的数据不保存，用完后需调用{@link #close()}释放资源
+ * <p>
+ * 表头行不返回，空行按{@link BlankRowOptionType}处理，表头等信息可从{@link #getSheetData()}中获取
+ * </p>
+ *
+ * @author xlp
+ */
+public class SheetRowIterator implements Iterator<Object[]>, Closeable {
+	/**
+	 * 当前sheet页
+	 */
+	private final SheetData sheetData;
+
+	private final SheetRowReader rowReader;
+
+	/**
+	 * 迭代结束后需释放的资源
+	 */
+	private final Closeable resource;
+
+	/**
+	 * 下一行数据
+	 */
+	private Object[] nextRowData;
+
+	/**
+	 * 下一行行号
+	 */
+	private int nextRowNo;
+
+	/**
+	 * 当前行行号
+	 */
+	private int rowNo;
+
+	/**
+	 * 标记是否已读取完毕
+	 */
+	private boolean finished = false;
+
+	/**
+	 * @param sheetData
+	 * @param rowReader
+	 * @param hasTitle 表示sheet的第一行是否是表头栏， true表示是
+	 * @param resource 迭代结束后需释放的资源，可以为null
+	 */
+	SheetRowIterator(SheetData sheetData, SheetRowReader rowReader, boolean hasTitle, Closeable resource) {
+		this.sheetData = sheetData;
+		this.rowReader = rowReader;
+		this.resource = resource;
+		sheetData.setRowDataHandler(new RowDataHandler() {
+			@Override
+			public boolean handleRowData(SheetData sheetData, int rowNo, Object[] rowData) {
+				nextRowData = rowData;
+				nextRowNo = rowNo;
+				return true;
+			}
+		});
+		sheetData.startRead(hasTitle);
+	}
+
+	/**
+	 * @throws UncheckedIOException 假如读取数据失败，则抛出该异常
+	 */
+	@Override
+	public boolean hasNext() {
+		while (nextRowData == null && !finished) {
+			if (!sheetData.readNextRow(rowReader)) {
+				finished = true;
+			}
+		}
+		return nextRowData != null;
+	}
+
+	/**
+	 * @throws UncheckedIOException 假如读取数据失败，则抛出该异常
+	 */
+	@Override
+	public Object[] next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		Object[] rowData = nextRowData;
+		rowNo = nextRowNo;
+		nextRowData = null;
+		return rowData;
+	}
+
+	/**
+	 * 获取最近一次{@link #next()}返回行的行号，从1开始
+	 *
+	 * @return
+	 */
+	public int getRowNo() {
+		return rowNo;
+	}
+
+	/**
+	 * 把最近一次{@link #next()}返回的行转换成key-value形式
+	 *
+	 * @param rowData
+	 * @return
+	 */
+	public Map<String, Object> toRowMap(Object[] rowData) {
+		return sheetData.toRowMap(rowData, Integer.valueOf(rowNo));
+	}
+
+	/**
+	 * 获取当前sheet页，可从中获取表头、sheet名称、索引等信息
+	 *
+	 * @return
+	 */
+	public SheetData getSheetData() {
+		return sheetData;
+	}
+
+	/**
+	 * 转换成{@link Stream}，关闭流时释放资源
+	 *
+	 * @return
+	 */
+	public Stream<Object[]> stream() {
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this,
+				Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					close();
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+		});
+	}
+
+	@Override
+	public void close() throws IOException {
+		finished = true;
+		try {
+			rowReader.close();
+		} finally {
+			if (resource != null) {
+				resource.close();
+			}
+		}
+	}
+}
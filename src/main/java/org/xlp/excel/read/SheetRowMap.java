@@ -0,0 +1,264 @@
+package org.xlp.excel.read;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * sheet页中一行数据的key-value视图，key为表头，另外用sheetRowNo保存行号
+ * <p>
+ * 不复制行数据，而是通过同一sheet页共享的表头索引直接读取行数组中的值；
+ * 第一次修改时才复制成{@link HashMap}，之后的操作都在复制的map上进行
+ * </p>
+ *
+ * @author xlp
+ */
+class SheetRowMap extends AbstractMap<String, Object> {
+	/**
+	 * 保存行号的key
+	 */
+	static final String ROW_NO_KEY = "sheetRowNo";
+
+	/**
+	 * 同一sheet页共享的表头索引
+	 */
+	private final TitleIndex titleIndex;
+
+	/**
+	 * 行数据
+	 */
+	private final Object[] rowData;
+
+	/**
+	 * 行号，值为null时不保存行号
+	 */
+	private final Integer rowNo;
+
+	/**
+	 * 修改后复制的map
+	 */
+	private Map<String, Object> delegate;
+
+	/**
+	 * key-value对数量缓存，-1表示还未计算
+	 */
+	private int size = -1;
+
+	/**
+	 * @param titleIndex 表头索引
+	 * @param rowData 行数据
+	 * @param rowNo 行号，值为null时不保存行号
+	 */
+	SheetRowMap(TitleIndex titleIndex, Object[] rowData, Integer rowNo) {
+		this.titleIndex = titleIndex;
+		this.rowData = rowData;
+		this.rowNo = rowNo;
+	}
+
+	/**
+	 * 获取给定key对应的列索引值
+	 *
+	 * @param key
+	 * @return 假如该行没有该key，返回-1
+	 */
+	private int columnIndex(Object key) {
+		if (rowNo != null && ROW_NO_KEY.equals(key)) {
+			return -1;
+		}
+		return titleIndex.columnIndex(key, rowData.length);
+	}
+
+	@Override
+	public Object get(Object key) {
+		if (delegate != null) {
+			return delegate.get(key);
+		}
+		if (rowNo != null && ROW_NO_KEY.equals(key)) {
+			return rowNo;
+		}
+		int index = columnIndex(key);
+		return index < 0 ? null : rowData[index];
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		if (delegate != null) {
+			return delegate.containsKey(key);
+		}
+		return (rowNo != null && ROW_NO_KEY.equals(key)) || columnIndex(key) >= 0;
+	}
+
+	@Override
+	public int size() {
+		if (delegate != null) {
+			return delegate.size();
+		}
+		if (size < 0) {
+			int count = rowNo == null ? 0 : 1;
+			for (String title : titleIndex.titles) {
+				if (columnIndex(title) >= 0) {
+					count++;
+				}
+			}
+			size = count;
+		}
+		return size;
+	}
+
+	@Override
+	public Set<Entry<String, Object>> entrySet() {
+		if (delegate != null) {
+			return delegate.entrySet();
+		}
+		return new AbstractSet<Entry<String, Object>>() {
+			@Override
+			public Iterator<Entry<String, Object>> iterator() {
+				return new EntryIterator();
+			}
+
+			@Override
+			public int size() {
+				return SheetRowMap.this.size();
+			}
+		};
+	}
+
+	@Override
+	public Object put(String key, Object value) {
+		return materialize().put(key, value);
+	}
+
+	@Override
+	public Object remove(Object key) {
+		return materialize().remove(key);
+	}
+
+	@Override
+	public void clear() {
+		materialize().clear();
+	}
+
+	/**
+	 * 复制成可修改的map
+	 *
+	 * @return
+	 */
+	private Map<String, Object> materialize() {
+		if (delegate == null) {
+			delegate = new HashMap<String, Object>(this);
+		}
+		return delegate;
+	}
+
+	/**
+	 * key-value对迭代器，按表头顺序返回，最后返回行号
+	 */
+	private class EntryIterator implements Iterator<Entry<String, Object>> {
+		private int titlePos = 0;
+
+		private boolean rowNoReturned = rowNo == null;
+
+		private Entry<String, Object> next;
+
+		@Override
+		public boolean hasNext() {
+			if (next != null) {
+				return true;
+			}
+			String[] titles = titleIndex.titles;
+			while (titlePos < titles.length) {
+				String title = titles[titlePos++];
+				int index = columnIndex(title);
+				if (index >= 0) {
+					next = new SimpleImmutableEntry<String, Object>(title, rowData[index]);
+					return true;
+				}
+			}
+			if (!rowNoReturned) {
+				rowNoReturned = true;
+				next = new SimpleImmutableEntry<String, Object>(ROW_NO_KEY, rowNo);
+				return true;
+			}
+			return false;
+		}
+
+		@Override
+		public Entry<String, Object> next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			Entry<String, Object> entry = next;
+			next = null;
+			return entry;
+		}
+	}
+
+	/**
+	 * 表头到列索引值的映射，同一sheet页的所有行共享
+	 * <p>
+	 * 表头重复时，与依次put到map中的效果一致，取该行长度范围内最后一个同名列的值
+	 * </p>
+	 */
+	static class TitleIndex {
+		/**
+		 * 去重后的表头，按出现顺序保存
+		 */
+		private final String[] titles;
+
+		/**
+		 * 表头对应的列索引值，按从小到大保存
+		 */
+		private final Map<String, int[]> columnIndexes;
+
+		/**
+		 * @param sheetTitles sheet页表头
+		 */
+		TitleIndex(String[] sheetTitles) {
+			Map<String, List<Integer>> indexes = new LinkedHashMap<String, List<Integer>>();
+			for (int i = 0; i < sheetTitles.length; i++) {
+				List<Integer> list = indexes.get(sheetTitles[i]);
+				if (list == null) {
+					list = new ArrayList<Integer>(1);
+					indexes.put(sheetTitles[i], list);
+				}
+				list.add(Integer.valueOf(i));
+			}
+			titles = indexes.keySet().toArray(new String[0]);
+			columnIndexes = new HashMap<String, int[]>(indexes.size() * 4 / 3 + 1);
+			for (Entry<String, List<Integer>> entry : indexes.entrySet()) {
+				List<Integer> list = entry.getValue();
+				int[] array = new int[list.size()];
+				for (int i = 0; i < array.length; i++) {
+					array[i] = list.get(i).intValue();
+				}
+				columnIndexes.put(entry.getKey(), array);
+			}
+		}
+
+		/**
+		 * 获取给定表头在给定长度的行中的列索引值
+		 *
+		 * @param title
+		 * @param rowLength
+		 * @return 假如不存在，返回-1
+		 */
+		int columnIndex(Object title, int rowLength) {
+			int[] indexes = columnIndexes.get(title);
+			if (indexes != null) {
+				for (int i = indexes.length - 1; i >= 0; i--) {
+					if (indexes[i] < rowLength) {
+						return indexes[i];
+					}
+				}
+			}
+			return -1;
+		}
+	}
+}
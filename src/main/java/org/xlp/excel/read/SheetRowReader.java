@@ -0,0 +1,39 @@
+package org.xlp.excel.read;
+
+import java.io.Closeable;
+
+/**
+ * 逐行读取sheet页数据接口
+ * 
+ * @author xlp
+ */
+interface SheetRowReader extends Closeable {
+	/**
+	 * 读取下一行，sheet页中不存在的行也会依次返回，此时{@link #getRowData()}为null
+	 * 
+	 * @return 假如已没有更多行，返回false
+	 * @throws java.io.UncheckedIOException 假如读取数据失败，则抛出该异常
+	 */
+	boolean nextRow();
+	
+	/**
+	 * 当前行索引值，从0开始
+	 * 
+	 * @return
+	 */
+	int getRowIndex();
+	
+	/**
+	 * 当前行数据，第一次调用时才解析当前行的cell值
+	 * 
+	 * @return 值为null时表示该行不存在
+	 */
+	Object[] getRowData();
+	
+	/**
+	 * 设置之后读取的行只解析给定的列，行数据按给定顺序排列，不存在的列取""
+	 * 
+	 * @param columns 列索引值，值为null时解析所有列
+	 */
+	void setColumns(int[] columns);
+}
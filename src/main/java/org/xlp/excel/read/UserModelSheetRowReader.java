@@ -0,0 +1,189 @@
+package org.xlp.excel.read;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.xlp.excel.util.CellValueConverter;
+import org.xlp.excel.util.DateFormatCache;
+import org.xlp.excel.util.ExcelUtils;
+
+/**
+ * 从POI usermodel的{@link Sheet}中逐行读取数据
+ * 
+ * @author xlp
+ */
+class UserModelSheetRowReader implements SheetRowReader {
+	private final Sheet sheet;
+	
+	/**
+	 * 读取公式cell所用
+	 */
+	private FormulaEvaluator formulaEvaluator;
+	
+	/**
+	 * 公式cell的取值方式
+	 */
+	private final FormulaOptionType formulaOptionType;
+	
+	/**
+	 * 是否把公式计算结果写回cell
+	 */
+	private final boolean evaluateInCell;
+	
+	/**
+	 * 按列索引值排列的cell值转换器，可以为null
+	 */
+	private final CellValueConverter[] columnConverters;
+	
+	/**
+	 * 样式是否为日期格式的缓存
+	 */
+	private final DateFormatCache dateFormatCache = new DateFormatCache();
+	
+	private final int lastRowNo;
+	
+	/**
+	 * 当前行索引值，从0开始
+	 */
+	private int rowIndex = -1;
+	
+	/**
+	 * 当前行
+	 */
+	private Row row;
+	
+	/**
+	 * 当前行数据
+	 */
+	private Object[] rowData;
+	
+	/**
+	 * 标记当前行是否已解析
+	 */
+	private boolean rowDataRead;
+	
+	/**
+	 * 要解析的列索引值，值为null时解析所有列
+	 */
+	private int[] columns;
+
+	/**
+	 * @param sheet
+	 * @param formulaEvaluator 读取公式中的cell值，可以为null
+	 */
+	UserModelSheetRowReader(Sheet sheet, FormulaEvaluator formulaEvaluator) {
+		this(sheet, formulaEvaluator, true, null);
+	}
+
+	/**
+	 * @param sheet
+	 * @param formulaEvaluator 读取公式中的cell值，可以为null
+	 * @param evaluateInCell 是否把公式计算结果写回cell，值为false时只计算结果，不修改cell
+	 * @param columnConverters 按列索引值排列的cell值转换器，可以为null
+	 */
+	UserModelSheetRowReader(Sheet sheet, FormulaEvaluator formulaEvaluator, boolean evaluateInCell,
+			CellValueConverter[] columnConverters) {
+		this(sheet, formulaEvaluator, evaluateInCell, columnConverters, FormulaOptionType.EVALUATE);
+	}
+
+	/**
+	 * @param sheet
+	 * @param formulaEvaluator 读取公式中的cell值，可以为null，取值方式为{@link FormulaOptionType#LAZY}时需要才创建
+	 * @param evaluateInCell 是否把公式计算结果写回cell，{@link FormulaOptionType#EVALUATE}方式时为true；
+	 * 			{@link FormulaOptionType#LAZY}、{@link FormulaOptionType#CACHED}方式需保留公式及其缓存结果，为false
+	 * @param columnConverters 按列索引值排列的cell值转换器，可以为null
+	 * @param formulaOptionType 公式cell的取值方式
+	 */
+	UserModelSheetRowReader(Sheet sheet, FormulaEvaluator formulaEvaluator, boolean evaluateInCell,
+			CellValueConverter[] columnConverters, FormulaOptionType formulaOptionType) {
+		this.sheet = sheet;
+		this.formulaOptionType = formulaOptionType;
+		this.columnConverters = columnConverters;
+		this.formulaEvaluator = formulaEvaluator;
+		this.evaluateInCell = evaluateInCell;
+		this.lastRowNo = sheet.getLastRowNum();
+	}
+
+	@Override
+	public boolean nextRow() {
+		if (rowIndex >= lastRowNo) {
+			return false;
+		}
+		rowIndex++;
+		row = sheet.getRow(rowIndex);
+		rowData = null;
+		rowDataRead = false;
+		return true;
+	}
+	
+	/**
+	 * 读取行中每个cell的值
+	 * 
+	 * @param row
+	 * @return
+	 */
+	private Object[] readRow(Row row) {
+		if (columns != null) {
+			Object[] rowData = new Object[columns.length];
+			for (int i = 0; i < columns.length; i++) {
+				rowData[i] = readCell(row, columns[i]);
+			}
+			return rowData;
+		}
+		int cellnum = row.getLastCellNum();
+		Object[] rowData = new Object[cellnum < 0 ? 0 : cellnum];
+		for (int j = 0; j < cellnum; j++) {
+			rowData[j] = readCell(row, j);
+		}
+		return rowData;
+	}
+	
+	/**
+	 * 读取行中给定列的cell值
+	 * 
+	 * @param row
+	 * @param column 列索引值，小于0时返回""
+	 * @return
+	 */
+	private Object readCell(Row row, int column) {
+		Cell cell = column < 0 ? null : row.getCell(column);
+		CellValueConverter converter = columnConverters != null && column >= 0 
+				&& column < columnConverters.length ? columnConverters[column] : null;
+		if (cell != null && formulaOptionType != FormulaOptionType.EVALUATE 
+				&& cell.getCellType() == CellType.FORMULA) {
+			if (formulaOptionType == FormulaOptionType.CACHED || ExcelUtils.hasCachedFormulaValue(cell)) {
+				return ExcelUtils.getCachedFormulaValue(cell, dateFormatCache, converter);
+			}
+			if (formulaEvaluator == null) {
+				formulaEvaluator = sheet.getWorkbook().getCreationHelper().createFormulaEvaluator();
+			}
+			return ExcelUtils.getCellValue(cell, formulaEvaluator, false, dateFormatCache, converter);
+		}
+		return ExcelUtils.getCellValue(cell, formulaEvaluator, evaluateInCell, dateFormatCache, converter);
+	}
+
+	@Override
+	public int getRowIndex() {
+		return rowIndex;
+	}
+
+	@Override
+	public Object[] getRowData() {
+		if (!rowDataRead) {
+			rowData = row == null ? null : readRow(row);
+			rowDataRead = true;
+		}
+		return rowData;
+	}
+
+	@Override
+	public void setColumns(int[] columns) {
+		this.columns = columns;
+	}
+
+	@Override
+	public void close() {
+	}
+}
@@ -0,0 +1,455 @@
+package org.xlp.excel.read;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.util.StaxHelper;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xlp.excel.util.CellValueConverter;
+import org.xlp.utils.XLPStringUtil;
+import org.xlp.utils.io.XLPIOUtil;
+
+/**
+ * 以StAX方式逐行解析xlsx中sheet页的xml数据，不创建POI的usermodel对象，
+ * 每次只在内存中保存一行数据
+ * <p>
+ * cell值的类型与{@link org.xlp.excel.util.ExcelUtils#getCellValue}保持一致，公式cell取其缓存的计算结果
+ * </p>
+ *
+ * @author xlp
+ */
+class XLSXSheetRowReader implements SheetRowReader {
+	private final InputStream inputStream;
+
+	private final XMLStreamReader reader;
+
+	/**
+	 * 共享字符串表
+	 */
+	private final SharedStrings sharedStrings;
+
+	/**
+	 * 样式表
+	 */
+	private final StylesTable stylesTable;
+
+	/**
+	 * 标记是否使用1904日期系统
+	 */
+	private final boolean date1904;
+
+	/**
+	 * 按列索引值排列的cell值转换器，可以为null
+	 */
+	private final CellValueConverter[] columnConverters;
+
+	/**
+	 * 缓存样式索引对应的格式是否为日期格式，0：未判断，1：是，2：否
+	 */
+	private byte[] dateStyleCache = new byte[32];
+
+	/**
+	 * 当前行cell值缓存，解析每行时复用
+	 */
+	private final List<Object> cellValues = new ArrayList<Object>();
+
+	/**
+	 * 当前行索引值，从0开始
+	 */
+	private int rowIndex = -1;
+
+	/**
+	 * 当前行数据，值为null时表示该行不存在
+	 */
+	private Object[] rowData;
+
+	/**
+	 * 标记当前行是否已解析
+	 */
+	private boolean rowDataRead;
+
+	/**
+	 * 已找到但还未返回的row元素的行索引值，-1表示没有；xml解析器停在该元素的开始位置
+	 */
+	private int pendingRowIndex = -1;
+
+	/**
+	 * 要解析的列索引值，值为null时解析所有列
+	 */
+	private int[] columns;
+
+	/**
+	 * 列索引值对应在行数据中的位置，-1表示不解析该列
+	 */
+	private int[] columnPositions;
+
+	/**
+	 * @param inputStream sheet页xml数据输入流
+	 * @param sharedStrings 共享字符串表
+	 * @param stylesTable 样式表，可以为null
+	 * @param date1904 是否使用1904日期系统
+	 * @throws IOException 假如创建xml解析器失败，则抛出该异常
+	 */
+	XLSXSheetRowReader(InputStream inputStream, SharedStrings sharedStrings,
+			StylesTable stylesTable, boolean date1904) throws IOException {
+		this(inputStream, sharedStrings, stylesTable, date1904, null);
+	}
+
+	/**
+	 * @param inputStream sheet页xml数据输入流
+	 * @param sharedStrings 共享字符串表
+	 * @param stylesTable 样式表，可以为null
+	 * @param date1904 是否使用1904日期系统
+	 * @param columnConverters 按列索引值排列的cell值转换器，可以为null
+	 * @throws IOException 假如创建xml解析器失败，则抛出该异常
+	 */
+	XLSXSheetRowReader(InputStream inputStream, SharedStrings sharedStrings,
+			StylesTable stylesTable, boolean date1904, CellValueConverter[] columnConverters) throws IOException {
+		this.inputStream = inputStream;
+		this.columnConverters = columnConverters;
+		this.sharedStrings = sharedStrings;
+		this.stylesTable = stylesTable;
+		this.date1904 = date1904;
+		try {
+			this.reader = StaxHelper.newXMLInputFactory().createXMLStreamReader(inputStream);
+		} catch (XMLStreamException e) {
+			throw new IOException(e);
+		}
+	}
+
+	@Override
+	public boolean nextRow() {
+		if (pendingRowIndex < 0 && !findRow()) {
+			return false;
+		}
+		rowIndex++;
+		if (rowIndex < pendingRowIndex) {
+			rowData = null;
+			rowDataRead = true;
+		} else {
+			rowIndex = pendingRowIndex;
+			pendingRowIndex = -1;
+			rowData = null;
+			rowDataRead = false;
+		}
+		return true;
+	}
+
+	@Override
+	public int getRowIndex() {
+		return rowIndex;
+	}
+
+	/**
+	 * @throws UncheckedIOException 假如解析xml失败，则抛出该异常
+	 */
+	@Override
+	public Object[] getRowData() {
+		if (!rowDataRead) {
+			rowDataRead = true;
+			try {
+				rowData = readCells();
+			} catch (XMLStreamException e) {
+				throw new UncheckedIOException(new IOException(e));
+			}
+		}
+		return rowData;
+	}
+
+	@Override
+	public void setColumns(int[] columns) {
+		this.columns = columns;
+		this.columnPositions = null;
+		if (columns != null) {
+			int max = -1;
+			for (int column : columns) {
+				max = Math.max(max, column);
+			}
+			columnPositions = new int[max + 1];
+			Arrays.fill(columnPositions, -1);
+			for (int i = columns.length - 1; i >= 0; i--) {
+				if (columns[i] >= 0) {
+					columnPositions[columns[i]] = i;
+				}
+			}
+		}
+	}
+
+	/**
+	 * 查找下一个row元素，不解析其中的cell，当前行未解析的cell直接跳过
+	 *
+	 * @return 假如已没有row元素，返回false
+	 * @throws UncheckedIOException 假如解析xml失败，则抛出该异常
+	 */
+	private boolean findRow() {
+		try {
+			while (reader.hasNext()) {
+				if (reader.next() == XMLStreamConstants.START_ELEMENT
+						&& "row".equals(reader.getLocalName())) {
+					String r = reader.getAttributeValue(null, "r");
+					pendingRowIndex = r == null ? rowIndex + 1 : Integer.parseInt(r) - 1;
+					return true;
+				}
+			}
+			return false;
+		} catch (XMLStreamException e) {
+			throw new UncheckedIOException(new IOException(e));
+		}
+	}
+
+	/**
+	 * 读取当前row元素中cell的值，设置了要解析的列时，其他列的cell直接跳过
+	 *
+	 * @return
+	 * @throws XMLStreamException
+	 */
+	private Object[] readCells() throws XMLStreamException {
+		Object[] selected = null;
+		if (columns != null) {
+			selected = new Object[columns.length];
+			Arrays.fill(selected, XLPStringUtil.EMPTY);
+		} else {
+			cellValues.clear();
+		}
+		int colIndex = -1;
+		while (reader.hasNext()) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT && "c".equals(reader.getLocalName())) {
+				String ref = reader.getAttributeValue(null, "r");
+				colIndex = ref == null ? colIndex + 1 : columnIndex(ref);
+				if (selected != null) {
+					int position = colIndex < columnPositions.length ? columnPositions[colIndex] : -1;
+					if (position < 0) {
+						skipElement();
+					} else {
+						selected[position] = readCell(colIndex);
+					}
+					continue;
+				}
+				Object value = readCell(colIndex);
+				while (cellValues.size() < colIndex) {
+					cellValues.add(XLPStringUtil.EMPTY);
+				}
+				if (colIndex < cellValues.size()) {
+					cellValues.set(colIndex, value);
+				} else {
+					cellValues.add(value);
+				}
+			} else if (event == XMLStreamConstants.END_ELEMENT && "row".equals(reader.getLocalName())) {
+				break;
+			}
+		}
+		if (selected == null) {
+			return cellValues.toArray();
+		}
+		// 重复选择的列
+		for (int i = 0; i < columns.length; i++) {
+			int position = columns[i] < 0 ? -1 : columnPositions[columns[i]];
+			if (position >= 0 && position != i) {
+				selected[i] = selected[position];
+			}
+		}
+		return selected;
+	}
+
+	/**
+	 * 读取当前c元素的值
+	 *
+	 * @param colIndex 列索引值
+	 * @return
+	 * @throws XMLStreamException
+	 */
+	private Object readCell(int colIndex) throws XMLStreamException {
+		String type = reader.getAttributeValue(null, "t");
+		String style = reader.getAttributeValue(null, "s");
+		String value = null;
+		while (reader.hasNext()) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				String name = reader.getLocalName();
+				if ("v".equals(name)) {
+					value = reader.getElementText();
+				} else if ("is".equals(name)) {
+					value = readInlineString();
+				} else {
+					skipElement();
+				}
+			} else if (event == XMLStreamConstants.END_ELEMENT && "c".equals(reader.getLocalName())) {
+				break;
+			}
+		}
+		CellValueConverter converter = columnConverters != null && colIndex < columnConverters.length
+				? columnConverters[colIndex] : null;
+		return decodeValue(type, style, value, converter);
+	}
+
+	/**
+	 * 读取is元素中的文本，忽略拼音（rPh）部分
+	 *
+	 * @return
+	 * @throws XMLStreamException
+	 */
+	private String readInlineString() throws XMLStreamException {
+		StringBuilder sb = new StringBuilder();
+		while (reader.hasNext()) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				String name = reader.getLocalName();
+				if ("t".equals(name)) {
+					sb.append(reader.getElementText());
+				} else if ("rPh".equals(name)) {
+					skipElement();
+				}
+			} else if (event == XMLStreamConstants.END_ELEMENT && "is".equals(reader.getLocalName())) {
+				break;
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * 跳过当前元素及其子元素
+	 *
+	 * @throws XMLStreamException
+	 */
+	private void skipElement() throws XMLStreamException {
+		int depth = 1;
+		while (depth > 0 && reader.hasNext()) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				depth++;
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				depth--;
+			}
+		}
+	}
+
+	/**
+	 * 把cell的原始值转换成对应类型的值
+	 *
+	 * @param type cell类型
+	 * @param style 样式索引
+	 * @param value 原始值
+	 * @param converter cell值转换器，值为null或不能转换时按默认方式转换
+	 * @return
+	 */
+	private Object decodeValue(String type, String style, String value, CellValueConverter converter) {
+		if (value == null) {
+			return XLPStringUtil.EMPTY;
+		}
+		if (type == null || "n".equals(type)) {
+			if (value.isEmpty()) {
+				return XLPStringUtil.EMPTY;
+			}
+			double d = Double.parseDouble(value);
+			if (converter != null) {
+				try {
+					return converter.convertNumeric(d, date1904);
+				} catch (IllegalArgumentException e) {
+					// 不能转换时按默认方式转换
+				}
+			}
+			if (isDateStyle(style) && DateUtil.isValidExcelDate(d)) {
+				return DateUtil.getJavaDate(d, date1904);
+			}
+			return d;
+		}
+		String text;
+		switch (type) {
+			case "s": // 共享字符串
+				text = sharedStrings.getItemAt(Integer.parseInt(value.trim())).getString();
+				break;
+			case "b": // Boolean
+				return "1".equals(value) || "true".equalsIgnoreCase(value);
+			case "e": // 故障
+				try {
+					return FormulaError.forString(value).getCode();
+				} catch (IllegalArgumentException e) {
+					return value;
+				}
+			case "str": // 公式字符串结果
+			case "inlineStr":
+			default:
+				text = value;
+		}
+		if (converter != null) {
+			try {
+				return converter.convertString(text);
+			} catch (IllegalArgumentException e) {
+				// 不能转换时按默认方式转换
+			}
+		}
+		return text;
+	}
+
+	/**
+	 * 判断给定样式是否为日期格式，结果按样式缓存
+	 *
+	 * @param style
+	 * @return
+	 */
+	private boolean isDateStyle(String style) {
+		if (stylesTable == null) {
+			return false;
+		}
+		int styleIndex = style == null ? 0 : Integer.parseInt(style);
+		if (styleIndex >= dateStyleCache.length) {
+			dateStyleCache = Arrays.copyOf(dateStyleCache, Math.max(styleIndex + 1, dateStyleCache.length * 2));
+		}
+		byte isDate = dateStyleCache[styleIndex];
+		if (isDate == 0) {
+			XSSFCellStyle cellStyle = styleIndex < stylesTable.getNumCellStyles()
+					? stylesTable.getStyleAt(styleIndex) : null;
+			isDate = cellStyle != null
+					&& DateUtil.isADateFormat(cellStyle.getDataFormat(), cellStyle.getDataFormatString())
+					? (byte) 1 : (byte) 2;
+			dateStyleCache[styleIndex] = isDate;
+		}
+		return isDate == 1;
+	}
+
+	/**
+	 * 根据cell引用（如：AB12）获取列索引值，从0开始
+	 *
+	 * @param ref
+	 * @return
+	 */
+	static int columnIndex(String ref) {
+		int col = 0;
+		int len = ref.length();
+		for (int i = 0; i < len; i++) {
+			char c = ref.charAt(i);
+			if (c >= 'A' && c <= 'Z') {
+				col = col * 26 + (c - 'A' + 1);
+			} else if (c >= 'a' && c <= 'z') {
+				col = col * 26 + (c - 'a' + 1);
+			} else {
+				break;
+			}
+		}
+		return col - 1;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			reader.close();
+		} catch (XMLStreamException e) {
+			throw new IOException(e);
+		} finally {
+			XLPIOUtil.closeInputStream(inputStream);
+		}
+	}
+}
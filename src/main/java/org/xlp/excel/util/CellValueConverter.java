@@ -0,0 +1,32 @@
+package org.xlp.excel.util;
+
+/**
+ * 把cell的原始值直接转换成列声明类型的值，读取数字cell时不先包装成{@link Double}
+ * <p>
+ * 不能转换时抛出{@link IllegalArgumentException}，读取时改用默认方式获取cell值，
+ * 所以表头行等不符合声明类型的cell仍按原值读取
+ * </p>
+ *
+ * @author xlp
+ * @see CellValueConverters
+ */
+public interface CellValueConverter {
+	/**
+	 * 转换数字cell（包括日期格式和公式计算结果为数字的cell）的值
+	 *
+	 * @param value cell中的数字
+	 * @param date1904 是否使用1904日期系统
+	 * @return
+	 * @throws IllegalArgumentException 假如不能转换，则抛出该异常
+	 */
+	Object convertNumeric(double value, boolean date1904);
+
+	/**
+	 * 转换字符串cell的值
+	 *
+	 * @param value cell中的字符串
+	 * @return
+	 * @throws IllegalArgumentException 假如不能转换，则抛出该异常
+	 */
+	Object convertString(String value);
+}
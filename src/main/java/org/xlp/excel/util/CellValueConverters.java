@@ -0,0 +1,250 @@
+package org.xlp.excel.util;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.NumberToTextConverter;
+
+/**
+ * 常用类型的{@link CellValueConverter}
+ *
+ * @author xlp
+ */
+public final class CellValueConverters {
+	/**
+	 * 转换成Integer，数字必须是int范围内的整数
+	 */
+	public static final CellValueConverter INTEGER = new CellValueConverter() {
+		@Override
+		public Object convertNumeric(double value, boolean date1904) {
+			int i = (int) value;
+			if (i != value) {
+				throw new IllegalArgumentException(value + "不是int类型的整数！");
+			}
+			return Integer.valueOf(i);
+		}
+
+		@Override
+		public Object convertString(String value) {
+			return Integer.valueOf(value.trim());
+		}
+	};
+
+	/**
+	 * 转换成Long，数字必须是long范围内的整数
+	 */
+	public static final CellValueConverter LONG = new CellValueConverter() {
+		@Override
+		public Object convertNumeric(double value, boolean date1904) {
+			// 2的63次方转换后为Long.MAX_VALUE，再与double比较时又变回2的63次方，需单独判断范围
+			if (value >= 0x1p63 || value < -0x1p63) {
+				throw new IllegalArgumentException(value + "不是long类型的整数！");
+			}
+			long l = (long) value;
+			if (l != value) {
+				throw new IllegalArgumentException(value + "不是long类型的整数！");
+			}
+			return Long.valueOf(l);
+		}
+
+		@Override
+		public Object convertString(String value) {
+			return Long.valueOf(value.trim());
+		}
+	};
+
+	/**
+	 * 转换成Double
+	 */
+	public static final CellValueConverter DOUBLE = new CellValueConverter() {
+		@Override
+		public Object convertNumeric(double value, boolean date1904) {
+			return Double.valueOf(value);
+		}
+
+		@Override
+		public Object convertString(String value) {
+			return Double.valueOf(value.trim());
+		}
+	};
+
+	/**
+	 * 转换成BigDecimal，数字按excel显示的精度（最多15位有效数字）转换
+	 */
+	public static final CellValueConverter BIG_DECIMAL = new CellValueConverter() {
+		@Override
+		public Object convertNumeric(double value, boolean date1904) {
+			return new BigDecimal(NumberToTextConverter.toText(value));
+		}
+
+		@Override
+		public Object convertString(String value) {
+			return new BigDecimal(value.trim());
+		}
+	};
+
+	/**
+	 * 转换成String，数字按excel显示的形式转换，如：12而不是12.0
+	 */
+	public static final CellValueConverter STRING = new CellValueConverter() {
+		@Override
+		public Object convertNumeric(double value, boolean date1904) {
+			return NumberToTextConverter.toText(value);
+		}
+
+		@Override
+		public Object convertString(String value) {
+			return value;
+		}
+	};
+
+	/**
+	 * 转换成LocalDate，字符串须为yyyy-MM-dd格式
+	 */
+	public static final CellValueConverter LOCAL_DATE = new CellValueConverter() {
+		@Override
+		public Object convertNumeric(double value, boolean date1904) {
+			return toLocalDateTime(value, date1904).toLocalDate();
+		}
+
+		@Override
+		public Object convertString(String value) {
+			try {
+				return LocalDate.parse(value.trim());
+			} catch (DateTimeParseException e) {
+				throw new IllegalArgumentException(e);
+			}
+		}
+	};
+
+	/**
+	 * 转换成LocalDateTime，字符串须为yyyy-MM-ddTHH:mm:ss格式
+	 */
+	public static final CellValueConverter LOCAL_DATE_TIME = new CellValueConverter() {
+		@Override
+		public Object convertNumeric(double value, boolean date1904) {
+			return toLocalDateTime(value, date1904);
+		}
+
+		@Override
+		public Object convertString(String value) {
+			try {
+				return LocalDateTime.parse(value.trim());
+			} catch (DateTimeParseException e) {
+				throw new IllegalArgumentException(e);
+			}
+		}
+	};
+
+	/**
+	 * 转换成Date，只转换数字cell
+	 */
+	public static final CellValueConverter DATE = new CellValueConverter() {
+		@Override
+		public Object convertNumeric(double value, boolean date1904) {
+			if (!DateUtil.isValidExcelDate(value)) {
+				throw new IllegalArgumentException(value + "不是有效的excel日期！");
+			}
+			return DateUtil.getJavaDate(value, date1904);
+		}
+
+		@Override
+		public Object convertString(String value) {
+			throw new IllegalArgumentException("字符串不能转换成日期！");
+		}
+	};
+
+	private CellValueConverters() {
+	}
+
+	/**
+	 * 获取给定类型对应的转换器，基本类型按其包装类型处理
+	 *
+	 * @param type
+	 * @return
+	 * @throws NullPointerException 假如参数为null，则抛出该异常
+	 * @throws IllegalArgumentException 假如不支持给定类型，则抛出该异常
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public static CellValueConverter forType(Class<?> type) {
+		if (type == null) {
+			throw new NullPointerException("type param is null!");
+		}
+		if (type == Integer.class || type == int.class) {
+			return INTEGER;
+		}
+		if (type == Long.class || type == long.class) {
+			return LONG;
+		}
+		if (type == Double.class || type == double.class) {
+			return DOUBLE;
+		}
+		if (type == BigDecimal.class) {
+			return BIG_DECIMAL;
+		}
+		if (type == String.class) {
+			return STRING;
+		}
+		if (type == LocalDate.class) {
+			return LOCAL_DATE;
+		}
+		if (type == LocalDateTime.class) {
+			return LOCAL_DATE_TIME;
+		}
+		if (type == Date.class) {
+			return DATE;
+		}
+		if (type.isEnum()) {
+			return new EnumConverter(type);
+		}
+		throw new IllegalArgumentException("不支持的cell值类型：" + type.getName());
+	}
+
+	/**
+	 * 把excel日期数字转换成LocalDateTime
+	 *
+	 * @param value
+	 * @param date1904
+	 * @return
+	 * @throws IllegalArgumentException 假如不是有效的excel日期，则抛出该异常
+	 */
+	private static LocalDateTime toLocalDateTime(double value, boolean date1904) {
+		LocalDateTime dateTime = DateUtil.getLocalDateTime(value, date1904);
+		if (dateTime == null) {
+			throw new IllegalArgumentException(value + "不是有效的excel日期！");
+		}
+		return dateTime;
+	}
+
+	/**
+	 * 转换成枚举值，字符串按名称转换，数字按序号转换
+	 */
+	private static class EnumConverter<E extends Enum<E>> implements CellValueConverter {
+		private final Class<E> enumClass;
+
+		private final E[] constants;
+
+		EnumConverter(Class<E> enumClass) {
+			this.enumClass = enumClass;
+			this.constants = enumClass.getEnumConstants();
+		}
+
+		@Override
+		public Object convertNumeric(double value, boolean date1904) {
+			int ordinal = (int) value;
+			if (ordinal != value || ordinal < 0 || ordinal >= constants.length) {
+				throw new IllegalArgumentException(value + "不是" + enumClass.getName() + "的序号！");
+			}
+			return constants[ordinal];
+		}
+
+		@Override
+		public Object convertString(String value) {
+			return Enum.valueOf(enumClass, value.trim());
+		}
+	}
+}
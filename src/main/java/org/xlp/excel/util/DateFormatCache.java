@@ -0,0 +1,49 @@
+package org.xlp.excel.util;
+
+import java.util.Arrays;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DateUtil;
+
+/**
+ * 按样式索引缓存样式的数据格式是否为日期格式，避免每个数字cell都解析一次格式字符串
+ * <p>
+ * 只能用于同一个workbook的样式，非线程安全，每个读取线程各用一个
+ * </p>
+ *
+ * @author xlp
+ */
+public class DateFormatCache {
+	private static final byte UNKNOWN = 0;
+
+	private static final byte DATE = 1;
+
+	private static final byte NOT_DATE = 2;
+
+	/**
+	 * 样式索引对应的判断结果
+	 */
+	private byte[] states = new byte[32];
+
+	/**
+	 * 判断给定样式的数据格式是否为日期格式
+	 *
+	 * @param style
+	 * @return
+	 */
+	public boolean isDateFormat(CellStyle style) {
+		if (style == null) {
+			return false;
+		}
+		int index = style.getIndex() & 0xFFFF;
+		if (index >= states.length) {
+			states = Arrays.copyOf(states, Math.max(index + 1, states.length * 2));
+		}
+		byte state = states[index];
+		if (state == UNKNOWN) {
+			state = DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString()) ? DATE : NOT_DATE;
+			states[index] = state;
+		}
+		return state == DATE;
+	}
+}
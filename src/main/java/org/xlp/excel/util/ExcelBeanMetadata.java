@@ -0,0 +1,279 @@
+package org.xlp.excel.util;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.xlp.excel.annotation.ExcelField;
+import org.xlp.utils.XLPStringUtil;
+
+/**
+ * Javabean与excel列对应关系的元数据，按类缓存，每个类只反射解析一次，线程安全；
+ * 缓存不阻止类及其类加载器被回收
+ * <p>
+ * 启用注解时只包含有{@link ExcelField}注解的字段，注解name为空时列名称取字段名称；
+ * 不启用注解时包含所有有get或set方法的属性，列名称取属性名称。
+ * 属性按字段声明顺序排列（父类字段在前），没有对应字段的属性按名称排在最后
+ * </p>
+ *
+ * @author xlp
+ */
+public class ExcelBeanMetadata {
+	/**
+	 * 启用注解时的元数据缓存
+	 */
+	private static final ClassValue<ExcelBeanMetadata> ANNOTATION_CACHE = new ClassValue<ExcelBeanMetadata>() {
+		@Override
+		protected ExcelBeanMetadata computeValue(Class<?> type) {
+			return new ExcelBeanMetadata(type, true);
+		}
+	};
+
+	/**
+	 * 不启用注解时的元数据缓存
+	 */
+	private static final ClassValue<ExcelBeanMetadata> PROPERTY_CACHE = new ClassValue<ExcelBeanMetadata>() {
+		@Override
+		protected ExcelBeanMetadata computeValue(Class<?> type) {
+			return new ExcelBeanMetadata(type, false);
+		}
+	};
+
+	private final Class<?> beanClass;
+
+	/**
+	 * 无参构造函数，类型为()Object，值为null时表示不能创建对象
+	 */
+	private final MethodHandle constructor;
+
+	/**
+	 * 按顺序排列的属性元数据
+	 */
+	private final List<ExcelFieldMetadata> fields;
+
+	/**
+	 * 属性名称对应的元数据
+	 */
+	private final Map<String, ExcelFieldMetadata> propertyFields;
+
+	/**
+	 * 获取给定类的元数据，默认启用注解
+	 *
+	 * @param beanClass
+	 * @return
+	 * @throws NullPointerException 假如参数为null，则抛出该异常
+	 * @throws IllegalArgumentException 假如解析类信息失败，则抛出该异常
+	 */
+	public static ExcelBeanMetadata getMetadata(Class<?> beanClass) {
+		return getMetadata(beanClass, true);
+	}
+
+	/**
+	 * 获取给定类的元数据
+	 *
+	 * @param beanClass
+	 * @param isUsedAnnotation 是否启用ExcelField注解，true是，false不启用
+	 * @return
+	 * @throws NullPointerException 假如参数为null，则抛出该异常
+	 * @throws IllegalArgumentException 假如解析类信息失败，则抛出该异常
+	 */
+	public static ExcelBeanMetadata getMetadata(Class<?> beanClass, boolean isUsedAnnotation) {
+		if (beanClass == null) {
+			throw new NullPointerException("beanClass param is null!");
+		}
+		return isUsedAnnotation ? ANNOTATION_CACHE.get(beanClass) : PROPERTY_CACHE.get(beanClass);
+	}
+
+	private ExcelBeanMetadata(Class<?> beanClass, boolean isUsedAnnotation) {
+		this.beanClass = beanClass;
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		constructor = findConstructor(lookup, beanClass);
+
+		// 字段按声明顺序编号，父类字段在前
+		List<Class<?>> classes = new ArrayList<Class<?>>();
+		for (Class<?> cs = beanClass; cs != null && cs != Object.class; cs = cs.getSuperclass()) {
+			classes.add(0, cs);
+		}
+		final Map<String, Integer> fieldOrders = new HashMap<String, Integer>();
+		Map<String, Field> declaredFields = new HashMap<String, Field>();
+		for (Class<?> cs : classes) {
+			for (Field field : cs.getDeclaredFields()) {
+				if (!fieldOrders.containsKey(field.getName())) {
+					fieldOrders.put(field.getName(), Integer.valueOf(fieldOrders.size()));
+				}
+				// 子类字段覆盖父类同名字段
+				declaredFields.put(field.getName(), field);
+			}
+		}
+
+		PropertyDescriptor[] pds;
+		try {
+			pds = Introspector.getBeanInfo(beanClass, Object.class).getPropertyDescriptors();
+		} catch (IntrospectionException e) {
+			throw new IllegalArgumentException(e);
+		}
+		Arrays.sort(pds, new Comparator<PropertyDescriptor>() {
+			@Override
+			public int compare(PropertyDescriptor o1, PropertyDescriptor o2) {
+				Integer order1 = fieldOrders.get(o1.getName());
+				Integer order2 = fieldOrders.get(o2.getName());
+				if (order1 != null && order2 != null) {
+					return order1.compareTo(order2);
+				}
+				if (order1 != null || order2 != null) {
+					return order1 != null ? -1 : 1;
+				}
+				return o1.getName().compareTo(o2.getName());
+			}
+		});
+
+		List<ExcelFieldMetadata> fieldList = new ArrayList<ExcelFieldMetadata>(pds.length);
+		Map<String, ExcelFieldMetadata> fieldMap = new LinkedHashMap<String, ExcelFieldMetadata>();
+		for (PropertyDescriptor pd : pds) {
+			String propertyName = pd.getName();
+			String columnName = columnName(declaredFields.get(propertyName), propertyName, isUsedAnnotation);
+			if (columnName == null) {
+				continue;
+			}
+			Class<?> type = pd.getPropertyType();
+			if (type == null) {
+				// 只有索引set或get方法的属性
+				continue;
+			}
+			MethodHandle getter = unreflect(lookup, pd.getReadMethod(),
+					MethodType.methodType(Object.class, Object.class));
+			MethodHandle setter = unreflect(lookup, pd.getWriteMethod(),
+					MethodType.methodType(void.class, Object.class, Object.class));
+			if (getter == null && setter == null) {
+				continue;
+			}
+			ExcelFieldMetadata field = new ExcelFieldMetadata(propertyName, columnName, fieldList.size(),
+					type, MethodType.methodType(type).wrap().returnType(), getter, setter);
+			fieldList.add(field);
+			fieldMap.put(propertyName, field);
+		}
+		fields = Collections.unmodifiableList(fieldList);
+		propertyFields = fieldMap;
+	}
+
+	/**
+	 * 获取属性对应的列名称
+	 *
+	 * @param field 属性对应的字段，可以为null
+	 * @param propertyName
+	 * @param isUsedAnnotation
+	 * @return 假如该属性不与excel列对应，返回null
+	 */
+	private static String columnName(Field field, String propertyName, boolean isUsedAnnotation) {
+		if (!isUsedAnnotation) {
+			return propertyName;
+		}
+		ExcelField excelField = field == null ? null : field.getAnnotation(ExcelField.class);
+		if (excelField == null) {
+			return null;
+		}
+		String fieldName = XLPStringUtil.emptyTrim(excelField.name());
+		return XLPStringUtil.isEmpty(fieldName) ? propertyName : fieldName;
+	}
+
+	/**
+	 * 获取无参构造函数
+	 *
+	 * @param lookup
+	 * @param beanClass
+	 * @return 假如没有可访问的无参构造函数，返回null
+	 */
+	private static MethodHandle findConstructor(MethodHandles.Lookup lookup, Class<?> beanClass) {
+		try {
+			Constructor<?> constructor = beanClass.getDeclaredConstructor();
+			constructor.setAccessible(true);
+			return lookup.unreflectConstructor(constructor).asType(MethodType.methodType(Object.class));
+		} catch (NoSuchMethodException e) {
+			return null;
+		} catch (IllegalAccessException e) {
+			return null;
+		} catch (SecurityException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * 把方法转换成给定类型的{@link MethodHandle}
+	 *
+	 * @param lookup
+	 * @param method 可以为null
+	 * @param type
+	 * @return 假如方法为null或不可访问，返回null
+	 */
+	private static MethodHandle unreflect(MethodHandles.Lookup lookup, Method method, MethodType type) {
+		if (method == null) {
+			return null;
+		}
+		try {
+			method.setAccessible(true);
+			return lookup.unreflect(method).asType(type);
+		} catch (IllegalAccessException e) {
+			return null;
+		} catch (SecurityException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * 创建bean对象
+	 *
+	 * @return
+	 * @throws IllegalArgumentException 假如没有可访问的无参构造函数或创建失败，则抛出该异常
+	 */
+	public Object newInstance() {
+		if (constructor == null) {
+			throw new IllegalArgumentException(beanClass.getName() + "没有可访问的无参构造函数！");
+		}
+		try {
+			return constructor.invokeExact();
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IllegalArgumentException("创建" + beanClass.getName() + "对象失败！", e);
+		}
+	}
+
+	/**
+	 * 获取按顺序排列的属性元数据，不可修改
+	 *
+	 * @return
+	 */
+	public List<ExcelFieldMetadata> getFields() {
+		return fields;
+	}
+
+	/**
+	 * 获取给定属性的元数据
+	 *
+	 * @param propertyName
+	 * @return 假如该属性不与excel列对应，返回null
+	 */
+	public ExcelFieldMetadata getField(String propertyName) {
+		return propertyFields.get(propertyName);
+	}
+
+	public Class<?> getBeanClass() {
+		return beanClass;
+	}
+}
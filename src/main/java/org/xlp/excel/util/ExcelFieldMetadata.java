@@ -0,0 +1,143 @@
+package org.xlp.excel.util;
+
+import java.lang.invoke.MethodHandle;
+
+/**
+ * Javabean中一个与excel列对应的属性的元数据，由{@link ExcelBeanMetadata}创建并缓存
+ *
+ * @author xlp
+ */
+public class ExcelFieldMetadata {
+	/**
+	 * 属性名称
+	 */
+	private final String propertyName;
+
+	/**
+	 * 对应的excel列名称（表头）
+	 */
+	private final String columnName;
+
+	/**
+	 * 在bean中的顺序，从0开始
+	 */
+	private final int order;
+
+	/**
+	 * 属性类型
+	 */
+	private final Class<?> type;
+
+	/**
+	 * 属性类型，基本类型时为其包装类型，用于值转换
+	 */
+	private final Class<?> valueType;
+
+	/**
+	 * get方法，类型为(Object)Object，值为null时表示不可读
+	 */
+	private final MethodHandle getter;
+
+	/**
+	 * set方法，类型为(Object, Object)void，值为null时表示不可写
+	 */
+	private final MethodHandle setter;
+
+	ExcelFieldMetadata(String propertyName, String columnName, int order, Class<?> type,
+			Class<?> valueType, MethodHandle getter, MethodHandle setter) {
+		this.propertyName = propertyName;
+		this.columnName = columnName;
+		this.order = order;
+		this.type = type;
+		this.valueType = valueType;
+		this.getter = getter;
+		this.setter = setter;
+	}
+
+	/**
+	 * 获取给定bean中该属性的值
+	 *
+	 * @param bean
+	 * @return
+	 * @throws IllegalStateException 假如该属性不可读，则抛出该异常
+	 * @throws IllegalArgumentException 假如调用get方法失败，则抛出该异常
+	 */
+	public Object getValue(Object bean) {
+		if (getter == null) {
+			throw new IllegalStateException(propertyName + "属性没有可访问的get方法！");
+		}
+		try {
+			return getter.invokeExact(bean);
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IllegalArgumentException("获取" + propertyName + "属性值失败！", e);
+		}
+	}
+
+	/**
+	 * 设置给定bean中该属性的值，属性为基本类型且值为null时不设置
+	 *
+	 * @param bean
+	 * @param value 已转换成属性类型的值
+	 * @throws IllegalStateException 假如该属性不可写，则抛出该异常
+	 * @throws IllegalArgumentException 假如调用set方法失败，则抛出该异常
+	 */
+	public void setValue(Object bean, Object value) {
+		if (setter == null) {
+			throw new IllegalStateException(propertyName + "属性没有可访问的set方法！");
+		}
+		if (value == null && type.isPrimitive()) {
+			return;
+		}
+		try {
+			setter.invokeExact(bean, value);
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IllegalArgumentException("设置" + propertyName + "属性值失败！", e);
+		}
+	}
+
+	/**
+	 * 判断该属性是否可读
+	 *
+	 * @return
+	 */
+	public boolean isReadable() {
+		return getter != null;
+	}
+
+	/**
+	 * 判断该属性是否可写
+	 *
+	 * @return
+	 */
+	public boolean isWritable() {
+		return setter != null;
+	}
+
+	public String getPropertyName() {
+		return propertyName;
+	}
+
+	public String getColumnName() {
+		return columnName;
+	}
+
+	public int getOrder() {
+		return order;
+	}
+
+	public Class<?> getType() {
+		return type;
+	}
+
+	public Class<?> getValueType() {
+		return valueType;
+	}
+}
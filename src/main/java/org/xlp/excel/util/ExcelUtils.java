@@ -1,8 +1,14 @@
 package org.xlp.excel.util;
 
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellValue;
+import org.apache.poi.ss.usermodel.Date1904Support;
 import org.apache.poi.ss.usermodel.DateUtil;
 import org.apache.poi.ss.usermodel.FormulaEvaluator;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFCell;
 import org.xlp.utils.XLPArrayUtil;
 import org.xlp.utils.XLPStringUtil;
 
@@ -39,27 +45,55 @@ public class ExcelUtils {
 	 * @return 假如第一个参数为null, 则返回""
 	 */
 	public static Object getCellValue(Cell cell, FormulaEvaluator formulaEvaluator){
+		return getCellValue(cell, formulaEvaluator, true);
+	}
+	
+	/**
+	 * 获取excel表格值
+	 * 
+	 * @param cell 表格单元
+	 * @param formulaEvaluator 读取公式中的cell值
+	 * @param evaluateInCell 是否把公式计算结果写回cell，值为true时公式cell被替换成计算结果；
+	 * 			值为false时只计算结果，不修改cell，cell仍保留公式及其缓存的计算结果
+	 * @return 假如第一个参数为null, 则返回""
+	 */
+	public static Object getCellValue(Cell cell, FormulaEvaluator formulaEvaluator, boolean evaluateInCell){
+		return getCellValue(cell, formulaEvaluator, evaluateInCell, null, null);
+	}
+	
+	/**
+	 * 获取excel表格值
+	 * 
+	 * @param cell 表格单元
+	 * @param formulaEvaluator 读取公式中的cell值
+	 * @param evaluateInCell 是否把公式计算结果写回cell，值为true时公式cell被替换成计算结果；
+	 * 			值为false时只计算结果，不修改cell，cell仍保留公式及其缓存的计算结果
+	 * @param dateFormatCache 样式是否为日期格式的缓存，值为null时每次都解析格式字符串
+	 * @param converter cell值转换器，值为null或不能转换时按默认方式获取值
+	 * @return 假如第一个参数为null, 则返回""
+	 */
+	public static Object getCellValue(Cell cell, FormulaEvaluator formulaEvaluator, boolean evaluateInCell,
+			DateFormatCache dateFormatCache, CellValueConverter converter){
 		if (cell == null) return XLPStringUtil.EMPTY;
 		Object cellValue;
 		// 判断单元格的数据类型
 		switch (cell.getCellType()) {
 			case NUMERIC: // 数字
-				if (DateUtil.isCellDateFormatted(cell)) {
-					cellValue = cell.getDateCellValue();
-				}else {
-					cellValue = cell.getNumericCellValue();
-				}
+				cellValue = getNumericValue(cell, cell.getNumericCellValue(), dateFormatCache, converter);
 				break;
 			case STRING: // 字符串
-				cellValue = cell.getStringCellValue();
+				cellValue = getStringValue(cell.getStringCellValue(), converter);
 				break;
 			case BOOLEAN: // Boolean
 				cellValue = cell.getBooleanCellValue();
 				break;
 			case FORMULA: // 公式
-				if (formulaEvaluator != null) {
+				if (formulaEvaluator != null && !evaluateInCell) {
+					cellValue = getFormulaResultValue(cell, formulaEvaluator.evaluate(cell), 
+							dateFormatCache, converter);
+				}else if (formulaEvaluator != null) {
 					cell = formulaEvaluator.evaluateInCell(cell);
-					cellValue = getCellValue(cell, formulaEvaluator);
+					cellValue = getCellValue(cell, formulaEvaluator, true, dateFormatCache, converter);
 				}else {
 					cellValue = cell.getCellFormula();
 				}
@@ -74,4 +108,129 @@ public class ExcelUtils {
 		}
 		return cellValue;
 	}
+	
+	/**
+	 * 获取公式cell中缓存的计算结果，不计算公式
+	 * 
+	 * @param cell 公式cell
+	 * @param dateFormatCache 样式是否为日期格式的缓存，可以为null
+	 * @param converter cell值转换器，可以为null
+	 * @return 值类型与{@link #getCellValue(Cell, FormulaEvaluator)}一致，没有缓存结果时返回""
+	 */
+	public static Object getCachedFormulaValue(Cell cell, DateFormatCache dateFormatCache, 
+			CellValueConverter converter){
+		if (!hasCachedFormulaValue(cell)) return XLPStringUtil.EMPTY;
+		switch (cell.getCachedFormulaResultType()) {
+			case NUMERIC:
+				return getNumericValue(cell, cell.getNumericCellValue(), dateFormatCache, converter);
+			case STRING:
+				return getStringValue(cell.getStringCellValue(), converter);
+			case BOOLEAN:
+				return cell.getBooleanCellValue();
+			case ERROR:
+				return cell.getErrorCellValue();
+			default:
+				return XLPStringUtil.EMPTY;
+		}
+	}
+	
+	/**
+	 * 判断公式cell是否有缓存的计算结果，xls格式的公式cell总有缓存结果
+	 * 
+	 * @param cell 公式cell
+	 * @return
+	 */
+	public static boolean hasCachedFormulaValue(Cell cell){
+		if (cell instanceof XSSFCell) {
+			return ((XSSFCell) cell).getCTCell().isSetV();
+		}
+		return true;
+	}
+	
+	/**
+	 * 获取公式计算结果的值，值类型与{@link #getCellValue(Cell, FormulaEvaluator)}一致
+	 * 
+	 * @param cell 公式所在的表格单元，用来判断是否为日期格式
+	 * @param formulaResult 公式计算结果
+	 * @param dateFormatCache 可以为null
+	 * @param converter 可以为null
+	 * @return
+	 */
+	private static Object getFormulaResultValue(Cell cell, CellValue formulaResult,
+			DateFormatCache dateFormatCache, CellValueConverter converter){
+		if (formulaResult == null) return XLPStringUtil.EMPTY;
+		switch (formulaResult.getCellType()) {
+			case NUMERIC:
+				return getNumericValue(cell, formulaResult.getNumberValue(), dateFormatCache, converter);
+			case STRING:
+				return getStringValue(formulaResult.getStringValue(), converter);
+			case BOOLEAN:
+				return formulaResult.getBooleanValue();
+			case ERROR:
+				return formulaResult.getErrorValue();
+			default:
+				return XLPStringUtil.EMPTY;
+		}
+	}
+	
+	/**
+	 * 获取数字cell的值，日期格式的cell返回{@link java.util.Date}
+	 * 
+	 * @param cell 用来判断是否为日期格式
+	 * @param value cell中的数字
+	 * @param dateFormatCache 可以为null
+	 * @param converter 可以为null
+	 * @return
+	 */
+	private static Object getNumericValue(Cell cell, double value, DateFormatCache dateFormatCache,
+			CellValueConverter converter){
+		if (converter != null) {
+			try {
+				return converter.convertNumeric(value, isDate1904(cell.getSheet().getWorkbook()));
+			} catch (IllegalArgumentException e) {
+				// 不能转换时按默认方式获取
+			}
+		}
+		CellStyle style = cell.getCellStyle();
+		boolean dateFormat = dateFormatCache != null ? dateFormatCache.isDateFormat(style) 
+				: style != null && DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString());
+		if (dateFormat && DateUtil.isValidExcelDate(value)) {
+			return DateUtil.getJavaDate(value, isDate1904(cell.getSheet().getWorkbook()));
+		}
+		return value;
+	}
+	
+	/**
+	 * 获取字符串cell的值
+	 * 
+	 * @param value cell中的字符串
+	 * @param converter 可以为null
+	 * @return
+	 */
+	private static Object getStringValue(String value, CellValueConverter converter){
+		if (converter != null) {
+			try {
+				return converter.convertString(value);
+			} catch (IllegalArgumentException e) {
+				// 不能转换时按默认方式获取
+			}
+		}
+		return value;
+	}
+	
+	/**
+	 * 判断workbook是否使用1904日期系统
+	 * 
+	 * @param workbook
+	 * @return
+	 */
+	public static boolean isDate1904(Workbook workbook){
+		if (workbook instanceof Date1904Support) {
+			return ((Date1904Support) workbook).isDate1904();
+		}
+		if (workbook instanceof HSSFWorkbook) {
+			return ((HSSFWorkbook) workbook).getInternalWorkbook().isUsing1904DateWindowing();
+		}
+		return false;
+	}
 }
@@ -2,14 +2,31 @@ package org.xlp.excel.write;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Calendar;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.stream.Stream;
 
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
@@ -22,6 +39,7 @@ import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.VerticalAlignment;
 import org.apache.poi.ss.usermodel.Workbook;
+import org.xlp.assertion.AssertUtils;
 import org.xlp.excel.read.SheetData;
 import org.xlp.excel.read.SheetDataBeanConverter;
 import org.xlp.javabean.convert.mapandbean.MapValueProcesser;
@@ -31,6 +49,36 @@ import org.xlp.utils.XLPStringUtil;
 import org.xlp.utils.collection.XLPCollectionUtil;
 
 public abstract class AbstractWriteExcel implements WriteExcel {
+	/**
+	 * excel常规格式
+	 */
+	public static final String GENERAL_FORMAT = "General";
+
+	/**
+	 * 按类型写入时，各类型值在样式缓存中的位置
+	 */
+	private static final int INTEGER_KIND = 0;
+	private static final int DECIMAL_KIND = 1;
+	private static final int BOOLEAN_KIND = 2;
+	private static final int DATE_KIND = 3;
+	private static final int DATE_TIME_KIND = 4;
+	private static final int VALUE_KIND_COUNT = 5;
+
+	/**
+	 * double能精确表示的最大整数：2^53
+	 */
+	private static final long MAX_EXACT_INTEGER = 1L << 53;
+
+	/**
+	 * excel数字的最大有效位数
+	 */
+	private static final int MAX_EXACT_DIGITS = 15;
+
+	/**
+	 * excel允许的最大列宽（字符数）
+	 */
+	private static final int MAX_COLUMN_WIDTH = 255;
+
 	/**
 	 * excel 工作簿
 	 */
@@ -70,6 +118,81 @@ public abstract class AbstractWriteExcel implements WriteExcel {
 	 * 标记是否自动关闭资源，默认自动关闭，即写完一次excel数据，释放workbook资源，如要重新写，则需新建该对象
 	 */
 	private boolean autoClose = true;
+
+	/**
+	 * 是否根据抽样数据估算列宽，默认false
+	 */
+	private boolean autoColumnWidth = false;
+
+	/**
+	 * 估算列宽时，每个sheet页抽样的行数（包括表头行）
+	 */
+	private int autoWidthSampleRows = 100;
+
+	/**
+	 * 是否按值类型写入数据，默认false，即所有值都转换成字符串写入
+	 */
+	private boolean writeTypedValue = false;
+
+	/**
+	 * 按类型写入时整数的格式
+	 */
+	private String integerFormat = "0";
+
+	/**
+	 * 按类型写入时小数的格式
+	 */
+	private String decimalFormat = GENERAL_FORMAT;
+
+	/**
+	 * 按类型写入时LocalDate值的格式
+	 */
+	private String dateFormat = "yyyy-mm-dd";
+
+	/**
+	 * 按类型写入时Date、Calendar、LocalDateTime值的格式
+	 */
+	private String dateTimeFormat = "yyyy-mm-dd hh:mm:ss";
+
+	/**
+	 * 按类型写入时指定的列格式，key为列序号
+	 */
+	private Map<Integer, String> columnFormats = new HashMap<Integer, String>();
+
+	/**
+	 * 按类型写入时按格式缓存的cell样式
+	 */
+	private Map<String, CellStyle> formatStyles = new HashMap<String, CellStyle>();
+
+	/**
+	 * 正在逐行写入的sheet页
+	 */
+	private Sheet currentSheet;
+
+	/**
+	 * 正在逐行写入的sheet页对应的sheet数据
+	 */
+	private SheetData currentSheetData;
+
+	/**
+	 * 正在逐行写入的sheet页的写入状态
+	 */
+	private SheetWriteState currentState;
+
+	/**
+	 * 正在逐行写入的sheet页的下一行行号
+	 */
+	private int currentRowNo;
+
+	/**
+	 * 是否多线程并行写入各sheet页，默认false
+	 */
+	private boolean parallelWrite = false;
+
+	/**
+	 * 并行写入sheet页所用的线程池
+	 */
+	private Executor executor;
 	
 	/**
 	 * 把数据写入excel输出流中
@@ -85,82 +208,324 @@ public abstract class AbstractWriteExcel implements WriteExcel {
 		if (outputStream == null) {
 			throw new NullPointerException("outputStream param is null!");
 		}
-		Sheet sheet;
-		String[] titles;
-		List<Object[]> dataList;
 		try {
-			for (SheetData sheetData : sheetDataList) {
-				if (sheetData != null) {
-					sheet = sheetData.getSheet();
-					String sheetName = sheetData.getSheetName();
-
-					if (sheet != null && sheet != workbook.getSheet(sheet.getSheetName())) {
-						sheet = null;
+			endSheet();
+			if (parallelWrite && supportsParallelWrite()) {
+				writeSheetsParallel();
+			} else {
+				Sheet sheet;
+				SheetWriteState state;
+				for (SheetData sheetData : sheetDataList) {
+					if (sheetData != null) {
+						sheet = openSheet(sheetData);
+						state = new SheetWriteState();
+						initSheetData(sheet, state, sheetData);
+						closeSheet(sheet, sheetData, state);
 					}
+				}
+			}
+			workbook.write(outputStream);
+		} finally {
+			if (autoClose) {
+				close();
+			}
+		}
+	}
 
-					// 根据sheet的名称获取指定的sheet
-					if (sheet == null && !XLPStringUtil.isEmpty(sheetName)) {
-						sheet = workbook.getSheet(sheetName);
-					}
+	/**
+	 * 开始逐行写入一个sheet页，之后用{@link #appendRow(Object[])}、{@link #appendRows(Iterator)}
+	 * 追加数据行，最后调用{@link #finish(OutputStream)}写入输出流，数据不必一次全部准备好；
+	 * 配合{@link WriteSXSSFExcel}使用时，内存中只保留最近写入的行
+	 * <p>
+	 * 如有正在写入的sheet页，则先结束该sheet页
+	 * </p>
+	 * 
+	 * @param sheetName
+	 *            sheet页名称，值为null时，用默认名称创建新的sheet页
+	 * @param titles
+	 *            sheet的表头，值为null时不写表头
+	 */
+	public void beginSheet(String sheetName, String[] titles) {
+		beginSheet(createSheetData(titles, null, sheetName));
+	}
 
-					// 创建sheet
-					if (sheet == null) {
-						if (XLPStringUtil.isEmpty(sheetName)) {
-							sheet = workbook.createSheet();
-						} else {
-							sheet = workbook.createSheet(sheetName);
-						}
-					}
-					
-					if (sheetData.isProtectSheet()) {
-						sheet.protectSheet(sheetData.getPassword()); 
-					}
-					
-					titles = sheetData.getSheetTitles();
-					dataList = sheetData.getSheetData();
-					int rowNo = sheet.getLastRowNum() + 1;
-					if (!XLPArrayUtil.isEmpty(titles)) {
-						// 初始化表头样式
+	/**
+	 * 开始逐行写入一个sheet页，sheet页名称、表头、隐藏列、固定行列等信息从给定的对象中获取，
+	 * 该对象中已有的数据行会先写入
+	 * <p>
+	 * 如有正在写入的sheet页，则先结束该sheet页
+	 * </p>
+	 * 
+	 * @param sheetData
+	 * @throws NullPointerException
+	 *             假如参数为null，则抛出该异常
+	 */
+	public void beginSheet(SheetData sheetData) {
+		AssertUtils.isNotNull(sheetData, "sheetData param is null!");
+		endSheet();
+		currentSheet = openSheet(sheetData);
+		currentState = new SheetWriteState();
+		currentRowNo = initSheetData(currentSheet, currentState, sheetData);
+		currentSheetData = sheetData;
+	}
+
+	/**
+	 * 向正在写入的sheet页追加一行数据
+	 * 
+	 * @param data
+	 *            行数据，值为null时写入空行
+	 * @throws IllegalStateException
+	 *             假如没有调用{@link #beginSheet(SheetData)}开始写入sheet页，则抛出该异常
+	 */
+	public void appendRow(Object[] data) {
+		if (currentSheet == null) {
+			throw new IllegalStateException("请先调用beginSheet函数开始写入sheet页！");
+		}
+		initDataStyle();
+		currentRowNo = initRowData(currentSheet, currentState, currentRowNo, data == null ? new Object[0] : data,
+				dataStyle, writeTypedValue);
+	}
+
+	/**
+	 * 向正在写入的sheet页依次追加迭代器中的所有数据行
+	 * 
+	 * @param rows
+	 * @throws NullPointerException
+	 *             假如参数为null，则抛出该异常
+	 * @throws IllegalStateException
+	 *             假如没有调用{@link #beginSheet(SheetData)}开始写入sheet页，则抛出该异常
+	 */
+	public void appendRows(Iterator<Object[]> rows) {
+		AssertUtils.isNotNull(rows, "rows param is null!");
+		while (rows.hasNext()) {
+			appendRow(rows.next());
+		}
+	}
+
+	/**
+	 * 结束正在写入的sheet页，设置该sheet页的列宽、隐藏列和固定行列；没有正在写入的sheet页时不做任何处理
+	 */
+	public void endSheet() {
+		if (currentSheet != null) {
+			closeSheet(currentSheet, currentSheetData, currentState);
+			currentSheet = null;
+			currentSheetData = null;
+			currentState = null;
+			currentRowNo = 0;
+		}
+	}
+
+	/**
+	 * 结束正在写入的sheet页，并把excel写入输出流中，{@link #getSheetDataList()}中的数据也会一起写入
+	 * 
+	 * @param outputStream
+	 * @throws IOException
+	 *             假如数据写入失败时，抛出该异常
+	 * @throws NullPointerException
+	 *             假如参数为空，抛出该异常
+	 */
+	public void finish(OutputStream outputStream) throws IOException {
+		write(outputStream);
+	}
+
+	/**
+	 * 多线程并行写入各sheet页：sheet页及公共样式在当前线程中按顺序创建，各sheet页的数据行并行写入，
+	 * 写入同一sheet页的数据按顺序在同一线程中写入，最后在当前线程中按顺序设置列宽等信息
+	 * 
+	 * @throws IOException
+	 *             假如写入被中断，则抛出该异常
+	 */
+	private void writeSheetsParallel() throws IOException {
+		final List<SheetData> sheetDatas = new ArrayList<SheetData>();
+		final List<Sheet> sheets = new ArrayList<Sheet>();
+		final List<SheetWriteState> states = new ArrayList<SheetWriteState>();
+		// 写入同一sheet页的sheet数据序号
+		Map<Sheet, List<Integer>> sheetGroups = new LinkedHashMap<Sheet, List<Integer>>();
+		List<FutureTask<Void>> tasks = new ArrayList<FutureTask<Void>>();
+		ExecutorService ownExecutor = null;
+		try {
+			Sheet sheet;
+			List<Integer> group;
+			for (SheetData sheetData : sheetDataList) {
+				if (sheetData != null) {
+					sheet = openSheet(sheetData);
+					if (!XLPArrayUtil.isEmpty(sheetData.getSheetTitles())) {
 						initHeadStyle();
-						rowNo = initRowData(sheet, rowNo, titles, headStyle);
 					}
-					if (!XLPCollectionUtil.isEmpty(dataList)) {
+					if (!XLPCollectionUtil.isEmpty(sheetData.getSheetData())) {
 						initDataStyle();
-						for (Object[] data : dataList) {
-							rowNo = initRowData(sheet, rowNo, data, dataStyle);
+					}
+					group = sheetGroups.get(sheet);
+					if (group == null) {
+						group = new ArrayList<Integer>();
+						sheetGroups.put(sheet, group);
+					}
+					group.add(sheetDatas.size());
+					sheetDatas.add(sheetData);
+					sheets.add(sheet);
+					states.add(new SheetWriteState());
+				}
+			}
+
+			Executor sheetExecutor = executor;
+			if (sheetExecutor == null) {
+				int threads = Math.max(1, Math.min(sheetGroups.size(), Runtime.getRuntime().availableProcessors()));
+				ownExecutor = Executors.newFixedThreadPool(threads);
+				sheetExecutor = ownExecutor;
+			}
+			for (final List<Integer> indexes : sheetGroups.values()) {
+				FutureTask<Void> task = new FutureTask<Void>(new Callable<Void>() {
+					@Override
+					public Void call() throws Exception {
+						for (int index : indexes) {
+							initSheetData(sheets.get(index), states.get(index), sheetDatas.get(index));
 						}
+						return null;
 					}
-					//设置隐藏的列
-					for(int hideCol : sheetData.getHideColIndexs()){
-						sheet.setColumnHidden(hideCol, true); 
+				});
+				tasks.add(task);
+				sheetExecutor.execute(task);
+			}
+			for (FutureTask<Void> task : tasks) {
+				try {
+					task.get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("写入sheet页数据被中断！");
+				} catch (ExecutionException e) {
+					Throwable cause = e.getCause();
+					if (cause instanceof RuntimeException) {
+						throw (RuntimeException) cause;
 					}
-					
-					int fixedCols = sheetData.getFixedCols();
-					int fixedRows = sheetData.getFixedRows();
-					if (fixedCols > 0 || fixedRows > 0) {
-						//设置固定行或列
-						sheet.createFreezePane(fixedCols, fixedRows); 
+					if (cause instanceof Error) {
+						throw (Error) cause;
 					}
+					throw new IOException(cause);
 				}
 			}
-			workbook.write(outputStream);
+
+			int size = sheetDatas.size();
+			for (int i = 0; i < size; i++) {
+				closeSheet(sheets.get(i), sheetDatas.get(i), states.get(i));
+			}
 		} finally {
-			if (autoClose) {
-				close();
+			for (FutureTask<Void> task : tasks) {
+				task.cancel(true);
+			}
+			if (ownExecutor != null) {
+				ownExecutor.shutdownNow();
+			}
+		}
+	}
+
+	/**
+	 * 是否支持多线程并行写入不同的sheet页，默认不支持
+	 * <p>
+	 * 只有各sheet页的数据行互不共享workbook中的可变对象（如共享字符串表）时才能返回true
+	 * </p>
+	 * 
+	 * @return
+	 */
+	protected boolean supportsParallelWrite() {
+		return false;
+	}
+
+	/**
+	 * 获取或创建sheet数据对应的sheet页
+	 * 
+	 * @param sheetData
+	 * @return
+	 */
+	private Sheet openSheet(SheetData sheetData) {
+		Sheet sheet = sheetData.getSheet();
+		String sheetName = sheetData.getSheetName();
+
+		if (sheet != null && sheet != workbook.getSheet(sheet.getSheetName())) {
+			sheet = null;
+		}
+
+		// 根据sheet的名称获取指定的sheet
+		if (sheet == null && !XLPStringUtil.isEmpty(sheetName)) {
+			sheet = workbook.getSheet(sheetName);
+		}
+
+		// 创建sheet
+		if (sheet == null) {
+			if (XLPStringUtil.isEmpty(sheetName)) {
+				sheet = workbook.createSheet();
+			} else {
+				sheet = workbook.createSheet(sheetName);
+			}
+		}
+		
+		if (sheetData.isProtectSheet()) {
+			sheet.protectSheet(sheetData.getPassword()); 
+		}
+		return sheet;
+	}
+
+	/**
+	 * 写入sheet数据中的表头和数据行
+	 * 
+	 * @param sheet
+	 * @param state
+	 * @param sheetData
+	 * @return 下一行的行号
+	 */
+	private int initSheetData(Sheet sheet, SheetWriteState state, SheetData sheetData) {
+		String[] titles = sheetData.getSheetTitles();
+		List<Object[]> dataList = sheetData.getSheetData();
+		int rowNo = sheet.getLastRowNum() + 1;
+		if (!XLPArrayUtil.isEmpty(titles)) {
+			// 初始化表头样式
+			initHeadStyle();
+			rowNo = initRowData(sheet, state, rowNo, titles, headStyle, false);
+		}
+		if (!XLPCollectionUtil.isEmpty(dataList)) {
+			initDataStyle();
+			for (Object[] data : dataList) {
+				rowNo = initRowData(sheet, state, rowNo, data, dataStyle, writeTypedValue);
 			}
 		}
+		return rowNo;
+	}
+
+	/**
+	 * 设置sheet页的列宽、隐藏列和固定行列
+	 * 
+	 * @param sheet
+	 * @param sheetData
+	 * @param state
+	 */
+	private void closeSheet(Sheet sheet, SheetData sheetData, SheetWriteState state) {
+		applyColumnWidths(sheet, state);
+		//设置隐藏的列
+		for(int hideCol : sheetData.getHideColIndexs()){
+			sheet.setColumnHidden(hideCol, true); 
+		}
+		
+		int fixedCols = sheetData.getFixedCols();
+		int fixedRows = sheetData.getFixedRows();
+		if (fixedCols > 0 || fixedRows > 0) {
+			//设置固定行或列
+			sheet.createFreezePane(fixedCols, fixedRows); 
+		}
 	}
 
 	/**
 	 * 初始化row数据
 	 * 
 	 * @param sheet
+	 * @param state
 	 * @param rowNo
 	 * @param data
 	 * @param cellStyle
+	 * @param typed
+	 *            是否按值类型写入数字、布尔及日期值
 	 * @return
 	 */
-	private int initRowData(Sheet sheet, int rowNo, Object[] data, CellStyle cellStyle) {
+	private int initRowData(Sheet sheet, SheetWriteState state, int rowNo, Object[] data, CellStyle cellStyle,
+			boolean typed) {
 		Row row;
 		Cell cell;
 		row = sheet.createRow(rowNo++);
@@ -169,18 +534,253 @@ public abstract class AbstractWriteExcel implements WriteExcel {
 			row.setHeightInPoints(cellHeight);
 		}
 		int len = data.length;
+		if (len > state.columnCount) {
+			state.columnCount = len;
+		}
+		boolean sample = autoColumnWidth && state.sampledRows < autoWidthSampleRows;
+		if (sample) {
+			state.sampledRows++;
+		}
+		String value;
 		for (int i = 0; i < len; i++) {
-			if (cellWidth > 0) {
+			cell = row.createCell(i);
+			value = null;
+			if (!typed || !setTypedCellValue(cell, state, i, data[i], cellStyle)) {
+				value = (String) valueProcesser.processValue(String.class, data[i]);
+				value = XLPStringUtil.emptyTrim(value);
+				cell.setCellValue(value);
+				cell.setCellStyle(cellStyle);
+			}
+			if (sample) {
+				sampleColumnWidth(state, i, value == null ? data[i] : value);
+			}
+		}
+		return rowNo;
+	}
+
+	/**
+	 * 记录给定列抽样值的显示宽度
+	 * 
+	 * @param state
+	 * @param column
+	 * @param value
+	 */
+	private void sampleColumnWidth(SheetWriteState state, int column, Object value) {
+		int[] widths = state.sampledColumnWidths;
+		if (column >= widths.length) {
+			widths = Arrays.copyOf(widths, Math.max(column + 1, widths.length * 2));
+			state.sampledColumnWidths = widths;
+		}
+		int width = displayWidth(value);
+		if (width > widths[column]) {
+			widths[column] = width;
+		}
+	}
+
+	/**
+	 * 估算值在excel中显示的字符宽度，非单字节字符按两个字符宽度计算，日期按日期格式的长度计算
+	 * 
+	 * @param value
+	 * @return
+	 */
+	private int displayWidth(Object value) {
+		if (value == null) {
+			return 0;
+		}
+		if (value instanceof Date || value instanceof Calendar || value instanceof LocalDateTime) {
+			return dateTimeFormat.length();
+		}
+		if (value instanceof LocalDate) {
+			return dateFormat.length();
+		}
+		String text = value.toString();
+		int len = text.length();
+		int width = len;
+		for (int i = 0; i < len; i++) {
+			if (text.charAt(i) > 0xFF) {
+				width++;
+			}
+		}
+		return width;
+	}
+
+	/**
+	 * 设置当前sheet页已写入列的列宽
+	 * 
+	 * @param sheet
+	 * @param state
+	 */
+	private void applyColumnWidths(Sheet sheet, SheetWriteState state) {
+		int columnCount = state.columnCount;
+		if (autoColumnWidth) {
+			int[] widths = state.sampledColumnWidths;
+			for (int i = 0; i < columnCount; i++) {
+				int width = i < widths.length ? widths[i] : 0;
+				// 两边各留一个字符的空白，单位为字符宽度的1/256
+				width = Math.min(width + 2, MAX_COLUMN_WIDTH);
+				sheet.setColumnWidth(i, width * 256);
+			}
+		} else if (cellWidth > 0) {
+			for (int i = 0; i < columnCount; i++) {
 				// 单位为字符宽度的1/256
 				sheet.setColumnWidth(i, cellWidth * 256);
 			}
-			cell = row.createCell(i);
-			String value = (String) valueProcesser.processValue(String.class, data[i]);
-			value = XLPStringUtil.emptyTrim(value);
-			cell.setCellValue(value);
+		}
+	}
+
+	/**
+	 * 按值类型设置cell值，数字、布尔及日期值写入原生类型，null值写入空cell
+	 * 
+	 * @param cell
+	 * @param state
+	 * @param column
+	 *            列序号
+	 * @param value
+	 * @param cellStyle
+	 *            空cell的样式
+	 * @return 假如值不是可以直接写入的类型或数字不能用double精确表示，返回false，此时需按字符串写入
+	 */
+	private boolean setTypedCellValue(Cell cell, SheetWriteState state, int column, Object value,
+			CellStyle cellStyle) {
+		int valueKind;
+		if (value == null) {
 			cell.setCellStyle(cellStyle);
+			return true;
+		} else if (value instanceof Number && !isExactDouble((Number) value)) {
+			// 不能用double精确表示的数字按字符串写入，避免丢失精度
+			return false;
+		} else if (value instanceof Integer || value instanceof Long || value instanceof Short
+				|| value instanceof Byte || value instanceof BigInteger) {
+			cell.setCellValue(((Number) value).doubleValue());
+			valueKind = INTEGER_KIND;
+		} else if (value instanceof Number) {
+			cell.setCellValue(((Number) value).doubleValue());
+			valueKind = DECIMAL_KIND;
+		} else if (value instanceof Boolean) {
+			cell.setCellValue(((Boolean) value).booleanValue());
+			valueKind = BOOLEAN_KIND;
+		} else if (value instanceof Date) {
+			cell.setCellValue((Date) value);
+			valueKind = DATE_TIME_KIND;
+		} else if (value instanceof Calendar) {
+			cell.setCellValue((Calendar) value);
+			valueKind = DATE_TIME_KIND;
+		} else if (value instanceof LocalDateTime) {
+			cell.setCellValue((LocalDateTime) value);
+			valueKind = DATE_TIME_KIND;
+		} else if (value instanceof LocalDate) {
+			cell.setCellValue((LocalDate) value);
+			valueKind = DATE_KIND;
+		} else {
+			return false;
 		}
-		return rowNo;
+		cell.setCellStyle(getTypedCellStyle(state, column, valueKind));
+		return true;
+	}
+
+	/**
+	 * 判断数字能否用double精确表示：绝对值超过2^53的整数及有效数字超过15位的BigDecimal不能精确表示
+	 * 
+	 * @param value
+	 * @return
+	 */
+	static boolean isExactDouble(Number value) {
+		if (value instanceof Long) {
+			long longValue = value.longValue();
+			return longValue >= -MAX_EXACT_INTEGER && longValue <= MAX_EXACT_INTEGER;
+		}
+		if (value instanceof BigInteger) {
+			BigInteger integer = (BigInteger) value;
+			return integer.abs().compareTo(BigInteger.valueOf(MAX_EXACT_INTEGER)) <= 0;
+		}
+		if (value instanceof BigDecimal) {
+			BigDecimal decimal = (BigDecimal) value;
+			return decimal.signum() == 0 || (decimal.stripTrailingZeros().precision() <= MAX_EXACT_DIGITS
+					&& !Double.isInfinite(decimal.doubleValue()));
+		}
+		return true;
+	}
+
+	/**
+	 * 获取给定列、给定类型值的cell样式，样式按列缓存在sheet页写入状态中
+	 * 
+	 * @param state
+	 * @param column
+	 * @param valueKind
+	 * @return
+	 */
+	private CellStyle getTypedCellStyle(SheetWriteState state, int column, int valueKind) {
+		CellStyle[][] typedStyles = state.typedStyles;
+		if (column >= typedStyles.length) {
+			typedStyles = Arrays.copyOf(typedStyles, Math.max(column + 1, typedStyles.length * 2));
+			state.typedStyles = typedStyles;
+		}
+		CellStyle[] columnStyles = typedStyles[column];
+		if (columnStyles == null) {
+			columnStyles = new CellStyle[VALUE_KIND_COUNT];
+			typedStyles[column] = columnStyles;
+		}
+		CellStyle style = columnStyles[valueKind];
+		if (style == null) {
+			style = getFormatStyle(column, valueKind);
+			columnStyles[valueKind] = style;
+		}
+		return style;
+	}
+
+	/**
+	 * 获取给定列、给定类型值所用格式的cell样式，样式以数据样式为基础，同一格式共用一个样式；
+	 * 并行写入时会被多个线程调用，所以需同步
+	 * 
+	 * @param column
+	 * @param valueKind
+	 * @return
+	 */
+	private synchronized CellStyle getFormatStyle(int column, int valueKind) {
+		String format = columnFormats.get(column);
+		if (format == null) {
+			format = defaultFormat(valueKind);
+		}
+		CellStyle style = formatStyles.get(format);
+		if (style == null) {
+			initDataStyle();
+			style = workbook.createCellStyle();
+			style.cloneStyleFrom(dataStyle);
+			style.setDataFormat(workbook.createDataFormat().getFormat(format));
+			formatStyles.put(format, style);
+		}
+		return style;
+	}
+
+	/**
+	 * 获取给定类型值的默认格式
+	 * 
+	 * @param valueKind
+	 * @return
+	 */
+	private String defaultFormat(int valueKind) {
+		switch (valueKind) {
+			case INTEGER_KIND:
+				return integerFormat;
+			case DECIMAL_KIND:
+				return decimalFormat;
+			case DATE_KIND:
+				return dateFormat;
+			case DATE_TIME_KIND:
+				return dateTimeFormat;
+			default:
+				return GENERAL_FORMAT;
+		}
+	}
+
+	/**
+	 * 清除按类型写入时缓存的cell样式
+	 */
+	private void clearTypedStyles() {
+		if (currentState != null) {
+			currentState.typedStyles = new CellStyle[0][];
+		}
+		formatStyles.clear();
 	}
 
 	/**
@@ -218,44 +818,27 @@ public abstract class AbstractWriteExcel implements WriteExcel {
 	public void addExcelData(String sheetName, Collection<Map<String, ?>> dataMap) {
 		if (!XLPCollectionUtil.isEmpty(dataMap)) {
 			List<String> titles = new ArrayList<String>();
-			List<Object[]> dataList = new ArrayList<Object[]>();
-			Iterator<Map<String, ?>> it = dataMap.iterator();
-			if (it.hasNext()) {
-				Map<String, ?> map = it.next();
-				Object[] datas = new Object[map.size()];
-				int index = 0;
-				for (Entry<String, ?> entry : map.entrySet()) {
-					titles.add(entry.getKey());
-					datas[index++] = entry.getValue();
-				}
-				dataList.add(datas);
-			}
-			List<Entry<String, ?>> notContainEntry = new ArrayList<Entry<String, ?>>();
-			while (it.hasNext()) {
-				Map<String, ?> map = it.next();
-				int titlesSize = titles.size();
-				Object[] datas = new Object[titlesSize];
-				int index = -1;
-				for (Entry<String, ?> entry : map.entrySet()) {
-					index = titles.indexOf(entry.getKey());
-					if (index != -1) {
+			// 表头及其列序号，避免每个值都线性查找表头
+			Map<String, Integer> titleIndexes = new HashMap<String, Integer>();
+			List<Object[]> dataList = new ArrayList<Object[]>(dataMap.size());
+			Integer index;
+			for (Map<String, ?> map : dataMap) {
+				Object[] datas = new Object[titles.size()];
+				if (map != null) {
+					for (Entry<String, ?> entry : map.entrySet()) {
+						index = titleIndexes.get(entry.getKey());
+						if (index == null) {
+							// 不存在的表头追加到最后
+							index = titles.size();
+							titles.add(entry.getKey());
+							titleIndexes.put(entry.getKey(), index);
+						}
+						if (index >= datas.length) {
+							datas = Arrays.copyOf(datas, titles.size());
+						}
 						datas[index] = entry.getValue();
-					} else {
-						notContainEntry.add(entry);
 					}
 				}
-				// 计算不存在的值
-				int notSize = notContainEntry.size();
-				if (notSize > 0) {
-					int startIndex = titlesSize;
-					datas = Arrays.copyOf(datas, notSize + titlesSize);
-					for (Entry<String, ?> entry : notContainEntry) {
-						titles.add(entry.getKey());
-						datas[startIndex++] = entry.getValue();
-					}
-				}
-				notContainEntry.clear();
-				notContainEntry = null;
 				dataList.add(datas);
 			}
 
@@ -362,8 +945,17 @@ public abstract class AbstractWriteExcel implements WriteExcel {
 	 */
 	public <T> void addExcelDataOfBeans(String sheetName, List<T> beanList, boolean isUsedAnnotation) {
 		if (!XLPCollectionUtil.isEmpty(beanList)) {
-			List<Map<String, ?>> dataMaps = new SheetDataBeanConverter<T>(isUsedAnnotation).beanListToMapList(beanList);
-			addExcelData(sheetName, dataMaps);
+			Class<? extends T> beanClass = commonBeanClass(beanList);
+			if (beanClass != null) {
+				// 类型一致时直接按属性访问方法生成行数据，不经过Map中间转换
+				BeanRowConverter<T> converter = newBeanRowConverter(beanClass, isUsedAnnotation);
+				addExcelData(sheetName, converter.getTitles(), converter.toRows(beanList));
+			} else {
+				// 类型不一致时没有共同的元数据，逐个对象按各自的属性注解转换
+				SheetDataBeanConverter<T> converter = new SheetDataBeanConverter<T>(isUsedAnnotation);
+				List<Map<String, ?>> dataMaps = converter.beanListToMapList(beanList);
+				addExcelData(sheetName, dataMaps);
+			}
 		}
 	}
 
@@ -401,6 +993,135 @@ public abstract class AbstractWriteExcel implements WriteExcel {
 		addExcelDataOfBeans(null, beanList, isUsedAnnotation);
 	}
 
+	/**
+	 * 在新的sheet页中逐个写入bean，bean按需从迭代器中获取，不必一次全部加载到内存中，
+	 * 列及其顺序由bean类型的属性（启用注解时为{@link org.xlp.excel.annotation.ExcelField}标注的属性）决定
+	 * <p>
+	 * 写完后结束该sheet页，最后调用{@link #finish(OutputStream)}写入输出流
+	 * </p>
+	 * 
+	 * @param sheetName
+	 *            sheet页名称，值为null时，用默认名称创建新的sheet页
+	 * @param beanClass
+	 *            bean类型
+	 * @param beans
+	 *            要写入的bean，null值写入空行
+	 * @param isUsedAnnotation
+	 *            是否启用ExcelField注解转换 true是，false不启用
+	 * @throws NullPointerException
+	 *             假如beanClass或beans参数为null，则抛出该异常
+	 */
+	public <T> void appendBeans(String sheetName, Class<T> beanClass, Iterable<? extends T> beans,
+			boolean isUsedAnnotation) {
+		AssertUtils.isNotNull(beans, "beans param is null!");
+		appendBeans(sheetName, beanClass, beans.iterator(), isUsedAnnotation);
+	}
+
+	/**
+	 * 在新的sheet页中逐个写入bean，启用{@link org.xlp.excel.annotation.ExcelField}注解
+	 * 
+	 * @param sheetName
+	 *            sheet页名称，值为null时，用默认名称创建新的sheet页
+	 * @param beanClass
+	 *            bean类型
+	 * @param beans
+	 *            要写入的bean，null值写入空行
+	 * @throws NullPointerException
+	 *             假如beanClass或beans参数为null，则抛出该异常
+	 * @see #appendBeans(String, Class, Iterable, boolean)
+	 */
+	public <T> void appendBeans(String sheetName, Class<T> beanClass, Iterable<? extends T> beans) {
+		appendBeans(sheetName, beanClass, beans, true);
+	}
+
+	/**
+	 * 在新的sheet页中逐个写入流中的bean，流按需生成bean，写完后不关闭流
+	 * 
+	 * @param sheetName
+	 *            sheet页名称，值为null时，用默认名称创建新的sheet页
+	 * @param beanClass
+	 *            bean类型
+	 * @param beans
+	 *            要写入的bean，null值写入空行
+	 * @param isUsedAnnotation
+	 *            是否启用ExcelField注解转换 true是，false不启用
+	 * @throws NullPointerException
+	 *             假如beanClass或beans参数为null，则抛出该异常
+	 * @see #appendBeans(String, Class, Iterable, boolean)
+	 */
+	public <T> void appendBeans(String sheetName, Class<T> beanClass, Stream<? extends T> beans,
+			boolean isUsedAnnotation) {
+		AssertUtils.isNotNull(beans, "beans param is null!");
+		appendBeans(sheetName, beanClass, beans.iterator(), isUsedAnnotation);
+	}
+
+	/**
+	 * 在新的sheet页中逐个写入流中的bean，启用{@link org.xlp.excel.annotation.ExcelField}注解，写完后不关闭流
+	 * 
+	 * @param sheetName
+	 *            sheet页名称，值为null时，用默认名称创建新的sheet页
+	 * @param beanClass
+	 *            bean类型
+	 * @param beans
+	 *            要写入的bean，null值写入空行
+	 * @throws NullPointerException
+	 *             假如beanClass或beans参数为null，则抛出该异常
+	 * @see #appendBeans(String, Class, Iterable, boolean)
+	 */
+	public <T> void appendBeans(String sheetName, Class<T> beanClass, Stream<? extends T> beans) {
+		appendBeans(sheetName, beanClass, beans, true);
+	}
+
+	/**
+	 * 在新的sheet页中逐个写入迭代器中的bean
+	 * 
+	 * @param sheetName
+	 * @param beanClass
+	 * @param beans
+	 * @param isUsedAnnotation
+	 */
+	private <T> void appendBeans(String sheetName, Class<T> beanClass, Iterator<? extends T> beans,
+			boolean isUsedAnnotation) {
+		AssertUtils.isNotNull(beanClass, "beanClass param is null!");
+		BeanRowConverter<T> converter = newBeanRowConverter(beanClass, isUsedAnnotation);
+		beginSheet(sheetName, converter.getTitles());
+		while (beans.hasNext()) {
+			appendRow(converter.toRow(beans.next()));
+		}
+		endSheet();
+	}
+
+	/**
+	 * 创建bean行数据转换器
+	 * 
+	 * @param beanClass
+	 * @param isUsedAnnotation
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> BeanRowConverter<T> newBeanRowConverter(Class<? extends T> beanClass,
+			boolean isUsedAnnotation) {
+		return new BeanRowConverter<T>((Class<T>) beanClass, isUsedAnnotation);
+	}
+
+	/**
+	 * 获取集合中所有bean的共同类型
+	 * 
+	 * @param beanList
+	 * @return 假如bean类型不一致或有null值，返回null
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> Class<? extends T> commonBeanClass(List<T> beanList) {
+		Class<?> beanClass = null;
+		for (T bean : beanList) {
+			if (bean == null || (beanClass != null && beanClass != bean.getClass())) {
+				return null;
+			}
+			beanClass = bean.getClass();
+		}
+		return (Class<? extends T>) beanClass;
+	}
+
 	/**
 	 * 创建SheetData 对象
 	 * 
@@ -496,10 +1217,50 @@ public abstract class AbstractWriteExcel implements WriteExcel {
 		return cellWidth;
 	}
 
+	/**
+	 * 设置列宽，写完每个sheet页后统一设置该sheet页所有列的宽度
+	 * 
+	 * @param cellWidth
+	 *            列宽（字符数），值小于等于0时不设置列宽
+	 */
 	public void setCellWidth(int cellWidth) {
 		this.cellWidth = cellWidth;
 	}
 
+	public boolean isAutoColumnWidth() {
+		return autoColumnWidth;
+	}
+
+	/**
+	 * 设置是否根据抽样数据估算列宽
+	 * 
+	 * @param autoColumnWidth
+	 *            值为true时，根据每个sheet页前{@link #getAutoWidthSampleRows()}行各列值的最大显示长度设置列宽，
+	 *            此时忽略{@link #setCellWidth(int)}设置的列宽；与POI的autoSizeColumn相比不需要计算字体度量，
+	 *            但只是近似值
+	 */
+	public void setAutoColumnWidth(boolean autoColumnWidth) {
+		this.autoColumnWidth = autoColumnWidth;
+	}
+
+	public int getAutoWidthSampleRows() {
+		return autoWidthSampleRows;
+	}
+
+	/**
+	 * 设置估算列宽时每个sheet页抽样的行数（包括表头行），默认100
+	 * 
+	 * @param autoWidthSampleRows
+	 * @throws IllegalArgumentException
+	 *             假如参数小于1，则抛出该异常
+	 */
+	public void setAutoWidthSampleRows(int autoWidthSampleRows) {
+		if (autoWidthSampleRows < 1) {
+			throw new IllegalArgumentException("抽样行数不能小于1！");
+		}
+		this.autoWidthSampleRows = autoWidthSampleRows;
+	}
+
 	public CellStyle getDataStyle() {
 		initDataStyle();
 		return dataStyle;
@@ -507,6 +1268,149 @@ public abstract class AbstractWriteExcel implements WriteExcel {
 
 	public void setDataStyle(CellStyle dataStyle) {
 		this.dataStyle = dataStyle;
+		clearTypedStyles();
+	}
+
+	public boolean isParallelWrite() {
+		return parallelWrite;
+	}
+
+	/**
+	 * 设置写入多个sheet页时是否多线程并行写入各sheet页的数据行，只有支持并行写入的子类
+	 * （如{@link WriteSXSSFExcel}）才生效，其他子类仍按顺序写入
+	 * <p>
+	 * 写入同一sheet页的多个{@link SheetData}仍在同一线程中按顺序写入；并行写入时
+	 * {@link #getValueProcesser()}会被多个线程同时调用，需保证线程安全
+	 * </p>
+	 * 
+	 * @param parallelWrite
+	 */
+	public void setParallelWrite(boolean parallelWrite) {
+		this.parallelWrite = parallelWrite;
+	}
+
+	public Executor getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * 设置并行写入sheet页所用的线程池，值为null时每次写入按sheet页数量和cpu核数临时创建，写入完后关闭
+	 * 
+	 * @param executor
+	 */
+	public void setExecutor(Executor executor) {
+		this.executor = executor;
+	}
+
+	public boolean isWriteTypedValue() {
+		return writeTypedValue;
+	}
+
+	/**
+	 * 设置是否按值类型写入数据
+	 * 
+	 * @param writeTypedValue
+	 *            值为true时，数字、布尔及日期值以原生类型写入，并按列使用对应的数字或日期格式，
+	 *            null值写入空cell，其他值及不能用double精确表示的数字（如超过2^53的long）仍转换成字符串写入；
+	 *            值为false时所有值都转换成字符串写入
+	 */
+	public void setWriteTypedValue(boolean writeTypedValue) {
+		this.writeTypedValue = writeTypedValue;
+	}
+
+	public String getIntegerFormat() {
+		return integerFormat;
+	}
+
+	/**
+	 * 设置按类型写入时整数的格式，默认"0"
+	 * 
+	 * @param integerFormat
+	 */
+	public void setIntegerFormat(String integerFormat) {
+		if (!XLPStringUtil.isEmpty(integerFormat)) {
+			this.integerFormat = integerFormat;
+			clearTypedStyles();
+		}
+	}
+
+	public String getDecimalFormat() {
+		return decimalFormat;
+	}
+
+	/**
+	 * 设置按类型写入时小数的格式，默认为常规格式
+	 * 
+	 * @param decimalFormat
+	 */
+	public void setDecimalFormat(String decimalFormat) {
+		if (!XLPStringUtil.isEmpty(decimalFormat)) {
+			this.decimalFormat = decimalFormat;
+			clearTypedStyles();
+		}
+	}
+
+	public String getDateFormat() {
+		return dateFormat;
+	}
+
+	/**
+	 * 设置按类型写入时LocalDate值的格式，默认"yyyy-mm-dd"
+	 * 
+	 * @param dateFormat
+	 */
+	public void setDateFormat(String dateFormat) {
+		if (!XLPStringUtil.isEmpty(dateFormat)) {
+			this.dateFormat = dateFormat;
+			clearTypedStyles();
+		}
+	}
+
+	public String getDateTimeFormat() {
+		return dateTimeFormat;
+	}
+
+	/**
+	 * 设置按类型写入时Date、Calendar、LocalDateTime值的格式，默认"yyyy-mm-dd hh:mm:ss"
+	 * 
+	 * @param dateTimeFormat
+	 */
+	public void setDateTimeFormat(String dateTimeFormat) {
+		if (!XLPStringUtil.isEmpty(dateTimeFormat)) {
+			this.dateTimeFormat = dateTimeFormat;
+			clearTypedStyles();
+		}
+	}
+
+	/**
+	 * 设置按类型写入时给定列的数字或日期格式，该列所有原生类型值都使用该格式
+	 * 
+	 * @param columnIndex
+	 *            列序号，从0开始
+	 * @param format
+	 *            excel格式，如"0.00"，值为null时取消该列的格式
+	 * @throws IllegalArgumentException
+	 *             假如列序号小于0，则抛出该异常
+	 */
+	public void setColumnFormat(int columnIndex, String format) {
+		if (columnIndex < 0) {
+			throw new IllegalArgumentException("列序号不能小于0！");
+		}
+		if (XLPStringUtil.isEmpty(format)) {
+			columnFormats.remove(columnIndex);
+		} else {
+			columnFormats.put(columnIndex, format);
+		}
+		clearTypedStyles();
+	}
+
+	/**
+	 * 获取按类型写入时指定的列格式
+	 * 
+	 * @return key为列序号
+	 */
+	public Map<Integer, String> getColumnFormats() {
+		return Collections.unmodifiableMap(columnFormats);
 	}
 
 	public Workbook getWorkbook() {
@@ -534,9 +1438,38 @@ public abstract class AbstractWriteExcel implements WriteExcel {
 	 *             假如释放workbook资源失败，则抛出该异常
 	 */
 	public void close() throws IOException {
+		currentSheet = null;
+		currentSheetData = null;
+		currentState = null;
+		clearTypedStyles();
 		if (workbook != null) {
 			workbook.close();
 			workbook = null;
 		}
 	}
+
+	/**
+	 * 单个sheet页的写入状态，并行写入时每个线程使用各自的状态
+	 */
+	private static class SheetWriteState {
+		/**
+		 * 写入的最大列数
+		 */
+		int columnCount;
+
+		/**
+		 * 已抽样的行数
+		 */
+		int sampledRows;
+
+		/**
+		 * 各列抽样值的最大显示宽度
+		 */
+		int[] sampledColumnWidths = new int[0];
+
+		/**
+		 * 按类型写入时按列缓存的cell样式，第一维为列序号，第二维为值类型
+		 */
+		CellStyle[][] typedStyles = new CellStyle[0][];
+	}
 }
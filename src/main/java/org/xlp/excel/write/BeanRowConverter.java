@@ -0,0 +1,108 @@
+package org.xlp.excel.write;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.xlp.excel.annotation.ExcelField;
+import org.xlp.excel.util.ExcelBeanMetadata;
+import org.xlp.excel.util.ExcelFieldMetadata;
+
+/**
+ * 把bean直接转换成excel行数据，不经过Map中间转换
+ * <p>
+ * 列及其顺序取自按类缓存的{@link ExcelBeanMetadata}，只包含有get方法的属性，
+ * 取值使用预先生成的访问方法；可以在多个线程中共用
+ * </p>
+ *
+ * @author xlp
+ */
+public class BeanRowConverter<T> {
+	/**
+	 * 表头
+	 */
+	private final String[] titles;
+
+	/**
+	 * 各列对应的属性元数据
+	 */
+	private final ExcelFieldMetadata[] fields;
+
+	/**
+	 * 构造函数，启用{@link ExcelField}注解
+	 *
+	 * @param beanClass
+	 * @throws NullPointerException
+	 *             假如参数为null，则抛出该异常
+	 */
+	public BeanRowConverter(Class<T> beanClass) {
+		this(beanClass, true);
+	}
+
+	/**
+	 * 构造函数
+	 *
+	 * @param beanClass
+	 * @param isUsedAnnotation
+	 *            是否启用ExcelField注解转换 true是，false不启用
+	 * @throws NullPointerException
+	 *             假如beanClass参数为null，则抛出该异常
+	 */
+	public BeanRowConverter(Class<T> beanClass, boolean isUsedAnnotation) {
+		ExcelBeanMetadata metadata = ExcelBeanMetadata.getMetadata(beanClass, isUsedAnnotation);
+		List<ExcelFieldMetadata> readableFields = new ArrayList<ExcelFieldMetadata>();
+		for (ExcelFieldMetadata field : metadata.getFields()) {
+			if (field.isReadable()) {
+				readableFields.add(field);
+			}
+		}
+		fields = readableFields.toArray(new ExcelFieldMetadata[0]);
+		titles = new String[fields.length];
+		for (int i = 0; i < fields.length; i++) {
+			titles[i] = fields[i].getColumnName();
+		}
+	}
+
+	/**
+	 * 获取表头
+	 *
+	 * @return
+	 */
+	public String[] getTitles() {
+		return titles.clone();
+	}
+
+	/**
+	 * 把bean转换成行数据
+	 *
+	 * @param bean
+	 * @return 值按表头顺序排列，假如参数为null，返回所有值都为null的行数据
+	 */
+	public Object[] toRow(T bean) {
+		Object[] data = new Object[fields.length];
+		if (bean != null) {
+			for (int i = 0; i < fields.length; i++) {
+				data[i] = fields[i].getValue(bean);
+			}
+		}
+		return data;
+	}
+
+	/**
+	 * 把bean集合转换成行数据集合
+	 *
+	 * @param beans
+	 * @return
+	 * @throws NullPointerException
+	 *             假如参数为null，则抛出该异常
+	 */
+	public List<Object[]> toRows(Iterable<? extends T> beans) {
+		if (beans == null) {
+			throw new NullPointerException("beans param is null!");
+		}
+		List<Object[]> dataList = new ArrayList<Object[]>();
+		for (T bean : beans) {
+			dataList.add(toRow(bean));
+		}
+		return dataList;
+	}
+}
@@ -0,0 +1,528 @@
+package org.xlp.excel.write;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+
+import org.xlp.excel.read.SheetData;
+import org.xlp.javabean.convert.mapandbean.MapValueProcesser;
+import org.xlp.javabean.processer.ValueProcesser;
+import org.xlp.utils.XLPArrayUtil;
+import org.xlp.utils.XLPStringUtil;
+import org.xlp.utils.io.XLPIOUtil;
+
+/**
+ * 写CSV/TSV格式的数据
+ * <p>
+ * 不经过POI，直接把{@link SheetData}的表头及数据行逐行写成文本，可与{@link org.xlp.excel.read.ReadCSVExcel}配合使用；
+ * 按RFC 4180格式写入：含分隔符、双引号或换行符的值用双引号包围，值中的双引号写成两个双引号
+ * </p>
+ * <p>
+ * CSV只有一个表格，所有{@link SheetData}按添加顺序依次写入，sheet名称、隐藏列、固定行列等信息不写入；
+ * null值写成空字段，日期按{@link #getDateTimeFormat()}、{@link #getDateFormat()}格式化，
+ * 其他非数字、布尔类型的值经{@link #getValueProcesser()}转换成字符串写入
+ * </p>
+ * <p>
+ * 也可用{@link #begin(OutputStream)}、{@link #appendRow(Object[])}、{@link #finish()}边生成数据边写入输出流
+ * </p>
+ *
+ * @author xlp
+ */
+public class WriteCSVExcel implements WriteExcel {
+	/**
+	 * 默认字段分隔符
+	 */
+	public static final char COMMA = ',';
+
+	/**
+	 * TSV格式的字段分隔符
+	 */
+	public static final char TAB = '\t';
+
+	/**
+	 * 字符输出缓存大小
+	 */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private static final char QUOTE = '"';
+
+	/**
+	 * sheet数据
+	 */
+	private List<SheetData> sheetDataList = new ArrayList<SheetData>();
+
+	/**
+	 * 把object值转换成字符串处理器
+	 */
+	private ValueProcesser valueProcesser = new MapValueProcesser();
+
+	/**
+	 * 字段分隔符，默认逗号
+	 */
+	private char delimiter = COMMA;
+
+	/**
+	 * 字符编码，默认UTF-8
+	 */
+	private Charset charset = StandardCharsets.UTF_8;
+
+	/**
+	 * 是否在开头写入BOM，默认false
+	 */
+	private boolean writeBom;
+
+	/**
+	 * 行结束符，默认\r\n
+	 */
+	private String lineSeparator = "\r\n";
+
+	/**
+	 * LocalDate值的格式
+	 */
+	private String dateFormat = "yyyy-MM-dd";
+
+	/**
+	 * Date、Calendar、LocalDateTime值的格式
+	 */
+	private String dateTimeFormat = "yyyy-MM-dd HH:mm:ss";
+
+	private DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern(dateFormat);
+
+	private DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern(dateTimeFormat);
+
+	/**
+	 * 写入时的字符输出流，不为null时表示已开始写入
+	 */
+	private Writer writer;
+
+	/**
+	 * 构造函数，字段分隔符为逗号
+	 */
+	public WriteCSVExcel() {
+	}
+
+	/**
+	 * 构造函数
+	 *
+	 * @param delimiter
+	 *            字段分隔符，写TSV格式时为{@link #TAB}
+	 * @throws IllegalArgumentException
+	 *             假如分隔符为双引号或换行符，则抛出该异常
+	 */
+	public WriteCSVExcel(char delimiter) {
+		setDelimiter(delimiter);
+	}
+
+	/**
+	 * 把数据写入输出流中，写完后不关闭输出流
+	 *
+	 * @param outputStream
+	 * @throws IOException
+	 *             假如数据写入失败时，抛出该异常
+	 * @throws NullPointerException
+	 *             假如参数为空，抛出该异常
+	 * @throws IllegalStateException
+	 *             假如已调用{@link #begin(OutputStream)}开始写入且还未结束，则抛出该异常
+	 */
+	@Override
+	public void write(OutputStream outputStream) throws IOException {
+		begin(outputStream);
+		finish();
+	}
+
+	/**
+	 * 写入指定名称的文件里
+	 *
+	 * @param fileName
+	 * @throws IOException
+	 * @throws NullPointerException
+	 *             假如参数为空，抛出该异常
+	 */
+	@Override
+	public void write(String fileName) throws IOException {
+		if (XLPStringUtil.isEmpty(fileName)) {
+			throw new NullPointerException("fileName param is null!");
+		}
+		write(new File(fileName));
+	}
+
+	/**
+	 * 写入指定名称的文件里
+	 *
+	 * @param csvFile
+	 * @throws IOException
+	 * @throws NullPointerException
+	 *             假如参数为空，抛出该异常
+	 * @throws IllegalArgumentException
+	 *             假如参数为文件夹，抛出该异常
+	 */
+	@Override
+	public void write(File csvFile) throws IOException {
+		if (csvFile == null) {
+			throw new NullPointerException("csvFile param is null!");
+		}
+
+		if (csvFile.exists() && csvFile.isDirectory()) {
+			throw new IllegalArgumentException("csvFile param is Illegal!");
+		}
+
+		File parent = csvFile.getParentFile();
+		if (!csvFile.exists() && parent != null) {
+			parent.mkdirs();
+		}
+
+		OutputStream outputStream = new FileOutputStream(csvFile);
+		try {
+			write(outputStream);
+		} finally {
+			XLPIOUtil.closeOutputStream(outputStream);
+		}
+	}
+
+	/**
+	 * 开始向输出流中边生成边写入数据，之后用{@link #appendRow(Object[])}逐行写入，最后调用{@link #finish()}结束
+	 *
+	 * @param outputStream
+	 * @throws IOException
+	 * @throws NullPointerException
+	 *             假如参数为空，抛出该异常
+	 * @throws IllegalStateException
+	 *             假如已开始写入且还未结束，则抛出该异常
+	 */
+	public void begin(OutputStream outputStream) throws IOException {
+		if (outputStream == null) {
+			throw new NullPointerException("outputStream param is null!");
+		}
+		if (writer != null) {
+			throw new IllegalStateException("已开始写入，请先调用finish函数结束写入！");
+		}
+		writer = new BufferedWriter(new OutputStreamWriter(outputStream, charset), BUFFER_SIZE);
+		if (writeBom) {
+			writer.write('\uFEFF');
+		}
+	}
+
+	/**
+	 * 写入一行数据
+	 *
+	 * @param data
+	 *            行数据，值为null时写入空行
+	 * @throws IOException
+	 * @throws IllegalStateException
+	 *             假如没有调用{@link #begin(OutputStream)}开始写入，则抛出该异常
+	 */
+	public void appendRow(Object[] data) throws IOException {
+		checkBegun();
+		if (data != null) {
+			for (int i = 0; i < data.length; i++) {
+				if (i > 0) {
+					writer.write(delimiter);
+				}
+				writeValue(data[i]);
+			}
+		}
+		writer.write(lineSeparator);
+	}
+
+	/**
+	 * 依次写入迭代器中的所有数据行
+	 *
+	 * @param rows
+	 * @throws IOException
+	 * @throws NullPointerException
+	 *             假如参数为null，则抛出该异常
+	 * @throws IllegalStateException
+	 *             假如没有调用{@link #begin(OutputStream)}开始写入，则抛出该异常
+	 */
+	public void appendRows(Iterator<Object[]> rows) throws IOException {
+		if (rows == null) {
+			throw new NullPointerException("rows param is null!");
+		}
+		while (rows.hasNext()) {
+			appendRow(rows.next());
+		}
+	}
+
+	/**
+	 * 写入{@link #getSheetDataList()}中的数据，结束写入，写完后不关闭输出流
+	 *
+	 * @throws IOException
+	 * @throws IllegalStateException
+	 *             假如没有调用{@link #begin(OutputStream)}开始写入，则抛出该异常
+	 */
+	public void finish() throws IOException {
+		checkBegun();
+		try {
+			for (SheetData sheetData : sheetDataList) {
+				if (sheetData == null) {
+					continue;
+				}
+				String[] titles = sheetData.getSheetTitles();
+				if (!XLPArrayUtil.isEmpty(titles)) {
+					appendRow(titles);
+				}
+				List<Object[]> dataList = sheetData.getSheetData();
+				if (dataList != null) {
+					for (Object[] data : dataList) {
+						appendRow(data);
+					}
+				}
+			}
+			writer.flush();
+		} finally {
+			writer = null;
+		}
+	}
+
+	/**
+	 * 检查是否已开始写入
+	 *
+	 * @throws IllegalStateException
+	 *             假如没有调用{@link #begin(OutputStream)}开始写入，则抛出该异常
+	 */
+	private void checkBegun() {
+		if (writer == null) {
+			throw new IllegalStateException("请先调用begin函数开始写入！");
+		}
+	}
+
+	/**
+	 * 写入一个字段值，null值不写入
+	 *
+	 * @param value
+	 * @throws IOException
+	 */
+	private void writeValue(Object value) throws IOException {
+		if (value == null) {
+			return;
+		}
+		String text;
+		if (value instanceof String) {
+			text = (String) value;
+		} else if (value instanceof BigDecimal) {
+			text = ((BigDecimal) value).toPlainString();
+		} else if (value instanceof Integer || value instanceof Long || value instanceof Short
+				|| value instanceof Byte || value instanceof BigInteger || value instanceof Boolean) {
+			text = value.toString();
+		} else if (value instanceof Double || value instanceof Float) {
+			double number = ((Number) value).doubleValue();
+			if (Double.isNaN(number) || Double.isInfinite(number)) {
+				text = value.toString();
+			} else {
+				// 不使用科学计数法，去掉多余的0
+				BigDecimal decimal = value instanceof Float ? new BigDecimal(value.toString())
+						: BigDecimal.valueOf(number);
+				text = decimal.stripTrailingZeros().toPlainString();
+			}
+		} else if (value instanceof Date) {
+			text = dateTimeFormatter.format(LocalDateTime.ofInstant(Instant.ofEpochMilli(((Date) value).getTime()),
+					ZoneId.systemDefault()));
+		} else if (value instanceof Calendar) {
+			Calendar calendar = (Calendar) value;
+			text = dateTimeFormatter.format(LocalDateTime.ofInstant(Instant.ofEpochMilli(calendar.getTimeInMillis()),
+					calendar.getTimeZone().toZoneId()));
+		} else if (value instanceof LocalDateTime) {
+			text = dateTimeFormatter.format((LocalDateTime) value);
+		} else if (value instanceof LocalDate) {
+			text = dateFormatter.format((LocalDate) value);
+		} else {
+			text = (String) valueProcesser.processValue(String.class, value);
+		}
+		if (text != null) {
+			writeText(text);
+		}
+	}
+
+	/**
+	 * 写入文本，含分隔符、双引号或换行符时用双引号包围
+	 *
+	 * @param text
+	 * @throws IOException
+	 */
+	private void writeText(String text) throws IOException {
+		int len = text.length();
+		boolean needQuote = false;
+		for (int i = 0; i < len; i++) {
+			char c = text.charAt(i);
+			if (c == delimiter || c == QUOTE || c == '\r' || c == '\n') {
+				needQuote = true;
+				break;
+			}
+		}
+		if (!needQuote) {
+			writer.write(text);
+			return;
+		}
+		writer.write(QUOTE);
+		int start = 0;
+		for (int i = 0; i < len; i++) {
+			if (text.charAt(i) == QUOTE) {
+				writer.write(text, start, i + 1 - start);
+				writer.write(QUOTE);
+				start = i + 1;
+			}
+		}
+		if (len > start) {
+			writer.write(text, start, len - start);
+		}
+		writer.write(QUOTE);
+	}
+
+	/**
+	 * 要写入的数据
+	 *
+	 * @param titles
+	 *            表头，值为null时不写表头
+	 * @param dataList
+	 *            要写入的数据
+	 */
+	public void addExcelData(String[] titles, List<Object[]> dataList) {
+		SheetData sheetData = new SheetData();
+		sheetData.setSheetData(dataList);
+		sheetData.setSheetTitles(titles);
+		sheetDataList.add(sheetData);
+	}
+
+	public void addExcelData(SheetData sheetData) {
+		if (sheetData != null) {
+			this.sheetDataList.add(sheetData);
+		}
+	}
+
+	public List<SheetData> getSheetDataList() {
+		return sheetDataList;
+	}
+
+	public void setSheetDataList(List<SheetData> sheetDataList) {
+		if (sheetDataList != null) {
+			this.sheetDataList = sheetDataList;
+		}
+	}
+
+	public ValueProcesser getValueProcesser() {
+		return valueProcesser;
+	}
+
+	public void setValueProcesser(ValueProcesser valueProcesser) {
+		if (valueProcesser != null) {
+			this.valueProcesser = valueProcesser;
+		}
+	}
+
+	public char getDelimiter() {
+		return delimiter;
+	}
+
+	/**
+	 * 设置字段分隔符，默认{@link #COMMA}，写TSV格式时设置为{@link #TAB}
+	 *
+	 * @param delimiter
+	 * @throws IllegalArgumentException
+	 *             假如分隔符为双引号或换行符，则抛出该异常
+	 */
+	public void setDelimiter(char delimiter) {
+		if (delimiter == QUOTE || delimiter == '\r' || delimiter == '\n') {
+			throw new IllegalArgumentException("分隔符不能是双引号或换行符！");
+		}
+		this.delimiter = delimiter;
+	}
+
+	public Charset getCharset() {
+		return charset;
+	}
+
+	/**
+	 * 设置字符编码，默认UTF-8
+	 *
+	 * @param charset
+	 */
+	public void setCharset(Charset charset) {
+		if (charset != null) {
+			this.charset = charset;
+		}
+	}
+
+	public boolean isWriteBom() {
+		return writeBom;
+	}
+
+	/**
+	 * 设置是否在开头写入BOM，用excel直接打开UTF-8编码的CSV文件时需要BOM才能正确识别中文
+	 *
+	 * @param writeBom
+	 */
+	public void setWriteBom(boolean writeBom) {
+		this.writeBom = writeBom;
+	}
+
+	public String getLineSeparator() {
+		return lineSeparator;
+	}
+
+	/**
+	 * 设置行结束符，默认\r\n
+	 *
+	 * @param lineSeparator
+	 */
+	public void setLineSeparator(String lineSeparator) {
+		if (!XLPStringUtil.isEmpty(lineSeparator)) {
+			this.lineSeparator = lineSeparator;
+		}
+	}
+
+	public String getDateFormat() {
+		return dateFormat;
+	}
+
+	/**
+	 * 设置LocalDate值的格式，默认"yyyy-MM-dd"
+	 *
+	 * @param dateFormat
+	 *            {@link DateTimeFormatter}格式
+	 * @throws IllegalArgumentException
+	 *             假如格式不合法，则抛出该异常
+	 */
+	public void setDateFormat(String dateFormat) {
+		if (!XLPStringUtil.isEmpty(dateFormat)) {
+			this.dateFormatter = DateTimeFormatter.ofPattern(dateFormat);
+			this.dateFormat = dateFormat;
+		}
+	}
+
+	public String getDateTimeFormat() {
+		return dateTimeFormat;
+	}
+
+	/**
+	 * 设置Date、Calendar、LocalDateTime值的格式，默认"yyyy-MM-dd HH:mm:ss"
+	 *
+	 * @param dateTimeFormat
+	 *            {@link DateTimeFormatter}格式
+	 * @throws IllegalArgumentException
+	 *             假如格式不合法，则抛出该异常
+	 */
+	public void setDateTimeFormat(String dateTimeFormat) {
+		if (!XLPStringUtil.isEmpty(dateTimeFormat)) {
+			this.dateTimeFormatter = DateTimeFormatter.ofPattern(dateTimeFormat);
+			this.dateTimeFormat = dateTimeFormat;
+		}
+	}
+}
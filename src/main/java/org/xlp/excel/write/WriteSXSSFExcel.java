@@ -0,0 +1,127 @@
+package org.xlp.excel.write;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.xlp.utils.io.XLPIOUtil;
+
+/**
+ * 流式写xlsx格式excel
+ * <p>
+ * 使用{@link SXSSFWorkbook}，内存中只保留最近写入的若干行（行窗口），超出窗口的行写入临时文件，
+ * 写大量数据时内存占用不随行数增长；超出窗口的行不能再修改
+ * </p>
+ * <p>
+ * 写完后会删除临时文件，不自动关闭资源时需调用{@link #close()}删除临时文件
+ * </p>
+ * <p>
+ * 字符串以内联方式写入，各sheet页的数据行写入各自的临时文件，所以支持{@link #setParallelWrite(boolean)}并行写入
+ * </p>
+ *
+ * @author xlp
+ */
+public class WriteSXSSFExcel extends AbstractWriteExcel {
+	/**
+	 * 默认行窗口大小
+	 */
+	public static final int DEFAULT_ROW_ACCESS_WINDOW_SIZE = SXSSFWorkbook.DEFAULT_WINDOW_SIZE;
+
+	/**
+	 * 构造函数，行窗口大小为{@link #DEFAULT_ROW_ACCESS_WINDOW_SIZE}，临时文件不压缩
+	 */
+	public WriteSXSSFExcel() {
+		this(DEFAULT_ROW_ACCESS_WINDOW_SIZE);
+	}
+
+	/**
+	 * 构造函数，临时文件不压缩
+	 *
+	 * @param rowAccessWindowSize
+	 *            内存中保留的行数，值为-1时不限制行数，即所有行都保留在内存中
+	 * @throws IllegalArgumentException
+	 *             假如参数为0或小于-1，则抛出该异常
+	 */
+	public WriteSXSSFExcel(int rowAccessWindowSize) {
+		this(rowAccessWindowSize, false);
+	}
+
+	/**
+	 * 构造函数
+	 *
+	 * @param rowAccessWindowSize
+	 *            内存中保留的行数，值为-1时不限制行数，即所有行都保留在内存中
+	 * @param compressTmpFiles
+	 *            是否用gzip压缩临时文件，压缩后临时文件占用磁盘少，但写入速度变慢
+	 * @throws IllegalArgumentException
+	 *             假如rowAccessWindowSize参数为0或小于-1，则抛出该异常
+	 */
+	public WriteSXSSFExcel(int rowAccessWindowSize, boolean compressTmpFiles) {
+		if (rowAccessWindowSize == 0 || rowAccessWindowSize < -1) {
+			throw new IllegalArgumentException("行窗口大小必须大于0或等于-1！");
+		}
+		this.workbook = new SXSSFWorkbook(null, rowAccessWindowSize, compressTmpFiles);
+	}
+
+	/**
+	 * 写入指定名称的文件里
+	 *
+	 * @param excelFile
+	 * @throws IOException
+	 * @throws NullPointerException
+	 *             假如参数为空，抛出该异常
+	 * @throws IllegalArgumentException
+	 *             假如参数为文件夹或文件格式不是以.xlsx结尾，抛出该异常
+	 */
+	@Override
+	public void write(File excelFile) throws IOException {
+		if (excelFile == null) {
+			throw new NullPointerException("excelFile param is null!");
+		}
+
+		if (excelFile.exists() && excelFile.isDirectory()) {
+			throw new IllegalArgumentException("excelFile param is Illegal!");
+		}
+
+		if (!excelFile.getName().toLowerCase().endsWith(ExcelType.XLSX.getSuffix())) {
+			throw new IllegalArgumentException("文件格式必须以" + ExcelType.XLSX.getSuffix() + "结尾！");
+		}
+
+		if (!excelFile.exists()) {
+			excelFile.getParentFile().mkdirs();
+		}
+
+		OutputStream outputStream = new FileOutputStream(excelFile);
+		try {
+			write(outputStream);
+		} finally {
+			XLPIOUtil.closeOutputStream(outputStream);
+		}
+	}
+
+	/**
+	 * 各sheet页的数据行写入各自的临时文件，互不影响，支持并行写入
+	 * 
+	 * @return
+	 */
+	@Override
+	protected boolean supportsParallelWrite() {
+		return true;
+	}
+
+	/**
+	 * 删除临时文件并释放workbook资源
+	 *
+	 * @throws IOException
+	 *             假如释放workbook资源失败，则抛出该异常
+	 */
+	@Override
+	public void close() throws IOException {
+		if (workbook != null) {
+			((SXSSFWorkbook) workbook).dispose();
+		}
+		super.close();
+	}
+}
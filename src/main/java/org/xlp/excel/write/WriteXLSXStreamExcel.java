@@ -0,0 +1,1263 @@
+package org.xlp.excel.write;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.ss.util.WorkbookUtil;
+import org.xlp.excel.read.SheetData;
+import org.xlp.javabean.convert.mapandbean.MapValueProcesser;
+import org.xlp.javabean.processer.ValueProcesser;
+import org.xlp.utils.XLPArrayUtil;
+import org.xlp.utils.XLPStringUtil;
+import org.xlp.utils.io.XLPIOUtil;
+
+/**
+ * 直接生成xlsx文件内容的轻量级写excel类
+ * <p>
+ * 不使用POI的对象模型，写入时直接把sheet页xml、共享字符串等内容依次写入{@link ZipOutputStream}，
+ * 只在内存中保留共享字符串表（使用内联字符串时也不保留），适合只需表头加粗、数据量大的普通表格导出
+ * </p>
+ * <p>
+ * 数字、布尔及日期值以原生类型写入，其他值经{@link #getValueProcesser()}转换成字符串写入，null值不写入；
+ * sheet名称相同的{@link SheetData}写入同一sheet页；支持隐藏列、固定行列及统一列宽，不支持sheet页保护
+ * </p>
+ * <p>
+ * 也可用{@link #begin(OutputStream)}、{@link #beginSheet(String, String[])}、{@link #appendRow(Object[])}、
+ * {@link #finish()}边生成数据边写入输出流，适合HTTP下载等需要尽早输出数据的场景
+ * </p>
+ *
+ * @author xlp
+ */
+public class WriteXLSXStreamExcel implements WriteExcel {
+	/**
+	 * xlsx最大行数
+	 */
+	public static final int MAX_ROWS = 1048576;
+
+	/**
+	 * xlsx最大列数
+	 */
+	public static final int MAX_COLUMNS = 16384;
+
+	/**
+	 * xlsx中cell文本的最大长度
+	 */
+	public static final int MAX_TEXT_LENGTH = 32767;
+
+	/**
+	 * 样式序号
+	 */
+	private static final int HEAD_STYLE = 1;
+	private static final int DATE_TIME_STYLE = 2;
+	private static final int DATE_STYLE = 3;
+
+	/**
+	 * 默认字符及字节缓存大小
+	 */
+	public static final int BUFFER_SIZE = 64 * 1024;
+
+	private static final String XML_HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+
+	private static final String MAIN_NAMESPACE = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+
+	private static final String RELATIONSHIP_NAMESPACE = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+
+	private static final String PACKAGE_RELATIONSHIP_NAMESPACE = "http://schemas.openxmlformats.org/package/2006/relationships";
+
+	private static final String CONTENT_TYPE_PREFIX = "application/vnd.openxmlformats-officedocument.spreadsheetml.";
+
+	/**
+	 * sheet数据
+	 */
+	private List<SheetData> sheetDataList = new ArrayList<SheetData>();
+
+	/**
+	 * 把object值转换成字符串处理器
+	 */
+	private ValueProcesser valueProcesser = new MapValueProcesser();
+
+	/**
+	 * 是否使用共享字符串表，默认true；值为false时字符串以内联方式写入
+	 */
+	private boolean useSharedStrings = true;
+
+	/**
+	 * zip压缩级别
+	 */
+	private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+	/**
+	 * sheet 表格的宽度
+	 */
+	private int cellWidth;
+
+	/**
+	 * LocalDate值的格式
+	 */
+	private String dateFormat = "yyyy-mm-dd";
+
+	/**
+	 * Date、Calendar、LocalDateTime值的格式
+	 */
+	private String dateTimeFormat = "yyyy-mm-dd hh:mm:ss";
+
+	/**
+	 * 写入时的字符及字节缓存大小
+	 */
+	private int bufferSize = BUFFER_SIZE;
+
+	/**
+	 * 每写入多少行把已缓存的数据刷新到输出流，值小于等于0时只在sheet页结束时刷新
+	 */
+	private int flushRows;
+
+	/**
+	 * 写入时的字符输出流，不为null时表示已开始写入
+	 */
+	private Writer writer;
+
+	/**
+	 * 写入时的zip输出流
+	 */
+	private ZipOutputStream zipOutputStream;
+
+	/**
+	 * 写入时带缓存的目标输出流
+	 */
+	private OutputStream outputStream;
+
+	/**
+	 * 已写入的sheet名称
+	 */
+	private List<String> writtenSheetNames;
+
+	/**
+	 * 是否有正在写入的sheet页
+	 */
+	private boolean inSheet;
+
+	/**
+	 * 正在写入的sheet页已写入的行数
+	 */
+	private int rowIndex;
+
+	/**
+	 * 共享字符串及其序号
+	 */
+	private Map<String, Integer> sharedStringIndexes;
+
+	/**
+	 * 共享字符串，按序号排列
+	 */
+	private List<String> sharedStrings;
+
+	/**
+	 * 使用共享字符串的cell个数
+	 */
+	private int sharedStringCount;
+
+	/**
+	 * 列名称缓存，如A、B...
+	 */
+	private String[] columnNames = new String[0];
+
+	/**
+	 * 把数据写入excel输出流中，写完后不关闭输出流
+	 *
+	 * @param outputStream
+	 * @throws IOException
+	 *             假如数据写入失败时，抛出该异常
+	 * @throws NullPointerException
+	 *             假如参数为空，抛出该异常
+	 * @throws IllegalArgumentException
+	 *             假如sheet名称不合法或行列数、cell文本长度超出xlsx的限制，则抛出该异常
+	 * @throws IllegalStateException
+	 *             假如已调用{@link #begin(OutputStream)}开始写入且还未结束，则抛出该异常
+	 */
+	@Override
+	public void write(OutputStream outputStream) throws IOException {
+		begin(outputStream);
+		finish();
+	}
+
+	/**
+	 * 开始向输出流中边生成边写入excel，之后用{@link #beginSheet(String, String[])}、
+	 * {@link #appendRow(Object[])}、{@link #endSheet()}逐个sheet页逐行写入，最后调用{@link #finish()}结束
+	 * <p>
+	 * 数据行生成后立即写入输出流，不必等整个excel生成完，适合向HTTP响应输出流写入大量数据：
+	 * 内存中只缓存{@link #setBufferSize(int)}大小的数据，输出流写入阻塞（如客户端接收较慢）时，写入数据行的调用也随之阻塞；
+	 * 可用{@link #setFlushRows(int)}设置每写入多少行刷新一次输出流
+	 * </p>
+	 * <p>
+	 * 写入过程中抛出异常时，输出流中的数据不完整，应放弃该次写入，不再使用该对象
+	 * </p>
+	 *
+	 * @param outputStream
+	 * @throws IOException
+	 * @throws NullPointerException
+	 *             假如参数为空，抛出该异常
+	 * @throws IllegalStateException
+	 *             假如已开始写入且还未结束，则抛出该异常
+	 */
+	public void begin(OutputStream outputStream) throws IOException {
+		if (outputStream == null) {
+			throw new NullPointerException("outputStream param is null!");
+		}
+		if (writer != null) {
+			throw new IllegalStateException("已开始写入excel，请先调用finish函数结束写入！");
+		}
+		this.outputStream = new BufferedOutputStream(outputStream, bufferSize);
+		zipOutputStream = new ZipOutputStream(this.outputStream);
+		zipOutputStream.setLevel(compressionLevel);
+		writer = new BufferedWriter(new OutputStreamWriter(zipOutputStream, StandardCharsets.UTF_8), bufferSize);
+		writtenSheetNames = new ArrayList<String>();
+		if (useSharedStrings) {
+			sharedStringIndexes = new HashMap<String, Integer>();
+			sharedStrings = new ArrayList<String>();
+			sharedStringCount = 0;
+		}
+	}
+
+	/**
+	 * 开始写入一个sheet页，如有正在写入的sheet页，则先结束该sheet页
+	 *
+	 * @param sheetName
+	 *            sheet页名称，值为null时，使用默认名称
+	 * @param titles
+	 *            sheet的表头，值为null时不写表头
+	 * @throws IOException
+	 * @throws IllegalArgumentException
+	 *             假如sheet名称不合法、与已写入的sheet页重名或表头文本长度超出xlsx的限制，则抛出该异常
+	 * @throws IllegalStateException
+	 *             假如没有调用{@link #begin(OutputStream)}开始写入，则抛出该异常
+	 */
+	public void beginSheet(String sheetName, String[] titles) throws IOException {
+		SheetData sheetData = new SheetData();
+		sheetData.setSheetTitles(titles);
+		sheetData.setSheetName(sheetName);
+		beginSheet(sheetData);
+	}
+
+	/**
+	 * 开始写入一个sheet页，sheet页名称、表头、隐藏列、固定行列等信息从给定的对象中获取，
+	 * 该对象中已有的数据行会先写入；如有正在写入的sheet页，则先结束该sheet页
+	 *
+	 * @param sheetData
+	 * @throws IOException
+	 * @throws NullPointerException
+	 *             假如参数为null，则抛出该异常
+	 * @throws IllegalArgumentException
+	 *             假如sheet名称不合法、与已写入的sheet页重名或行列数、cell文本长度超出xlsx的限制，则抛出该异常
+	 * @throws IllegalStateException
+	 *             假如没有调用{@link #begin(OutputStream)}开始写入，则抛出该异常
+	 */
+	public void beginSheet(SheetData sheetData) throws IOException {
+		if (sheetData == null) {
+			throw new NullPointerException("sheetData param is null!");
+		}
+		checkBegun();
+		endSheet();
+		String sheetName = sheetData.getSheetName();
+		if (XLPStringUtil.isEmpty(sheetName)) {
+			sheetName = defaultSheetName(writtenSheetNames);
+		} else {
+			WorkbookUtil.validateSheetName(sheetName);
+			if (containsIgnoreCase(writtenSheetNames, sheetName)) {
+				throw new IllegalArgumentException("sheet名称" + sheetName + "已存在！");
+			}
+		}
+		List<SheetData> sheetDatas = new ArrayList<SheetData>(1);
+		sheetDatas.add(sheetData);
+		writtenSheetNames.add(sheetName);
+		startSheet(writtenSheetNames.size(), sheetDatas);
+		writeSheetRows(sheetDatas);
+		inSheet = true;
+	}
+
+	/**
+	 * 向正在写入的sheet页追加一行数据
+	 *
+	 * @param data
+	 *            行数据，值为null时写入空行
+	 * @throws IOException
+	 * @throws IllegalArgumentException
+	 *             假如行列数或cell文本长度超出xlsx的限制，则抛出该异常
+	 * @throws IllegalStateException
+	 *             假如没有调用{@link #beginSheet(SheetData)}开始写入sheet页，则抛出该异常
+	 */
+	public void appendRow(Object[] data) throws IOException {
+		if (!inSheet) {
+			throw new IllegalStateException("请先调用beginSheet函数开始写入sheet页！");
+		}
+		writeRow(data, false);
+	}
+
+	/**
+	 * 向正在写入的sheet页依次追加迭代器中的所有数据行
+	 *
+	 * @param rows
+	 * @throws IOException
+	 * @throws NullPointerException
+	 *             假如参数为null，则抛出该异常
+	 * @throws IllegalStateException
+	 *             假如没有调用{@link #beginSheet(SheetData)}开始写入sheet页，则抛出该异常
+	 */
+	public void appendRows(Iterator<Object[]> rows) throws IOException {
+		if (rows == null) {
+			throw new NullPointerException("rows param is null!");
+		}
+		while (rows.hasNext()) {
+			appendRow(rows.next());
+		}
+	}
+
+	/**
+	 * 结束正在写入的sheet页，并把已缓存的数据刷新到输出流；没有正在写入的sheet页时不做任何处理
+	 *
+	 * @throws IOException
+	 */
+	public void endSheet() throws IOException {
+		if (inSheet) {
+			inSheet = false;
+			endSheetEntry();
+		}
+	}
+
+	/**
+	 * 结束正在写入的sheet页，写入{@link #getSheetDataList()}中的数据及共享字符串、样式等信息，结束写入，
+	 * 写完后不关闭输出流
+	 *
+	 * @throws IOException
+	 * @throws IllegalArgumentException
+	 *             假如sheet名称不合法、与已写入的sheet页重名或行列数、cell文本长度超出xlsx的限制，则抛出该异常
+	 * @throws IllegalStateException
+	 *             假如没有调用{@link #begin(OutputStream)}开始写入，则抛出该异常
+	 */
+	public void finish() throws IOException {
+		checkBegun();
+		try {
+			endSheet();
+			List<String> sheetNames = new ArrayList<String>();
+			List<List<SheetData>> sheets = groupSheetDatas(sheetNames);
+			for (int i = 0, size = sheets.size(); i < size; i++) {
+				writtenSheetNames.add(sheetNames.get(i));
+				startSheet(writtenSheetNames.size(), sheets.get(i));
+				writeSheetRows(sheets.get(i));
+				endSheetEntry();
+			}
+			if (writtenSheetNames.isEmpty()) {
+				// xlsx文件至少要有一个sheet页
+				writtenSheetNames.add("Sheet1");
+				startSheet(1, new ArrayList<SheetData>());
+				endSheetEntry();
+			}
+			if (useSharedStrings) {
+				writeSharedStrings(zipOutputStream);
+			}
+			writeStyles(zipOutputStream);
+			writeWorkbook(zipOutputStream, writtenSheetNames);
+			writeRelationships(zipOutputStream, writtenSheetNames.size());
+			writeContentTypes(zipOutputStream, writtenSheetNames.size());
+			zipOutputStream.finish();
+			outputStream.flush();
+		} finally {
+			writer = null;
+			zipOutputStream = null;
+			outputStream = null;
+			writtenSheetNames = null;
+			inSheet = false;
+			sharedStringIndexes = null;
+			sharedStrings = null;
+		}
+	}
+
+	/**
+	 * 检查是否已开始写入
+	 *
+	 * @throws IllegalStateException
+	 *             假如没有调用{@link #begin(OutputStream)}开始写入，则抛出该异常
+	 */
+	private void checkBegun() {
+		if (writer == null) {
+			throw new IllegalStateException("请先调用begin函数开始写入excel！");
+		}
+	}
+
+	/**
+	 * 写入指定名称的文件里
+	 *
+	 * @param fileName
+	 * @throws IOException
+	 * @throws NullPointerException
+	 *             假如参数为空，抛出该异常
+	 */
+	@Override
+	public void write(String fileName) throws IOException {
+		if (XLPStringUtil.isEmpty(fileName)) {
+			throw new NullPointerException("fileName param is null!");
+		}
+		write(new File(fileName));
+	}
+
+	/**
+	 * 写入指定名称的文件里
+	 *
+	 * @param excelFile
+	 * @throws IOException
+	 * @throws NullPointerException
+	 *             假如参数为空，抛出该异常
+	 * @throws IllegalArgumentException
+	 *             假如参数为文件夹或文件格式不是以.xlsx结尾，抛出该异常
+	 */
+	@Override
+	public void write(File excelFile) throws IOException {
+		if (excelFile == null) {
+			throw new NullPointerException("excelFile param is null!");
+		}
+
+		if (excelFile.exists() && excelFile.isDirectory()) {
+			throw new IllegalArgumentException("excelFile param is Illegal!");
+		}
+
+		if (!excelFile.getName().toLowerCase().endsWith(ExcelType.XLSX.getSuffix())) {
+			throw new IllegalArgumentException("文件格式必须以" + ExcelType.XLSX.getSuffix() + "结尾！");
+		}
+
+		if (!excelFile.exists()) {
+			excelFile.getParentFile().mkdirs();
+		}
+
+		OutputStream outputStream = new FileOutputStream(excelFile);
+		try {
+			write(outputStream);
+		} finally {
+			XLPIOUtil.closeOutputStream(outputStream);
+		}
+	}
+
+	/**
+	 * 按sheet名称分组，名称为空的sheet数据使用默认名称，名称不区分大小写
+	 *
+	 * @param sheetNames
+	 *            用来保存各分组写入的sheet名称
+	 * @return 各sheet页的数据
+	 * @throws IllegalArgumentException
+	 *             假如sheet名称不合法，则抛出该异常
+	 */
+	private List<List<SheetData>> groupSheetDatas(List<String> sheetNames) {
+		for (SheetData sheetData : sheetDataList) {
+			if (sheetData != null && !XLPStringUtil.isEmpty(sheetData.getSheetName())) {
+				WorkbookUtil.validateSheetName(sheetData.getSheetName());
+				if (containsIgnoreCase(writtenSheetNames, sheetData.getSheetName())) {
+					throw new IllegalArgumentException("sheet名称" + sheetData.getSheetName() + "已存在！");
+				}
+			}
+		}
+		// key为大写的sheet名称
+		Map<String, List<SheetData>> sheets = new LinkedHashMap<String, List<SheetData>>();
+		int defaultNo = 0;
+		for (SheetData sheetData : sheetDataList) {
+			if (sheetData == null) {
+				continue;
+			}
+			String sheetName = sheetData.getSheetName();
+			if (XLPStringUtil.isEmpty(sheetName)) {
+				do {
+					sheetName = "Sheet" + (++defaultNo);
+				} while (sheets.containsKey(sheetName.toUpperCase(Locale.ROOT)) || containsSheetName(sheetName)
+						|| containsIgnoreCase(writtenSheetNames, sheetName));
+			}
+			String key = sheetName.toUpperCase(Locale.ROOT);
+			List<SheetData> sheetDatas = sheets.get(key);
+			if (sheetDatas == null) {
+				sheetDatas = new ArrayList<SheetData>();
+				sheets.put(key, sheetDatas);
+				sheetNames.add(sheetName);
+			}
+			sheetDatas.add(sheetData);
+		}
+		return new ArrayList<List<SheetData>>(sheets.values());
+	}
+
+	/**
+	 * 判断sheet数据中是否已有给定的sheet名称
+	 *
+	 * @param sheetName
+	 * @return
+	 */
+	private boolean containsSheetName(String sheetName) {
+		for (SheetData sheetData : sheetDataList) {
+			if (sheetData != null && sheetName.equalsIgnoreCase(sheetData.getSheetName())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 判断名称集合中是否有给定的名称，不区分大小写
+	 *
+	 * @param names
+	 * @param name
+	 * @return
+	 */
+	private static boolean containsIgnoreCase(List<String> names, String name) {
+		for (String item : names) {
+			if (item.equalsIgnoreCase(name)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 获取未使用的默认sheet名称，如Sheet1、Sheet2...
+	 *
+	 * @param usedNames
+	 *            已使用的sheet名称
+	 * @return
+	 */
+	private String defaultSheetName(List<String> usedNames) {
+		String sheetName;
+		int defaultNo = 0;
+		do {
+			sheetName = "Sheet" + (++defaultNo);
+		} while (containsIgnoreCase(usedNames, sheetName) || containsSheetName(sheetName));
+		return sheetName;
+	}
+
+	/**
+	 * 开始写入一个sheet页，写入sheet页的固定行列、列宽等信息
+	 *
+	 * @param sheetNo
+	 *            sheet页序号，从1开始
+	 * @param sheetDatas
+	 *            写入该sheet页的数据
+	 * @throws IOException
+	 */
+	private void startSheet(int sheetNo, List<SheetData> sheetDatas) throws IOException {
+		zipOutputStream.putNextEntry(new ZipEntry("xl/worksheets/sheet" + sheetNo + ".xml"));
+		TreeSet<Integer> hideCols = new TreeSet<Integer>();
+		int fixedRows = 0;
+		int fixedCols = 0;
+		for (SheetData sheetData : sheetDatas) {
+			hideCols.addAll(sheetData.getHideColIndexs());
+			if (sheetData.getFixedRows() > 0 || sheetData.getFixedCols() > 0) {
+				fixedRows = sheetData.getFixedRows();
+				fixedCols = sheetData.getFixedCols();
+			}
+		}
+		writer.write(XML_HEADER);
+		writer.write("<worksheet xmlns=\"" + MAIN_NAMESPACE + "\">");
+		writeSheetView(fixedRows, fixedCols);
+		writeCols(hideCols);
+		writer.write("<sheetData>");
+		rowIndex = 0;
+	}
+
+	/**
+	 * 写入sheet数据的表头及数据行
+	 *
+	 * @param sheetDatas
+	 * @throws IOException
+	 */
+	private void writeSheetRows(List<SheetData> sheetDatas) throws IOException {
+		for (SheetData sheetData : sheetDatas) {
+			String[] titles = sheetData.getSheetTitles();
+			if (!XLPArrayUtil.isEmpty(titles)) {
+				writeRow(titles, true);
+			}
+			List<Object[]> dataList = sheetData.getSheetData();
+			if (dataList != null) {
+				for (Object[] data : dataList) {
+					writeRow(data, false);
+				}
+			}
+		}
+	}
+
+	/**
+	 * 结束正在写入的sheet页，并把已缓存的数据刷新到输出流
+	 *
+	 * @throws IOException
+	 */
+	private void endSheetEntry() throws IOException {
+		writer.write("</sheetData></worksheet>");
+		writer.flush();
+		zipOutputStream.closeEntry();
+		outputStream.flush();
+	}
+
+	/**
+	 * 写入固定行列信息
+	 *
+	 * @param fixedRows
+	 * @param fixedCols
+	 * @throws IOException
+	 */
+	private void writeSheetView(int fixedRows, int fixedCols) throws IOException {
+		if (fixedRows <= 0 && fixedCols <= 0) {
+			return;
+		}
+		writer.write("<sheetViews><sheetView workbookViewId=\"0\"><pane");
+		if (fixedCols > 0) {
+			writer.write(" xSplit=\"" + fixedCols + "\"");
+		}
+		if (fixedRows > 0) {
+			writer.write(" ySplit=\"" + fixedRows + "\"");
+		}
+		String activePane = fixedRows > 0 ? (fixedCols > 0 ? "bottomRight" : "bottomLeft") : "topRight";
+		writer.write(" topLeftCell=\"" + columnName(Math.max(fixedCols, 0)) + (Math.max(fixedRows, 0) + 1)
+				+ "\" activePane=\"" + activePane + "\" state=\"frozen\"/></sheetView></sheetViews>");
+	}
+
+	/**
+	 * 写入列宽及隐藏列信息
+	 *
+	 * @param hideCols
+	 *            隐藏列序号，从0开始
+	 * @throws IOException
+	 */
+	private void writeCols(TreeSet<Integer> hideCols) throws IOException {
+		if (cellWidth <= 0 && hideCols.isEmpty()) {
+			return;
+		}
+		writer.write("<cols>");
+		int next = 0;
+		for (int hideCol : hideCols) {
+			if (hideCol < 0 || hideCol >= MAX_COLUMNS) {
+				continue;
+			}
+			if (cellWidth > 0 && hideCol > next) {
+				writeCol(next, hideCol - 1, false);
+			}
+			writeCol(hideCol, hideCol, true);
+			next = hideCol + 1;
+		}
+		if (cellWidth > 0 && next < MAX_COLUMNS) {
+			writeCol(next, MAX_COLUMNS - 1, false);
+		}
+		writer.write("</cols>");
+	}
+
+	/**
+	 * 写入一个列范围的信息
+	 *
+	 * @param fromColumn
+	 * @param toColumn
+	 * @param hidden
+	 * @throws IOException
+	 */
+	private void writeCol(int fromColumn, int toColumn, boolean hidden) throws IOException {
+		writer.write("<col min=\"" + (fromColumn + 1) + "\" max=\"" + (toColumn + 1) + "\"");
+		if (cellWidth > 0) {
+			writer.write(" width=\"" + cellWidth + "\" customWidth=\"1\"");
+		}
+		if (hidden) {
+			writer.write(" hidden=\"1\"");
+		}
+		writer.write("/>");
+	}
+
+	/**
+	 * 在正在写入的sheet页中写入一行数据，每写入{@link #getFlushRows()}行把已缓存的数据刷新到输出流
+	 *
+	 * @param data
+	 * @param head
+	 *            是否是表头
+	 * @throws IOException
+	 * @throws IllegalArgumentException
+	 *             假如行列数或cell文本长度超出xlsx的限制，则抛出该异常
+	 */
+	private void writeRow(Object[] data, boolean head) throws IOException {
+		if (rowIndex >= MAX_ROWS) {
+			throw new IllegalArgumentException("sheet页行数超出xlsx最大行数" + MAX_ROWS + "！");
+		}
+		String rowNo = String.valueOf(++rowIndex);
+		writer.write("<row r=\"");
+		writer.write(rowNo);
+		writer.write("\">");
+		if (data != null) {
+			if (data.length > MAX_COLUMNS) {
+				throw new IllegalArgumentException("sheet页列数超出xlsx最大列数" + MAX_COLUMNS + "！");
+			}
+			for (int i = 0; i < data.length; i++) {
+				writeCell(i, rowNo, data[i], head);
+			}
+		}
+		writer.write("</row>");
+		if (flushRows > 0 && rowIndex % flushRows == 0) {
+			writer.flush();
+			zipOutputStream.flush();
+		}
+	}
+
+	/**
+	 * 写入一个cell，null值及空字符串不写入
+	 *
+	 * @param column
+	 *            列索引值
+	 * @param rowNo
+	 *            行号
+	 * @param value
+	 * @param head
+	 *            是否是表头
+	 * @throws IOException
+	 */
+	private void writeCell(int column, String rowNo, Object value, boolean head) throws IOException {
+		if (value == null) {
+			return;
+		}
+		if (head) {
+			writeStringCell(column, rowNo, HEAD_STYLE, value.toString());
+		} else if (value instanceof String) {
+			writeStringCell(column, rowNo, 0, XLPStringUtil.emptyTrim((String) value));
+		} else if (value instanceof Number && !AbstractWriteExcel.isExactDouble((Number) value)) {
+			// 不能用double精确表示的数字按字符串写入，避免excel打开时丢失精度
+			String text = (String) valueProcesser.processValue(String.class, value);
+			writeStringCell(column, rowNo, 0, XLPStringUtil.emptyTrim(text));
+		} else if (value instanceof Integer || value instanceof Long || value instanceof Short
+				|| value instanceof Byte || value instanceof BigInteger || value instanceof BigDecimal) {
+			writeValueCell(column, rowNo, 0, null, value.toString());
+		} else if (value instanceof Number) {
+			double number = ((Number) value).doubleValue();
+			if (Double.isNaN(number) || Double.isInfinite(number)) {
+				writeStringCell(column, rowNo, 0, value.toString());
+			} else {
+				writeValueCell(column, rowNo, 0, null, Double.toString(number));
+			}
+		} else if (value instanceof Boolean) {
+			writeValueCell(column, rowNo, 0, "b", ((Boolean) value).booleanValue() ? "1" : "0");
+		} else if (value instanceof Date) {
+			writeDateCell(column, rowNo, DATE_TIME_STYLE, DateUtil.getExcelDate((Date) value), value);
+		} else if (value instanceof Calendar) {
+			writeDateCell(column, rowNo, DATE_TIME_STYLE, DateUtil.getExcelDate((Calendar) value, false), value);
+		} else if (value instanceof LocalDateTime) {
+			writeDateCell(column, rowNo, DATE_TIME_STYLE, DateUtil.getExcelDate((LocalDateTime) value), value);
+		} else if (value instanceof LocalDate) {
+			writeDateCell(column, rowNo, DATE_STYLE, DateUtil.getExcelDate((LocalDate) value), value);
+		} else {
+			String text = (String) valueProcesser.processValue(String.class, value);
+			writeStringCell(column, rowNo, 0, XLPStringUtil.emptyTrim(text));
+		}
+	}
+
+	/**
+	 * 写入日期cell，excel不支持的日期（1900年以前）按字符串写入
+	 *
+	 * @param column
+	 * @param rowNo
+	 * @param style
+	 * @param excelDate
+	 * @param value
+	 * @throws IOException
+	 */
+	private void writeDateCell(int column, String rowNo, int style, double excelDate, Object value)
+			throws IOException {
+		if (excelDate < 0) {
+			String text = (String) valueProcesser.processValue(String.class, value);
+			writeStringCell(column, rowNo, 0, XLPStringUtil.emptyTrim(text));
+		} else {
+			writeValueCell(column, rowNo, style, null, Double.toString(excelDate));
+		}
+	}
+
+	/**
+	 * 写入字符串cell
+	 *
+	 * @param column
+	 * @param rowNo
+	 * @param style
+	 * @param text
+	 * @throws IOException
+	 * @throws IllegalArgumentException
+	 *             假如文本长度超出{@link #MAX_TEXT_LENGTH}，则抛出该异常
+	 */
+	private void writeStringCell(int column, String rowNo, int style, String text) throws IOException {
+		if (XLPStringUtil.isEmpty(text)) {
+			return;
+		}
+		if (text.length() > MAX_TEXT_LENGTH) {
+			// 与POI的限制一致，超长文本会使excel认为文件已损坏
+			throw new IllegalArgumentException("cell文本长度超出xlsx最大长度" + MAX_TEXT_LENGTH + "！");
+		}
+		if (useSharedStrings) {
+			Integer index = sharedStringIndexes.get(text);
+			if (index == null) {
+				index = sharedStrings.size();
+				sharedStrings.add(text);
+				sharedStringIndexes.put(text, index);
+			}
+			sharedStringCount++;
+			writeValueCell(column, rowNo, style, "s", index.toString());
+		} else {
+			writeCellStart(column, rowNo, style, "inlineStr");
+			writer.write("<is>");
+			writeText(text);
+			writer.write("</is></c>");
+		}
+	}
+
+	/**
+	 * 写入带&lt;v&gt;值的cell
+	 *
+	 * @param column
+	 * @param rowNo
+	 * @param style
+	 * @param type
+	 *            cell类型，值为null时表示数字
+	 * @param value
+	 * @throws IOException
+	 */
+	private void writeValueCell(int column, String rowNo, int style, String type, String value)
+			throws IOException {
+		writeCellStart(column, rowNo, style, type);
+		writer.write("<v>");
+		writer.write(value);
+		writer.write("</v></c>");
+	}
+
+	/**
+	 * 写入cell开始标签
+	 *
+	 * @param column
+	 * @param rowNo
+	 * @param style
+	 * @param type
+	 * @throws IOException
+	 */
+	private void writeCellStart(int column, String rowNo, int style, String type) throws IOException {
+		writer.write("<c r=\"");
+		writer.write(columnName(column));
+		writer.write(rowNo);
+		if (style > 0) {
+			writer.write("\" s=\"");
+			writer.write(String.valueOf(style));
+		}
+		if (type != null) {
+			writer.write("\" t=\"");
+			writer.write(type);
+		}
+		writer.write("\">");
+	}
+
+	/**
+	 * 写入&lt;t&gt;文本元素，首尾有空白字符时保留空白
+	 *
+	 * @param text
+	 * @throws IOException
+	 */
+	private void writeText(String text) throws IOException {
+		int len = text.length();
+		if (Character.isWhitespace(text.charAt(0)) || Character.isWhitespace(text.charAt(len - 1))) {
+			writer.write("<t xml:space=\"preserve\">");
+		} else {
+			writer.write("<t>");
+		}
+		writeEscaped(text);
+		writer.write("</t>");
+	}
+
+	/**
+	 * 写入转义后的xml文本，xml不允许的控制字符会被忽略
+	 *
+	 * @param text
+	 * @throws IOException
+	 */
+	private void writeEscaped(String text) throws IOException {
+		int len = text.length();
+		int start = 0;
+		String replacement;
+		for (int i = 0; i < len; i++) {
+			char c = text.charAt(i);
+			switch (c) {
+				case '<':
+					replacement = "&lt;";
+					break;
+				case '>':
+					replacement = "&gt;";
+					break;
+				case '&':
+					replacement = "&amp;";
+					break;
+				case '"':
+					replacement = "&quot;";
+					break;
+				case '\t':
+				case '\n':
+				case '\r':
+					continue;
+				default:
+					if (c < 0x20 || c == 0xFFFE || c == 0xFFFF) {
+						replacement = XLPStringUtil.EMPTY;
+						break;
+					}
+					continue;
+			}
+			if (i > start) {
+				writer.write(text, start, i - start);
+			}
+			writer.write(replacement);
+			start = i + 1;
+		}
+		if (len > start) {
+			writer.write(text, start, len - start);
+		}
+	}
+
+	/**
+	 * 获取列名称，如A、B...
+	 *
+	 * @param column
+	 *            列索引值
+	 * @return
+	 */
+	private String columnName(int column) {
+		if (column >= columnNames.length) {
+			int oldLength = columnNames.length;
+			columnNames = Arrays.copyOf(columnNames, Math.min(MAX_COLUMNS, Math.max(column + 1, oldLength * 2)));
+			for (int i = oldLength; i < columnNames.length; i++) {
+				columnNames[i] = CellReference.convertNumToColString(i);
+			}
+		}
+		return columnNames[column];
+	}
+
+	/**
+	 * 写入共享字符串表
+	 *
+	 * @param zipOutputStream
+	 * @throws IOException
+	 */
+	private void writeSharedStrings(ZipOutputStream zipOutputStream) throws IOException {
+		zipOutputStream.putNextEntry(new ZipEntry("xl/sharedStrings.xml"));
+		writer.write(XML_HEADER);
+		writer.write("<sst xmlns=\"" + MAIN_NAMESPACE + "\" count=\"" + sharedStringCount + "\" uniqueCount=\""
+				+ sharedStrings.size() + "\">");
+		for (String text : sharedStrings) {
+			writer.write("<si>");
+			writeText(text);
+			writer.write("</si>");
+		}
+		writer.write("</sst>");
+		writer.flush();
+		zipOutputStream.closeEntry();
+	}
+
+	/**
+	 * 写入样式表：0常规、1表头加粗、2日期时间、3日期
+	 *
+	 * @param zipOutputStream
+	 * @throws IOException
+	 */
+	private void writeStyles(ZipOutputStream zipOutputStream) throws IOException {
+		zipOutputStream.putNextEntry(new ZipEntry("xl/styles.xml"));
+		writer.write(XML_HEADER);
+		writer.write("<styleSheet xmlns=\"" + MAIN_NAMESPACE + "\">");
+		writer.write("<numFmts count=\"2\"><numFmt numFmtId=\"164\" formatCode=\"");
+		writeEscaped(dateTimeFormat);
+		writer.write("\"/><numFmt numFmtId=\"165\" formatCode=\"");
+		writeEscaped(dateFormat);
+		writer.write("\"/></numFmts>");
+		writer.write("<fonts count=\"2\"><font><sz val=\"11\"/><name val=\"Calibri\"/><family val=\"2\"/></font>"
+				+ "<font><b/><sz val=\"11\"/><name val=\"Calibri\"/><family val=\"2\"/></font></fonts>");
+		writer.write("<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill>"
+				+ "<fill><patternFill patternType=\"gray125\"/></fill></fills>");
+		writer.write("<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>");
+		writer.write("<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>");
+		writer.write("<cellXfs count=\"4\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>"
+				+ "<xf numFmtId=\"0\" fontId=\"1\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyFont=\"1\"/>"
+				+ "<xf numFmtId=\"164\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/>"
+				+ "<xf numFmtId=\"165\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/>"
+				+ "</cellXfs>");
+		writer.write("<cellStyles count=\"1\"><cellStyle name=\"Normal\" xfId=\"0\" builtinId=\"0\"/></cellStyles>");
+		writer.write("</styleSheet>");
+		writer.flush();
+		zipOutputStream.closeEntry();
+	}
+
+	/**
+	 * 写入工作簿信息
+	 *
+	 * @param zipOutputStream
+	 * @param sheetNames
+	 * @throws IOException
+	 */
+	private void writeWorkbook(ZipOutputStream zipOutputStream, List<String> sheetNames) throws IOException {
+		zipOutputStream.putNextEntry(new ZipEntry("xl/workbook.xml"));
+		writer.write(XML_HEADER);
+		writer.write("<workbook xmlns=\"" + MAIN_NAMESPACE + "\" xmlns:r=\"" + RELATIONSHIP_NAMESPACE
+				+ "\"><sheets>");
+		int sheetNo = 0;
+		for (String sheetName : sheetNames) {
+			sheetNo++;
+			writer.write("<sheet name=\"");
+			writeEscaped(sheetName);
+			writer.write("\" sheetId=\"" + sheetNo + "\" r:id=\"rId" + sheetNo + "\"/>");
+		}
+		writer.write("</sheets></workbook>");
+		writer.flush();
+		zipOutputStream.closeEntry();
+	}
+
+	/**
+	 * 写入包及工作簿的关系信息
+	 *
+	 * @param zipOutputStream
+	 * @param sheetCount
+	 * @throws IOException
+	 */
+	private void writeRelationships(ZipOutputStream zipOutputStream, int sheetCount) throws IOException {
+		zipOutputStream.putNextEntry(new ZipEntry("_rels/.rels"));
+		writer.write(XML_HEADER);
+		writer.write("<Relationships xmlns=\"" + PACKAGE_RELATIONSHIP_NAMESPACE + "\">"
+				+ "<Relationship Id=\"rId1\" Type=\"" + RELATIONSHIP_NAMESPACE
+				+ "/officeDocument\" Target=\"xl/workbook.xml\"/></Relationships>");
+		writer.flush();
+		zipOutputStream.closeEntry();
+
+		zipOutputStream.putNextEntry(new ZipEntry("xl/_rels/workbook.xml.rels"));
+		writer.write(XML_HEADER);
+		writer.write("<Relationships xmlns=\"" + PACKAGE_RELATIONSHIP_NAMESPACE + "\">");
+		for (int i = 1; i <= sheetCount; i++) {
+			writer.write("<Relationship Id=\"rId" + i + "\" Type=\"" + RELATIONSHIP_NAMESPACE
+					+ "/worksheet\" Target=\"worksheets/sheet" + i + ".xml\"/>");
+		}
+		writer.write("<Relationship Id=\"rId" + (sheetCount + 1) + "\" Type=\"" + RELATIONSHIP_NAMESPACE
+				+ "/styles\" Target=\"styles.xml\"/>");
+		if (useSharedStrings) {
+			writer.write("<Relationship Id=\"rId" + (sheetCount + 2) + "\" Type=\"" + RELATIONSHIP_NAMESPACE
+					+ "/sharedStrings\" Target=\"sharedStrings.xml\"/>");
+		}
+		writer.write("</Relationships>");
+		writer.flush();
+		zipOutputStream.closeEntry();
+	}
+
+	/**
+	 * 写入各部分的内容类型
+	 *
+	 * @param zipOutputStream
+	 * @param sheetCount
+	 * @throws IOException
+	 */
+	private void writeContentTypes(ZipOutputStream zipOutputStream, int sheetCount) throws IOException {
+		zipOutputStream.putNextEntry(new ZipEntry("[Content_Types].xml"));
+		writer.write(XML_HEADER);
+		writer.write("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+				+ "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+				+ "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+				+ "<Override PartName=\"/xl/workbook.xml\" ContentType=\"" + CONTENT_TYPE_PREFIX
+				+ "sheet.main+xml\"/>"
+				+ "<Override PartName=\"/xl/styles.xml\" ContentType=\"" + CONTENT_TYPE_PREFIX + "styles+xml\"/>");
+		if (useSharedStrings) {
+			writer.write("<Override PartName=\"/xl/sharedStrings.xml\" ContentType=\"" + CONTENT_TYPE_PREFIX
+					+ "sharedStrings+xml\"/>");
+		}
+		for (int i = 1; i <= sheetCount; i++) {
+			writer.write("<Override PartName=\"/xl/worksheets/sheet" + i + ".xml\" ContentType=\""
+					+ CONTENT_TYPE_PREFIX + "worksheet+xml\"/>");
+		}
+		writer.write("</Types>");
+		writer.flush();
+		zipOutputStream.closeEntry();
+	}
+
+	/**
+	 * 要写入的excel的数据
+	 *
+	 * @param sheetName
+	 *            数据对应的sheet的名称，名称相同的数据写入同一sheet页
+	 * @param titles
+	 *            sheet的表头
+	 * @param dataList
+	 *            要写入的数据
+	 */
+	public void addExcelData(String sheetName, String[] titles, List<Object[]> dataList) {
+		SheetData sheetData = new SheetData();
+		sheetData.setSheetData(dataList);
+		sheetData.setSheetTitles(titles);
+		sheetData.setSheetName(sheetName);
+		sheetDataList.add(sheetData);
+	}
+
+	/**
+	 * 要写入的excel的数据
+	 *
+	 * @param titles
+	 *            sheet的表头
+	 * @param dataList
+	 *            要写入的数据
+	 */
+	public void addExcelData(String[] titles, List<Object[]> dataList) {
+		addExcelData(null, titles, dataList);
+	}
+
+	public void addExcelData(SheetData sheetData) {
+		if (sheetData != null) {
+			this.sheetDataList.add(sheetData);
+		}
+	}
+
+	public List<SheetData> getSheetDataList() {
+		return sheetDataList;
+	}
+
+	public void setSheetDataList(List<SheetData> sheetDataList) {
+		if (sheetDataList != null) {
+			this.sheetDataList = sheetDataList;
+		}
+	}
+
+	public ValueProcesser getValueProcesser() {
+		return valueProcesser;
+	}
+
+	public void setValueProcesser(ValueProcesser valueProcesser) {
+		if (valueProcesser != null) {
+			this.valueProcesser = valueProcesser;
+		}
+	}
+
+	public boolean isUseSharedStrings() {
+		return useSharedStrings;
+	}
+
+	/**
+	 * 设置是否使用共享字符串表
+	 *
+	 * @param useSharedStrings
+	 *            值为true时相同的字符串只保存一次，文件较小，但所有不同的字符串都要保存在内存中直到写完；
+	 *            值为false时字符串以内联方式直接写入cell，内存占用不随数据量增长
+	 */
+	public void setUseSharedStrings(boolean useSharedStrings) {
+		this.useSharedStrings = useSharedStrings;
+	}
+
+	public int getCompressionLevel() {
+		return compressionLevel;
+	}
+
+	/**
+	 * 设置zip压缩级别
+	 *
+	 * @param compressionLevel
+	 *            0-9或-1（默认级别），级别越低写入越快、文件越大
+	 * @throws IllegalArgumentException
+	 *             假如压缩级别不合法，则抛出该异常
+	 */
+	public void setCompressionLevel(int compressionLevel) {
+		if ((compressionLevel < 0 || compressionLevel > 9) && compressionLevel != Deflater.DEFAULT_COMPRESSION) {
+			throw new IllegalArgumentException("压缩级别必须是0-9或-1！");
+		}
+		this.compressionLevel = compressionLevel;
+	}
+
+	public int getCellWidth() {
+		return cellWidth;
+	}
+
+	/**
+	 * 设置所有列的列宽
+	 *
+	 * @param cellWidth
+	 *            列宽（字符数），值小于等于0时不设置列宽
+	 */
+	public void setCellWidth(int cellWidth) {
+		this.cellWidth = cellWidth;
+	}
+
+	public int getBufferSize() {
+		return bufferSize;
+	}
+
+	/**
+	 * 设置写入时的字符及字节缓存大小，默认{@link #BUFFER_SIZE}，在{@link #begin(OutputStream)}或
+	 * {@link #write(OutputStream)}调用前设置才生效
+	 *
+	 * @param bufferSize
+	 *            缓存越小数据越早写入输出流，缓存越大写入次数越少
+	 * @throws IllegalArgumentException
+	 *             假如参数小于等于0，则抛出该异常
+	 */
+	public void setBufferSize(int bufferSize) {
+		if (bufferSize <= 0) {
+			throw new IllegalArgumentException("缓存大小必须大于0！");
+		}
+		this.bufferSize = bufferSize;
+	}
+
+	public int getFlushRows() {
+		return flushRows;
+	}
+
+	/**
+	 * 设置每写入多少行把已缓存的数据刷新到输出流，默认只在sheet页结束时刷新
+	 * <p>
+	 * 只刷新已压缩的数据，压缩器内部还未输出的数据不会强制输出，以免降低压缩率
+	 * </p>
+	 *
+	 * @param flushRows
+	 *            值小于等于0时只在sheet页结束时刷新
+	 */
+	public void setFlushRows(int flushRows) {
+		this.flushRows = flushRows;
+	}
+
+	public String getDateFormat() {
+		return dateFormat;
+	}
+
+	/**
+	 * 设置LocalDate值的格式，默认"yyyy-mm-dd"
+	 *
+	 * @param dateFormat
+	 */
+	public void setDateFormat(String dateFormat) {
+		if (!XLPStringUtil.isEmpty(dateFormat)) {
+			this.dateFormat = dateFormat;
+		}
+	}
+
+	public String getDateTimeFormat() {
+		return dateTimeFormat;
+	}
+
+	/**
+	 * 设置Date、Calendar、LocalDateTime值的格式，默认"yyyy-mm-dd hh:mm:ss"
+	 *
+	 * @param dateTimeFormat
+	 */
+	public void setDateTimeFormat(String dateTimeFormat) {
+		if (!XLPStringUtil.isEmpty(dateTimeFormat)) {
+			this.dateTimeFormat = dateTimeFormat;
+		}
+	}
+}
@@ -10,7 +10,13 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.ss.usermodel.Cell;
@@ -33,6 +39,7 @@ import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.VerticalAlignment;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.ss.util.CellAddress;
 import org.apache.poi.ss.util.CellRangeAddress;
 import org.apache.poi.ss.util.CellRangeAddressList;
 import org.apache.poi.xssf.usermodel.XSSFDataValidation;
@@ -41,6 +48,7 @@ import org.xlp.assertion.AssertUtils;
 import org.xlp.assertion.IllegalObjectException;
 import org.xlp.excel.write.ExcelType;
 import org.xlp.excel.write.WriteExcel;
+import org.xlp.excel.write.complexity.enumeration.Color;
 import org.xlp.excel.write.complexity.enumeration.DataType;
 import org.xlp.excel.write.complexity.enumeration.HorizontalType;
 import org.xlp.excel.write.complexity.enumeration.VerticalType;
@@ -62,6 +70,16 @@ import org.xlp.utils.io.XLPIOUtil;
  * @Description 导出excel操作抽象类
  */
 public abstract class AbstractWriteExcelExt implements WriteExcel {
+	/**
+	 * 下拉框选项连起来的最大字符数，超过时选项写入隐藏的sheet页中
+	 */
+	public static final int MAX_EXPLICIT_LIST_LENGTH = 255;
+
+	/**
+	 * 保存较长的下拉框选项的隐藏sheet页名称，该sheet页在写入时放在最后
+	 */
+	public static final String SELECT_OPTIONS_SHEET_NAME = "xlpSelectOptions";
+
 	/**
 	 * 把object值转换成字符串处理器
 	 */
@@ -82,6 +100,58 @@ public abstract class AbstractWriteExcelExt implements WriteExcel {
 	 */
 	private Workbook workbook;
 
+	/**
+	 * 已创建的样式，样式属性相同的cell共用同一样式，避免超出xls最多4000个样式的限制
+	 */
+	private final Map<StyleKey, CellStyle> styleCache = new HashMap<StyleKey, CellStyle>();
+
+	/**
+	 * 已创建的字体
+	 */
+	private final Map<FontKey, Font> fontCache = new HashMap<FontKey, Font>();
+
+	/**
+	 * 缓存的样式所属的workbook
+	 */
+	private Workbook styleWorkbook;
+
+	private DataFormat dataFormat;
+
+	/**
+	 * 各sheet页中还未添加的有效性验证，所有sheet页写完后再添加
+	 */
+	private final Map<Sheet, Map<ValidationKey, ValidationRange>> validationRanges = 
+			new LinkedHashMap<Sheet, Map<ValidationKey, ValidationRange>>();
+
+	/**
+	 * 添加批注用的绘图对象及其所属的sheet页
+	 */
+	private Drawing<?> drawing;
+	
+	private Sheet drawingSheet;
+	
+	private CreationHelper creationHelper;
+	
+	/**
+	 * 绘图对象所属的sheet页是否原有批注
+	 */
+	private boolean commentExisted;
+	
+	/**
+	 * 绘图对象所属的sheet页中已添加批注的cell
+	 */
+	private final Set<CellAddress> commentedCells = new HashSet<CellAddress>();
+
+	/**
+	 * 已写入隐藏sheet页的下拉框选项及引用它们的公式
+	 */
+	private final Map<List<String>, String> selectOptionFormulas = new HashMap<List<String>, String>();
+
+	/**
+	 * 是否已创建保存下拉框选项的隐藏sheet页
+	 */
+	private boolean selectOptionSheetCreated;
+
 	/**
 	 * 构造器
 	 */
@@ -102,6 +172,18 @@ public abstract class AbstractWriteExcelExt implements WriteExcel {
 		}
 	}
 
+	/**
+	 * 用给定的workbook构造对象，供子类使用其他类型的workbook
+	 * 
+	 * @param workbook
+	 * @throws NullPointerException
+	 *             假如参数为null，则抛出该异常
+	 */
+	protected AbstractWriteExcelExt(Workbook workbook) {
+		AssertUtils.isNotNull(workbook, "workbook param is null!");
+		this.workbook = workbook;
+	}
+
 	/**
 	 * 构造器
 	 * 
@@ -335,83 +417,14 @@ public abstract class AbstractWriteExcelExt implements WriteExcel {
 	public void write(OutputStream outputStream) throws IOException {
 		AssertUtils.isNotNull(outputStream, "outputStream param is null!");
 
-		Sheet sheet;
 		try {
 			for (ComplicatedSheetData complicatedSheetData : sheetDataList) {
-				String sheetName = complicatedSheetData.getSheetName();
-				if (XLPStringUtil.isEmpty(sheetName)) {
-					sheet = workbook.createSheet();
-				} else {
-					sheet = workbook.getSheet(sheetName);
-					if (sheet == null) {
-						sheet = workbook.createSheet(sheetName);
-					}
-				}
-				
-				// 获取cell数据
-				List<ExcelCellData> excelCellDatas = complicatedSheetData.getExcelCellDatas();
-				CellStyle cellStyle;
-				Row row;
-				Cell cell;
-				for (ExcelCellData excelCellData : excelCellDatas) {
-					int rowNo = excelCellData.getFromRow();
-					row = sheet.getRow(rowNo);
-					if (row == null) {
-						// 创建sheet row
-						row = sheet.createRow(rowNo);
-					}
-					// 设置行高
-					if (complicatedSheetData.getRowHeight() > 0) {
-						row.setHeightInPoints(complicatedSheetData.getRowHeight());
-					}
-					int colNo = excelCellData.getFromColumn();
-					cell = row.getCell(colNo);
-					if (cell == null) {
-						// 创建cell
-						cell = row.createCell(colNo, createCellType(excelCellData));
-					}
-					cellStyle = createCellStyle(cell, complicatedSheetData, excelCellData, workbook);
-					// 设置cell样式
-					cell.setCellStyle(cellStyle);
-					// 设置cell内容
-					setCellValue(cell, excelCellData);
-					// 合并单元格
-					mergeCells(sheet, excelCellData);
-
-					// 设置下拉框数据
-					setSelectOptions(sheet, excelCellData);
-
-					// 设置批注
-					setComment(sheet, cell, excelCellData);
-
-					//设置导出模板中其他单元格的样式
-					setTempleteOtherCellStyle(sheet, excelCellData);
-					
-					//设置cell值得取值范围
-					setCellValueRange(sheet, excelCellData);
-					
-					if (excelCellData.getCellWidth() > 0) {
-						// 单位为字符宽度的1/256
-						sheet.setColumnWidth(colNo, excelCellData.getCellWidth() * 256);
-					}
-				}
-				
-				//设置隐藏的列
-				for(int hideCol : complicatedSheetData.getHideColIndexs()){
-					sheet.setColumnHidden(hideCol, true); 
-				}
-				
-				int fixedCols = complicatedSheetData.getFixedCols();
-				int fixedRows = complicatedSheetData.getFixedRows();
-				if (fixedCols > 0 || fixedRows > 0) {
-					//设置固定行或列
-					sheet.createFreezePane(fixedCols, fixedRows); 
-				}
-				
-				if (complicatedSheetData.isForceProtectSheet() || complicatedSheetData.isProtectSheet()) {
-					sheet.protectSheet(complicatedSheetData.getPassword()); 
-				}
+				Sheet sheet = createSheet(complicatedSheetData);
+				writeCells(sheet, complicatedSheetData);
+				finishSheet(sheet, complicatedSheetData);
 			}
+			// 所有sheet页创建后再添加有效性验证，下拉框选项sheet页在此时创建，排在最后，不影响其他sheet页的索引
+			addValidationDatas();
 			workbook.write(outputStream);
 		} finally {
 			if (autoClose) {
@@ -420,6 +433,145 @@ public abstract class AbstractWriteExcelExt implements WriteExcel {
 		}
 	}
 
+	/**
+	 * 获取或创建sheet数据对应的sheet页，sheet名称为空时新建sheet页
+	 * 
+	 * @param complicatedSheetData
+	 * @return
+	 */
+	protected Sheet createSheet(ComplicatedSheetData complicatedSheetData) {
+		String sheetName = complicatedSheetData.getSheetName();
+		if (XLPStringUtil.isEmpty(sheetName)) {
+			return workbook.createSheet();
+		}
+		Sheet sheet = workbook.getSheet(sheetName);
+		if (sheet == null) {
+			sheet = workbook.createSheet(sheetName);
+		}
+		return sheet;
+	}
+
+	/**
+	 * 把sheet数据中的cell按行依次写入sheet页，并设置列宽
+	 * 
+	 * @param sheet
+	 * @param complicatedSheetData
+	 */
+	protected void writeCells(Sheet sheet, ComplicatedSheetData complicatedSheetData) {
+		// 获取按行排列的cell数据，按行依次写入
+		List<ExcelCellData> excelCellDatas = complicatedSheetData.getRowOrderedCellDatas();
+		int rowHeight = complicatedSheetData.getRowHeight();
+		Row row = null;
+		for (ExcelCellData excelCellData : excelCellDatas) {
+			int rowNo = excelCellData.getFromRow();
+			if (row == null || row.getRowNum() != rowNo) {
+				row = sheet.getRow(rowNo);
+				if (row == null) {
+					// 创建sheet row
+					row = sheet.createRow(rowNo);
+				}
+				// 设置行高
+				if (rowHeight > 0) {
+					row.setHeightInPoints(rowHeight);
+				}
+			}
+			writeCell(sheet, row, complicatedSheetData, excelCellData);
+		}
+		
+		//设置列宽
+		setColumnWidths(sheet, complicatedSheetData.getExcelCellDatas());
+	}
+
+	/**
+	 * 把一个cell数据写入给定的行中
+	 * 
+	 * @param sheet
+	 * @param row
+	 *            cell起始行
+	 * @param complicatedSheetData
+	 * @param excelCellData
+	 */
+	protected void writeCell(Sheet sheet, Row row, ComplicatedSheetData complicatedSheetData,
+			ExcelCellData excelCellData) {
+		int colNo = excelCellData.getFromColumn();
+		Cell cell = row.getCell(colNo);
+		if (cell == null) {
+			// 创建cell
+			cell = row.createCell(colNo, createCellType(excelCellData));
+		}
+		// 设置cell样式
+		cell.setCellStyle(createCellStyle(cell, complicatedSheetData, excelCellData, workbook));
+		// 设置cell内容
+		setCellValue(cell, excelCellData);
+		// 合并单元格
+		mergeCells(sheet, excelCellData);
+
+		// 设置下拉框数据
+		setSelectOptions(sheet, excelCellData);
+
+		// 设置批注
+		setComment(sheet, cell, excelCellData);
+
+		//设置导出模板中其他单元格的样式
+		setTempleteOtherCellStyle(sheet, excelCellData);
+		
+		//设置cell值得取值范围
+		setCellValueRange(sheet, excelCellData);
+	}
+
+	/**
+	 * 所有cell写入后，设置隐藏的列、固定行或列及sheet页保护
+	 * 
+	 * @param sheet
+	 * @param complicatedSheetData
+	 */
+	protected void finishSheet(Sheet sheet, ComplicatedSheetData complicatedSheetData) {
+		//设置隐藏的列
+		for(int hideCol : complicatedSheetData.getHideColIndexs()){
+			sheet.setColumnHidden(hideCol, true); 
+		}
+		
+		int fixedCols = complicatedSheetData.getFixedCols();
+		int fixedRows = complicatedSheetData.getFixedRows();
+		if (fixedCols > 0 || fixedRows > 0) {
+			//设置固定行或列
+			sheet.createFreezePane(fixedCols, fixedRows); 
+		}
+		
+		if (complicatedSheetData.isForceProtectSheet() || complicatedSheetData.isProtectSheet()) {
+			sheet.protectSheet(complicatedSheetData.getPassword()); 
+		}
+	}
+
+	/**
+	 * 获取excel工作簿，关闭后返回null
+	 * 
+	 * @return
+	 */
+	protected Workbook getWorkbook() {
+		return workbook;
+	}
+
+	/**
+	 * 设置列宽，同一列有多个cell设置了列宽时，取最后添加的cell的列宽，每列只设置一次
+	 * 
+	 * @param sheet
+	 * @param excelCellDatas
+	 *            按添加顺序排列的cell数据
+	 */
+	protected void setColumnWidths(Sheet sheet, List<ExcelCellData> excelCellDatas) {
+		Map<Integer, Integer> columnWidths = new HashMap<Integer, Integer>();
+		for (ExcelCellData excelCellData : excelCellDatas) {
+			if (excelCellData.getCellWidth() > 0) {
+				columnWidths.put(excelCellData.getFromColumn(), excelCellData.getCellWidth());
+			}
+		}
+		for (Map.Entry<Integer, Integer> entry : columnWidths.entrySet()) {
+			// 单位为字符宽度的1/256
+			sheet.setColumnWidth(entry.getKey(), entry.getValue() * 256);
+		}
+	}
+
 	/**
 	 * 设置cell值得取值范围
 	 * 
@@ -427,82 +579,198 @@ public abstract class AbstractWriteExcelExt implements WriteExcel {
 	 * @param excelCellData
 	 */
 	protected void setCellValueRange(Sheet sheet, ExcelCellData excelCellData) {
-		//获取取值操作类型 between
 		Object max = excelCellData.getMaxValue();
 		Object min = excelCellData.getMinValue();
-		if (max == null && min == null) {
+		if ((max == null && min == null) || !XLPCollectionUtil.isEmpty(excelCellData.getSelectOptions())) {
 			return;
 		}
 		
 		DataType dataType = excelCellData.getDataType();
-		List<String> options = excelCellData.getSelectOptions();
-		int rows = excelCellData.getMaxFormatRow();
-		int fr = excelCellData.getFromRow(), tr = excelCellData.getToRow();
-		int fc = excelCellData.getFromColumn(), tc = excelCellData.getToColumn();
-		
-		DataValidationHelper helper = null;
-        //设置数据
-        DataValidationConstraint constraint = null;
-        
-        if (XLPCollectionUtil.isEmpty(options)) {
-        	helper = sheet.getDataValidationHelper();
-			switch (dataType) {
-			case STRING:
-				if (max == null) {
-					max = Long.MAX_VALUE;
-				}
-				if (min == null) {
-					min = 0;
-				}
-				constraint = helper.createTextLengthConstraint(OperatorType.BETWEEN, 
-						String.valueOf(min), String.valueOf(max));
-				break;
-			case TIME:
-				constraint = createTimeConstraint(helper, excelCellData); 
-				break;
-			case DATE:
-				constraint = createDateConstraint(helper, excelCellData); 
-				break;
-			case INT:
-				if (max == null) {
-					max = Long.MAX_VALUE;
-				}
-				if (min == null) {
-					min = Long.MIN_VALUE;
-				}
-				constraint = helper.createIntegerConstraint(OperatorType.BETWEEN, String.valueOf(min), 
-						String.valueOf(max));
-				break;
-			case DECIMAL:
-				if (max == null) {
-					max = Double.MAX_VALUE;
-				}
-				if (min == null) {
-					min = Double.MIN_VALUE;
-				}
-				constraint = helper.createDecimalConstraint(OperatorType.BETWEEN, String.valueOf(min), 
-						String.valueOf(max));
-				break;
-			default:
-				return;
+		switch (dataType) {
+		case STRING:
+		case TIME:
+		case DATE:
+		case INT:
+		case DECIMAL:
+			addValidationRange(sheet, new ValidationKey(null, dataType, min, max, excelCellData.getFormatter(),
+					excelCellData.getErrorTip()), excelCellData);
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * 创建cell值取值范围验证器
+	 * 
+	 * @param helper
+	 * @param excelCellData
+	 * @return
+	 */
+	private DataValidationConstraint createValueRangeConstraint(DataValidationHelper helper,
+			ExcelCellData excelCellData) {
+		//获取取值操作类型 between
+		Object max = excelCellData.getMaxValue();
+		Object min = excelCellData.getMinValue();
+		switch (excelCellData.getDataType()) {
+		case STRING:
+			if (max == null) {
+				max = Long.MAX_VALUE;
+			}
+			if (min == null) {
+				min = 0;
+			}
+			return helper.createTextLengthConstraint(OperatorType.BETWEEN, 
+					String.valueOf(min), String.valueOf(max));
+		case TIME:
+			return createTimeConstraint(helper, excelCellData); 
+		case DATE:
+			return createDateConstraint(helper, excelCellData); 
+		case INT:
+			if (max == null) {
+				max = Long.MAX_VALUE;
+			}
+			if (min == null) {
+				min = Long.MIN_VALUE;
+			}
+			return helper.createIntegerConstraint(OperatorType.BETWEEN, String.valueOf(min), 
+					String.valueOf(max));
+		case DECIMAL:
+			if (max == null) {
+				max = Double.MAX_VALUE;
 			}
+			if (min == null) {
+				min = Double.MIN_VALUE;
+			}
+			return helper.createDecimalConstraint(OperatorType.BETWEEN, String.valueOf(min), 
+					String.valueOf(max));
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * 记录cell的有效性验证范围，同一sheet页中验证条件及错误提示相同的cell在{@link #addValidationDatas()}时
+	 * 合并成一个有多个区域的有效性验证，上下相连或重叠的区域合并成一个区域
+	 * 
+	 * @param sheet
+	 * @param validationKey
+	 * @param excelCellData
+	 */
+	private void addValidationRange(Sheet sheet, ValidationKey validationKey, ExcelCellData excelCellData) {
+		Map<ValidationKey, ValidationRange> sheetValidationRanges = validationRanges.get(sheet);
+		if (sheetValidationRanges == null) {
+			sheetValidationRanges = new LinkedHashMap<ValidationKey, ValidationRange>();
+			validationRanges.put(sheet, sheetValidationRanges);
 		}
-        
-        if (constraint != null) {
-        	//设置行列范围
-            CellRangeAddressList addressList = new CellRangeAddressList(fr, tr + rows, fc, tc);
-        	DataValidation dataValidation = helper.createValidation(constraint, addressList);
- 	        //设置错误提示信息
- 			String errorTip = XLPStringUtil.emptyTrim(excelCellData.getErrorTip());
- 			if (!errorTip.isEmpty()) {
- 				 dataValidation.createErrorBox("输入错误提示", errorTip);
- 			}
- 	        //处理Excel兼容性问题
- 	        if(dataValidation instanceof XSSFDataValidation) {
- 	            dataValidation.setShowErrorBox(true);
- 	        }
- 	        sheet.addValidationData(dataValidation);
+		ValidationRange validationRange = sheetValidationRanges.get(validationKey);
+		if (validationRange == null) {
+			validationRange = new ValidationRange(excelCellData);
+			sheetValidationRanges.put(validationKey, validationRange);
 		}
+		validationRange.add(excelCellData.getFromRow(), 
+				excelCellData.getToRow() + excelCellData.getMaxFormatRow(),
+				excelCellData.getFromColumn(), excelCellData.getToColumn());
+	}
+
+	/**
+	 * 把记录的有效性验证添加到各sheet页中，每组验证条件及错误提示相同的cell只添加一个有效性验证
+	 */
+	private void addValidationDatas() {
+		try {
+			for (Map.Entry<Sheet, Map<ValidationKey, ValidationRange>> entry : validationRanges.entrySet()) {
+				addValidationDatas(entry.getKey(), entry.getValue());
+			}
+		} finally {
+			validationRanges.clear();
+		}
+	}
+
+	/**
+	 * 把记录的有效性验证添加到sheet页中
+	 * 
+	 * @param sheet
+	 * @param sheetValidationRanges
+	 */
+	private void addValidationDatas(Sheet sheet, Map<ValidationKey, ValidationRange> sheetValidationRanges) {
+		DataValidationHelper helper = sheet.getDataValidationHelper();
+		for (Map.Entry<ValidationKey, ValidationRange> entry : sheetValidationRanges.entrySet()) {
+			ValidationKey validationKey = entry.getKey();
+			ValidationRange validationRange = entry.getValue();
+			DataValidationConstraint constraint;
+			if (validationKey.options != null) {
+				constraint = createSelectOptionConstraint(helper, validationKey.options);
+			} else {
+				constraint = createValueRangeConstraint(helper, validationRange.excelCellData);
+			}
+			if (constraint == null) {
+				continue;
+			}
+			DataValidation dataValidation = helper.createValidation(constraint, validationRange.addressList);
+			//设置错误提示信息
+			String errorTip = XLPStringUtil.emptyTrim(validationKey.errorTip);
+			if (!errorTip.isEmpty()) {
+				dataValidation.createErrorBox("输入错误提示", errorTip);
+			}
+			// 处理Excel兼容性问题
+			if (validationKey.options != null) {
+				dealSelectOptionDataValidationCompatibility(dataValidation); 
+			} else if (dataValidation instanceof XSSFDataValidation) {
+				dataValidation.setShowErrorBox(true);
+			}
+			sheet.addValidationData(dataValidation);
+		}
+	}
+
+	/**
+	 * 创建下拉框验证器，选项连起来超过{@link #MAX_EXPLICIT_LIST_LENGTH}个字符时，
+	 * 选项写入隐藏的{@link #SELECT_OPTIONS_SHEET_NAME}sheet页中，用公式引用
+	 * 
+	 * @param helper
+	 * @param options
+	 * @return
+	 */
+	private DataValidationConstraint createSelectOptionConstraint(DataValidationHelper helper, 
+			List<String> options) {
+		int length = options.size() - 1;
+		for (String option : options) {
+			length += option == null ? 0 : option.length();
+		}
+		if (length <= MAX_EXPLICIT_LIST_LENGTH) {
+			return helper.createExplicitListConstraint(options.toArray(new String[0]));
+		}
+		String formula = selectOptionFormulas.get(options);
+		if (formula == null) {
+			formula = writeSelectOptions(options);
+			selectOptionFormulas.put(options, formula);
+		}
+		return helper.createFormulaListConstraint(formula);
+	}
+
+	/**
+	 * 把下拉框选项依次写入隐藏sheet页的第一列中
+	 * 
+	 * @param options
+	 * @return 引用这些选项的公式
+	 * @throws IllegalStateException
+	 *             假如excel中已有不是由该对象创建的同名sheet页，则抛出该异常
+	 */
+	private String writeSelectOptions(List<String> options) {
+		Sheet optionSheet = workbook.getSheet(SELECT_OPTIONS_SHEET_NAME);
+		if (optionSheet == null) {
+			optionSheet = workbook.createSheet(SELECT_OPTIONS_SHEET_NAME);
+			workbook.setSheetHidden(workbook.getSheetIndex(optionSheet), true);
+			selectOptionSheetCreated = true;
+		} else if (!selectOptionSheetCreated) {
+			throw new IllegalStateException("excel中已有名称为" + SELECT_OPTIONS_SHEET_NAME 
+					+ "的sheet页，不能用来保存下拉框选项！");
+		}
+		int firstRow = optionSheet.getPhysicalNumberOfRows() == 0 ? 0 : optionSheet.getLastRowNum() + 1;
+		int rowNo = firstRow;
+		for (String option : options) {
+			optionSheet.createRow(rowNo++).createCell(0, CellType.STRING).setCellValue(option);
+		}
+		return "'" + SELECT_OPTIONS_SHEET_NAME + "'!$A$" + (firstRow + 1) + ":$A$" + rowNo;
 	}
 	
 	/**
@@ -597,29 +865,51 @@ public abstract class AbstractWriteExcelExt implements WriteExcel {
 	 * @param excelCellData
 	 */
 	protected void setComment(Sheet sheet, Cell cell, ExcelCellData excelCellData) {
-		// 创建绘图对象
-		@SuppressWarnings("rawtypes")
-		Drawing drawing = sheet.createDrawingPatriarch();
 		String mark = excelCellData.getMark();
-		if (!XLPStringUtil.isEmpty(mark)) {
-			CreationHelper factory = workbook.getCreationHelper();
-	        if(cell.getCellComment() != null){
-	        	//当存在批注，移除已有的批注
-	        	cell.removeCellComment();
-	        }
-			// 获取批注对象
-			// (int dx1, int dy1, int dx2, int dy2, short col1, int row1, short
-			// col2, int row2)
-			// 前四个参数是坐标点,后四个参数是编辑和显示批注时的大小.
-			int fromCol = excelCellData.getFromColumn();
-			int fromRow = excelCellData.getFromRow();
-			ClientAnchor clientAnchor = drawing.createAnchor(0, 0, 0, 0, fromCol, fromRow,
-					fromCol + excelCellData.getMarkCol(), fromRow + excelCellData.getMarkRow());
-			Comment comment = drawing.createCellComment(clientAnchor);
-			// 输入批注信息
-			comment.setString(factory.createRichTextString(mark)); 
-			cell.setCellComment(comment);
+		if (XLPStringUtil.isEmpty(mark)) {
+			return;
+		}
+		Drawing<?> drawing = getDrawing(sheet);
+		int fromCol = excelCellData.getFromColumn();
+		int fromRow = excelCellData.getFromRow();
+		// 查找已有批注需遍历所有批注，只在sheet页原有批注或该cell已添加过批注时查找
+		boolean added = !commentedCells.add(new CellAddress(fromRow, fromCol));
+		if ((commentExisted || added) && cell.getCellComment() != null) {
+			//当存在批注，移除已有的批注
+			cell.removeCellComment();
+		}
+		// 获取批注对象
+		// (int dx1, int dy1, int dx2, int dy2, short col1, int row1, short
+		// col2, int row2)
+		// 前四个参数是坐标点,后四个参数是编辑和显示批注时的大小.
+		ClientAnchor clientAnchor = drawing.createAnchor(0, 0, 0, 0, fromCol, fromRow,
+				fromCol + excelCellData.getMarkCol(), fromRow + excelCellData.getMarkRow());
+		Comment comment = drawing.createCellComment(clientAnchor);
+		// 输入批注信息
+		comment.setString(creationHelper.createRichTextString(mark)); 
+		cell.setCellComment(comment);
+	}
+
+	/**
+	 * 获取sheet页的绘图对象，每个sheet页只获取一次；sheet页已有绘图对象时使用已有的，避免覆盖模板中已有的批注和图形
+	 * 
+	 * @param sheet
+	 * @return
+	 */
+	private Drawing<?> getDrawing(Sheet sheet) {
+		if (drawingSheet != sheet) {
+			drawing = sheet.getDrawingPatriarch();
+			if (drawing == null) {
+				// 创建绘图对象
+				drawing = sheet.createDrawingPatriarch();
+			}
+			// xlsx的批注不在绘图对象中，需单独判断sheet页是否原有批注
+			commentExisted = !sheet.getCellComments().isEmpty();
+			drawingSheet = sheet;
+			commentedCells.clear();
+			creationHelper = workbook.getCreationHelper();
 		}
+		return drawing;
 	}
 
 	/**
@@ -632,24 +922,8 @@ public abstract class AbstractWriteExcelExt implements WriteExcel {
 	protected void setSelectOptions(Sheet sheet, ExcelCellData excelCellData) {
 		List<String> options = excelCellData.getSelectOptions();
 		if (!XLPCollectionUtil.isEmpty(options)) {
-			int rows = excelCellData.getMaxFormatRow();
-			int fr = excelCellData.getFromRow(), tr = excelCellData.getToRow();
-			int fc = excelCellData.getFromColumn(), tc = excelCellData.getToColumn();
-			// 获取下拉框验证对象
-			DataValidationHelper helper = sheet.getDataValidationHelper();
-			CellRangeAddressList addressList = new CellRangeAddressList(fr, tr + rows, fc, tc);
-			// 设置下拉框数据
-			DataValidationConstraint constraint = helper.createExplicitListConstraint(options.toArray(new String[0]));
-			DataValidation dataValidation = helper.createValidation(constraint, addressList);
-			//设置错误提示信息
-			String errorTip = XLPStringUtil.emptyTrim(excelCellData.getErrorTip());
-			if (!errorTip.isEmpty()) {
-				 dataValidation.createErrorBox("输入错误提示", errorTip);
-			}
-			// 处理Excel兼容性问题
-			dealSelectOptionDataValidationCompatibility(dataValidation); 
-			
-			sheet.addValidationData(dataValidation);
+			addValidationRange(sheet, new ValidationKey(new ArrayList<String>(options), null, null, null, null,
+					excelCellData.getErrorTip()), excelCellData);
 		}
 	}
 
@@ -724,7 +998,8 @@ public abstract class AbstractWriteExcelExt implements WriteExcel {
 	}
 
 	/**
-	 * 创建CellStyle
+	 * 创建CellStyle，样式属性（对齐方式、背景色、字体、格式、是否锁定）相同的cell共用同一个{@link CellStyle}，
+	 * 字体相同的样式共用同一个{@link Font}
 	 * 
 	 * @param cell
 	 * @param complicatedSheetData
@@ -734,12 +1009,46 @@ public abstract class AbstractWriteExcelExt implements WriteExcel {
 	 */
 	protected CellStyle createCellStyle(Cell cell, ComplicatedSheetData complicatedSheetData,
 			ExcelCellData excelCellData, Workbook workbook) {
-		CellStyle cellStyle = workbook.createCellStyle();
-		VerticalType verticalType = excelCellData.getVerticalType();
-		HorizontalType horizontalType = excelCellData.getHorizontalType();
+		boolean canEdit = excelCellData.isCanEdit();
+		if (complicatedSheetData != null) {
+			canEdit = complicatedSheetData.isForceProtectSheet() ? false : canEdit;
+			if (!canEdit) {
+				complicatedSheetData.setProtectSheet(!canEdit);
+			}
+		}
+		
+		if (styleWorkbook != workbook) {
+			// 缓存的样式只能用于创建它的workbook
+			styleCache.clear();
+			fontCache.clear();
+			dataFormat = null;
+			styleWorkbook = workbook;
+		}
 		CellFont cellFont = excelCellData.getCellFont();
+		FontKey fontKey = cellFont == null ? null : new FontKey(cellFont);
+		Color backgroundColor = excelCellData.getBackgroundColor();
+		StyleKey styleKey = new StyleKey(excelCellData.getVerticalType(), excelCellData.getHorizontalType(),
+				backgroundColor == null ? -1 : backgroundColor.getIndex(), fontKey, excelCellData.getFormatter(), 
+				!canEdit);
+		CellStyle cellStyle = styleCache.get(styleKey);
+		if (cellStyle == null) {
+			cellStyle = newCellStyle(styleKey, workbook);
+			styleCache.put(styleKey, cellStyle);
+		}
+		return cellStyle; 
+	}
+	
+	/**
+	 * 按样式属性新建CellStyle
+	 * 
+	 * @param styleKey
+	 * @param workbook
+	 * @return
+	 */
+	private CellStyle newCellStyle(StyleKey styleKey, Workbook workbook) {
+		CellStyle cellStyle = workbook.createCellStyle();
 		// 设置垂直位置
-		switch (verticalType) {
+		switch (styleKey.verticalType) {
 		case TOP:
 			cellStyle.setVerticalAlignment(VerticalAlignment.TOP);
 			break;
@@ -752,7 +1061,7 @@ public abstract class AbstractWriteExcelExt implements WriteExcel {
 		}
 
 		// 设置水平位置
-		switch (horizontalType) {
+		switch (styleKey.horizontalType) {
 		case LEFT:
 			cellStyle.setAlignment(HorizontalAlignment.LEFT);
 			break;
@@ -764,36 +1073,124 @@ public abstract class AbstractWriteExcelExt implements WriteExcel {
 			break;
 		}
 
-		if (excelCellData.getBackgroundColor() != null) {
+		if (styleKey.backgroundColor >= 0) {
 			// 设置背景色
-			cellStyle.setFillForegroundColor(excelCellData.getBackgroundColor().getIndex());
+			cellStyle.setFillForegroundColor(styleKey.backgroundColor);
 			cellStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
 		}
 
 		// 设置字体
-		if (cellFont != null) {
-			Font font = workbook.createFont();
-			font.setBold(cellFont.isBlod());
-			font.setFontName(cellFont.getFontName());
-			font.setColor((short) cellFont.getFontColor());
-			font.setFontHeightInPoints(cellFont.getFontSize());
+		if (styleKey.fontKey != null) {
+			Font font = fontCache.get(styleKey.fontKey);
+			if (font == null) {
+				font = workbook.createFont();
+				font.setBold(styleKey.fontKey.bold);
+				font.setFontName(styleKey.fontKey.fontName);
+				font.setColor((short) styleKey.fontKey.fontColor);
+				font.setFontHeightInPoints(styleKey.fontKey.fontSize);
+				fontCache.put(styleKey.fontKey, font);
+			}
 			cellStyle.setFont(font);
 		}
 		// 设置数据类型
-		DataFormat format = workbook.createDataFormat();
-		cellStyle.setDataFormat(format.getFormat(excelCellData.getFormatter()));
+		if (dataFormat == null) {
+			dataFormat = workbook.createDataFormat();
+		}
+		cellStyle.setDataFormat(dataFormat.getFormat(styleKey.formatter));
 		
-		boolean canEdit = excelCellData.isCanEdit();
-		if (complicatedSheetData != null) {
-			canEdit = complicatedSheetData.isForceProtectSheet() ? false : canEdit;
-			if (!canEdit) {
-				complicatedSheetData.setProtectSheet(!canEdit);
+		//设置cell是否可编辑
+		cellStyle.setLocked(styleKey.locked); 
+		return cellStyle;
+	}
+	
+	/**
+	 * 字体缓存的key，保存{@link CellFont}当前的属性值
+	 */
+	private static final class FontKey {
+		private final String fontName;
+		
+		private final boolean bold;
+		
+		private final short fontSize;
+		
+		private final int fontColor;
+		
+		FontKey(CellFont cellFont) {
+			this.fontName = cellFont.getFontName();
+			this.bold = cellFont.isBlod();
+			this.fontSize = cellFont.getFontSize();
+			this.fontColor = cellFont.getFontColor();
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(fontName, bold, fontSize, fontColor);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof FontKey)) {
+				return false;
 			}
+			FontKey other = (FontKey) obj;
+			return bold == other.bold && fontSize == other.fontSize && fontColor == other.fontColor
+					&& Objects.equals(fontName, other.fontName);
 		}
+	}
+	
+	/**
+	 * 样式缓存的key
+	 */
+	private static final class StyleKey {
+		private final VerticalType verticalType;
 		
-		//设置cell是否可编辑
-		cellStyle.setLocked(!canEdit); 
-		return cellStyle; 
+		private final HorizontalType horizontalType;
+		
+		/**
+		 * 背景色索引，-1表示没有背景色
+		 */
+		private final short backgroundColor;
+		
+		/**
+		 * 值为null时表示使用默认字体
+		 */
+		private final FontKey fontKey;
+		
+		private final String formatter;
+		
+		private final boolean locked;
+		
+		StyleKey(VerticalType verticalType, HorizontalType horizontalType, short backgroundColor, 
+				FontKey fontKey, String formatter, boolean locked) {
+			this.verticalType = verticalType;
+			this.horizontalType = horizontalType;
+			this.backgroundColor = backgroundColor;
+			this.fontKey = fontKey;
+			this.formatter = formatter;
+			this.locked = locked;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(verticalType, horizontalType, backgroundColor, fontKey, formatter, locked);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof StyleKey)) {
+				return false;
+			}
+			StyleKey other = (StyleKey) obj;
+			return verticalType == other.verticalType && horizontalType == other.horizontalType
+					&& backgroundColor == other.backgroundColor && locked == other.locked
+					&& Objects.equals(fontKey, other.fontKey) && Objects.equals(formatter, other.formatter);
+		}
 	}
 
 	public ValueProcesser getValueProcesser() {
@@ -862,5 +1259,107 @@ public abstract class AbstractWriteExcelExt implements WriteExcel {
 			workbook.close();
 			workbook = null;
 		}
+		styleCache.clear();
+		fontCache.clear();
+		styleWorkbook = null;
+		dataFormat = null;
+		validationRanges.clear();
+		selectOptionFormulas.clear();
+		selectOptionSheetCreated = false;
+		drawing = null;
+		drawingSheet = null;
+		creationHelper = null;
+		commentedCells.clear();
+	}
+
+	/**
+	 * 有效性验证的条件及错误提示，相同的cell共用一个有效性验证
+	 */
+	private static final class ValidationKey {
+		/**
+		 * 下拉框选项，值为null时为取值范围验证
+		 */
+		private final List<String> options;
+		
+		private final DataType dataType;
+		
+		private final Object min;
+		
+		private final Object max;
+		
+		private final String formatter;
+		
+		private final String errorTip;
+		
+		ValidationKey(List<String> options, DataType dataType, Object min, Object max, String formatter,
+				String errorTip) {
+			this.options = options;
+			this.dataType = dataType;
+			this.min = min;
+			this.max = max;
+			this.formatter = formatter;
+			this.errorTip = errorTip;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(options, dataType, min, max, formatter, errorTip);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof ValidationKey)) {
+				return false;
+			}
+			ValidationKey other = (ValidationKey) obj;
+			return Objects.equals(options, other.options) && dataType == other.dataType
+					&& Objects.equals(min, other.min) && Objects.equals(max, other.max)
+					&& Objects.equals(formatter, other.formatter) && Objects.equals(errorTip, other.errorTip);
+		}
+	}
+	
+	/**
+	 * 共用一个有效性验证的cell区域
+	 */
+	private static final class ValidationRange {
+		/**
+		 * 用来创建验证条件的cell
+		 */
+		private final ExcelCellData excelCellData;
+		
+		private final CellRangeAddressList addressList = new CellRangeAddressList();
+		
+		/**
+		 * 各列范围最后添加的区域
+		 */
+		private final Map<Long, CellRangeAddress> lastRanges = new HashMap<Long, CellRangeAddress>();
+		
+		ValidationRange(ExcelCellData excelCellData) {
+			this.excelCellData = excelCellData;
+		}
+		
+		/**
+		 * 添加区域，与同列范围最后添加的区域上下相连或重叠时，扩展该区域
+		 * 
+		 * @param firstRow
+		 * @param lastRow
+		 * @param firstCol
+		 * @param lastCol
+		 */
+		void add(int firstRow, int lastRow, int firstCol, int lastCol) {
+			Long columns = ((long) firstCol << 32) | lastCol;
+			CellRangeAddress lastRange = lastRanges.get(columns);
+			if (lastRange != null && firstRow >= lastRange.getFirstRow() 
+					&& firstRow <= lastRange.getLastRow() + 1) {
+				lastRange.setLastRow(Math.max(lastRange.getLastRow(), lastRow));
+				return;
+			}
+			lastRange = new CellRangeAddress(firstRow, lastRow, firstCol, lastCol);
+			addressList.addCellRangeAddress(lastRange);
+			lastRanges.put(columns, lastRange);
+		}
 	}
 }
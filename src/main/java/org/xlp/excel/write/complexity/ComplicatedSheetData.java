@@ -1,7 +1,8 @@
 package org.xlp.excel.write.complexity;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 import org.xlp.utils.XLPStringUtil;
@@ -16,6 +17,17 @@ import org.xlp.utils.XLPStringUtil;
  * @Description excel sheet页数据对象
  */
 public class ComplicatedSheetData {
+	/**
+	 * 按起始行、起始列排序的比较器
+	 */
+	private static final Comparator<ExcelCellData> ROW_ORDER = new Comparator<ExcelCellData>() {
+		@Override
+		public int compare(ExcelCellData o1, ExcelCellData o2) {
+			int result = Integer.compare(o1.getFromRow(), o2.getFromRow());
+			return result != 0 ? result : Integer.compare(o1.getFromColumn(), o2.getFromColumn());
+		}
+	};
+
 	/**
 	 * sheet名称
 	 */
@@ -29,7 +41,7 @@ public class ComplicatedSheetData {
 	/**
 	 * sheet中cell填充的数据对象集合
 	 */
-	private List<ExcelCellData> excelCellDatas = new LinkedList<ExcelCellData>();
+	private List<ExcelCellData> excelCellDatas = new ArrayList<ExcelCellData>();
 
 	/**
 	 * 标记sheet是否受保护，不可编辑，值为true时不可编辑，false时可以编辑
@@ -142,6 +154,26 @@ public class ComplicatedSheetData {
 		}
 	}
 	
+	/**
+	 * 获取按行排列的cell数据，先按起始行、再按起始列排序，位置相同的cell保持添加顺序；
+	 * 写入时按行依次处理，不必随机查找行
+	 * 
+	 * @return 假如cell数据已按行排列，则直接返回{@link #getExcelCellDatas()}，否则返回排序后的新集合
+	 */
+	public List<ExcelCellData> getRowOrderedCellDatas() {
+		ExcelCellData previous = null;
+		for (ExcelCellData excelCellData : excelCellDatas) {
+			if (previous != null && ROW_ORDER.compare(previous, excelCellData) > 0) {
+				List<ExcelCellData> orderedCellDatas = new ArrayList<ExcelCellData>(excelCellDatas);
+				// 稳定排序，位置相同的cell后添加的仍然后写入
+				Collections.sort(orderedCellDatas, ROW_ORDER);
+				return orderedCellDatas;
+			}
+			previous = excelCellData;
+		}
+		return excelCellDatas;
+	}
+	
 	/**
 	 * 为sheet添加cell填充的数据对象
 	 * 
@@ -13,6 +13,7 @@ import org.apache.poi.ss.usermodel.DataValidationConstraint;
 import org.apache.poi.ss.usermodel.DataValidationConstraint.OperatorType;
 import org.apache.poi.ss.usermodel.DataValidationHelper;
 import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.xssf.usermodel.XSSFDataValidation;
 import org.apache.poi.xssf.usermodel.XSSFDataValidationHelper;
 import org.xlp.assertion.IllegalObjectException;
@@ -40,6 +41,17 @@ public class WriteExcelExt extends AbstractWriteExcelExt {
 	}
 
 
+	/**
+	 * 用给定的workbook构造对象，供子类使用其他类型的workbook
+	 * 
+	 * @param workbook
+	 * @throws NullPointerException
+	 *             假如参数为null，则抛出该异常
+	 */
+	protected WriteExcelExt(Workbook workbook) {
+		super(workbook);
+	}
+
 	/**
 	 * 构造器
 	 * 
@@ -0,0 +1,410 @@
+package org.xlp.excel.write.complexity;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.xlp.assertion.AssertUtils;
+import org.xlp.utils.XLPStringUtil;
+
+/**
+ * 流式写xlsx格式的复杂excel
+ * <p>
+ * 使用{@link SXSSFWorkbook}，内存中只保留最近写入的若干行（行窗口），超出窗口的行写入临时文件；
+ * 支持合并单元格、下拉框、取值范围、批注、隐藏列、固定行列及sheet页保护
+ * </p>
+ * <p>
+ * cell按行依次写入，已超出行窗口的行不能再修改，所以：
+ * <ul>
+ * <li>用{@link #appendCell(ExcelCellData)}追加的cell必须按起始行从小到大的顺序提供；</li>
+ * <li>同一名称的sheet页只能写入一次；</li>
+ * <li>cell下方模板行的样式（{@link ExcelCellData#getMaxFormatRow()}）在写到这些行时才设置。</li>
+ * </ul>
+ * </p>
+ * <p>
+ * 写完后会删除临时文件，不自动关闭资源时需调用{@link #close()}删除临时文件
+ * </p>
+ *
+ * @author xlp
+ */
+public class WriteSXSSFExcelExt extends WriteExcelExt {
+	/**
+	 * 默认行窗口大小
+	 */
+	public static final int DEFAULT_ROW_ACCESS_WINDOW_SIZE = SXSSFWorkbook.DEFAULT_WINDOW_SIZE;
+
+	/**
+	 * 正在写入的sheet页
+	 */
+	private Sheet currentSheet;
+
+	/**
+	 * 正在写入的sheet数据
+	 */
+	private ComplicatedSheetData currentSheetData;
+
+	/**
+	 * 最后一次访问的行
+	 */
+	private Row currentRow;
+
+	/**
+	 * 已写到的行索引值，该行及之前的行不能再写入
+	 */
+	private int currentRowNo = -1;
+
+	/**
+	 * 还未写完的模板行样式
+	 */
+	private final List<TemplateStyleRange> styleRanges = new ArrayList<TemplateStyleRange>();
+
+	/**
+	 * 正在写入的sheet页的列宽，后写入的cell的列宽覆盖先写入的
+	 */
+	private final Map<Integer, Integer> columnWidths = new HashMap<Integer, Integer>();
+
+	/**
+	 * 构造函数，行窗口大小为{@link #DEFAULT_ROW_ACCESS_WINDOW_SIZE}，临时文件不压缩
+	 */
+	public WriteSXSSFExcelExt() {
+		this(DEFAULT_ROW_ACCESS_WINDOW_SIZE);
+	}
+
+	/**
+	 * 构造函数，临时文件不压缩
+	 *
+	 * @param rowAccessWindowSize
+	 *            内存中保留的行数，值为-1时不限制行数，即所有行都保留在内存中
+	 * @throws IllegalArgumentException
+	 *             假如参数为0或小于-1，则抛出该异常
+	 */
+	public WriteSXSSFExcelExt(int rowAccessWindowSize) {
+		this(rowAccessWindowSize, false);
+	}
+
+	/**
+	 * 构造函数
+	 *
+	 * @param rowAccessWindowSize
+	 *            内存中保留的行数，值为-1时不限制行数，即所有行都保留在内存中
+	 * @param compressTmpFiles
+	 *            是否用gzip压缩临时文件，压缩后临时文件占用磁盘少，但写入速度变慢
+	 * @throws IllegalArgumentException
+	 *             假如rowAccessWindowSize参数为0或小于-1，则抛出该异常
+	 */
+	public WriteSXSSFExcelExt(int rowAccessWindowSize, boolean compressTmpFiles) {
+		super(newWorkbook(rowAccessWindowSize, compressTmpFiles));
+	}
+
+	/**
+	 * 构造器
+	 *
+	 * @param sheetData
+	 */
+	public WriteSXSSFExcelExt(ComplicatedSheetData sheetData) {
+		this();
+		addSheetData(sheetData);
+	}
+
+	/**
+	 * 构造器
+	 *
+	 * @param sheetDataList
+	 */
+	public WriteSXSSFExcelExt(List<ComplicatedSheetData> sheetDataList) {
+		this();
+		setSheetDataList(sheetDataList);
+	}
+
+	private static SXSSFWorkbook newWorkbook(int rowAccessWindowSize, boolean compressTmpFiles) {
+		if (rowAccessWindowSize == 0 || rowAccessWindowSize < -1) {
+			throw new IllegalArgumentException("行窗口大小必须大于0或等于-1！");
+		}
+		return new SXSSFWorkbook(null, rowAccessWindowSize, compressTmpFiles);
+	}
+
+	/**
+	 * 开始逐个写入一个sheet页的cell，之后用{@link #appendCell(ExcelCellData)}、{@link #appendCells(Iterator)}
+	 * 按行的顺序追加cell，最后调用{@link #finish(OutputStream)}写入输出流
+	 * <p>
+	 * sheet页名称、行高、隐藏列、固定行列及保护信息从给定的对象中获取，该对象中已有的cell会按行的顺序先写入；
+	 * 如有正在写入的sheet页，则先结束该sheet页
+	 * </p>
+	 *
+	 * @param sheetData
+	 * @throws NullPointerException
+	 *             假如参数为null，则抛出该异常
+	 * @throws IllegalArgumentException
+	 *             假如同一名称的sheet页已写入，则抛出该异常
+	 */
+	public void beginSheet(ComplicatedSheetData sheetData) {
+		AssertUtils.isNotNull(sheetData, "sheetData param is null!");
+		endSheet();
+		Sheet sheet = createSheet(sheetData);
+		currentSheet = sheet;
+		currentSheetData = sheetData;
+		for (ExcelCellData excelCellData : sheetData.getRowOrderedCellDatas()) {
+			appendCell(excelCellData);
+		}
+	}
+
+	/**
+	 * 向正在写入的sheet页追加一个cell
+	 *
+	 * @param excelCellData
+	 * @throws NullPointerException
+	 *             假如参数为null，则抛出该异常
+	 * @throws IllegalStateException
+	 *             假如没有调用{@link #beginSheet(ComplicatedSheetData)}开始写入sheet页，则抛出该异常
+	 * @throws IllegalArgumentException
+	 *             假如cell的起始行在已写入的行之前，则抛出该异常
+	 */
+	public void appendCell(ExcelCellData excelCellData) {
+		AssertUtils.isNotNull(excelCellData, "excelCellData param is null!");
+		if (currentSheet == null) {
+			throw new IllegalStateException("请先调用beginSheet函数开始写入sheet页！");
+		}
+		int rowNo = excelCellData.getFromRow();
+		if (rowNo < currentRowNo) {
+			throw new IllegalArgumentException("cell必须按行的顺序写入，第" + (currentRowNo + 1)
+					+ "行已写入，不能再写入第" + (rowNo + 1) + "行！");
+		}
+		if (currentRow == null || currentRow.getRowNum() != rowNo) {
+			moveToRow(rowNo);
+			currentRow = getOrCreateRow(rowNo);
+			// 设置行高
+			int rowHeight = currentSheetData.getRowHeight();
+			if (rowHeight > 0) {
+				currentRow.setHeightInPoints(rowHeight);
+			}
+		}
+		writeCell(currentSheet, currentRow, currentSheetData, excelCellData);
+		if (excelCellData.getCellWidth() > 0) {
+			columnWidths.put(excelCellData.getFromColumn(), excelCellData.getCellWidth());
+		}
+	}
+
+	/**
+	 * 向正在写入的sheet页依次追加迭代器中的所有cell
+	 *
+	 * @param excelCellDatas
+	 * @throws NullPointerException
+	 *             假如参数为null，则抛出该异常
+	 * @throws IllegalStateException
+	 *             假如没有调用{@link #beginSheet(ComplicatedSheetData)}开始写入sheet页，则抛出该异常
+	 * @throws IllegalArgumentException
+	 *             假如cell没有按行的顺序提供，则抛出该异常
+	 */
+	public void appendCells(Iterator<ExcelCellData> excelCellDatas) {
+		AssertUtils.isNotNull(excelCellDatas, "excelCellDatas param is null!");
+		while (excelCellDatas.hasNext()) {
+			appendCell(excelCellDatas.next());
+		}
+	}
+
+	/**
+	 * 结束正在写入的sheet页，写完剩余的模板行样式，设置列宽、隐藏列、固定行列及保护；没有正在写入的sheet页时不做任何处理
+	 */
+	public void endSheet() {
+		if (currentSheet != null) {
+			finishTemplateStyleRows();
+			for (Map.Entry<Integer, Integer> entry : columnWidths.entrySet()) {
+				// 单位为字符宽度的1/256
+				currentSheet.setColumnWidth(entry.getKey(), entry.getValue() * 256);
+			}
+			finishSheet(currentSheet, currentSheetData);
+			resetSheetState();
+		}
+	}
+
+	/**
+	 * 结束正在写入的sheet页，并把excel写入输出流中，{@link #getSheetDataList()}中的数据也会一起写入
+	 *
+	 * @param outputStream
+	 * @throws IOException
+	 *             假如数据写入失败时，抛出该异常
+	 * @throws NullPointerException
+	 *             假如参数为空，抛出该异常
+	 */
+	public void finish(OutputStream outputStream) throws IOException {
+		write(outputStream);
+	}
+
+	/**
+	 * 先结束正在写入的sheet页，再写入{@link #getSheetDataList()}中的数据；结束sheet页失败时也会按{@link #isAutoClose()}释放资源
+	 */
+	@Override
+	public void write(OutputStream outputStream) throws IOException {
+		AssertUtils.isNotNull(outputStream, "outputStream param is null!");
+		try {
+			endSheet();
+			super.write(outputStream);
+		} finally {
+			if (isAutoClose()) {
+				close();
+			}
+		}
+	}
+
+	/**
+	 * @throws IllegalArgumentException
+	 *             假如同一名称的sheet页已写入，则抛出该异常
+	 */
+	@Override
+	protected Sheet createSheet(ComplicatedSheetData complicatedSheetData) {
+		String sheetName = complicatedSheetData.getSheetName();
+		if (!XLPStringUtil.isEmpty(sheetName) && getWorkbook().getSheet(sheetName) != null) {
+			throw new IllegalArgumentException("流式写入时同一名称的sheet页只能写入一次：" + sheetName);
+		}
+		return super.createSheet(complicatedSheetData);
+	}
+
+	/**
+	 * 按行的顺序写入sheet数据中的cell
+	 */
+	@Override
+	protected void writeCells(Sheet sheet, ComplicatedSheetData complicatedSheetData) {
+		currentSheet = sheet;
+		currentSheetData = complicatedSheetData;
+		try {
+			for (ExcelCellData excelCellData : complicatedSheetData.getRowOrderedCellDatas()) {
+				appendCell(excelCellData);
+			}
+			finishTemplateStyleRows();
+		} finally {
+			resetSheetState();
+		}
+		setColumnWidths(sheet, complicatedSheetData.getExcelCellDatas());
+	}
+
+	/**
+	 * 模板行在cell所在行之后，先记录下来，写到这些行时再设置样式
+	 */
+	@Override
+	protected void setTempleteOtherCellStyle(Sheet sheet, ExcelCellData excelCellData) {
+		int rows = excelCellData.getMaxFormatRow();
+		if (rows > 0) {
+			int tr = excelCellData.getToRow();
+			styleRanges.add(new TemplateStyleRange(excelCellData.getFromColumn(), tr + 1, tr + rows,
+					createCellType(excelCellData), createCellStyle(null, null, excelCellData, getWorkbook())));
+		}
+	}
+
+	/**
+	 * 写到给定的行为止，为经过的行设置模板行样式
+	 *
+	 * @param rowNo
+	 */
+	private void moveToRow(int rowNo) {
+		int nextRowNo = currentRowNo + 1;
+		while (nextRowNo <= rowNo && !styleRanges.isEmpty()) {
+			// 跳过没有模板行样式的行
+			int styledRowNo = Integer.MAX_VALUE;
+			Iterator<TemplateStyleRange> iterator = styleRanges.iterator();
+			while (iterator.hasNext()) {
+				TemplateStyleRange styleRange = iterator.next();
+				if (styleRange.toRow < nextRowNo) {
+					iterator.remove();
+				} else {
+					styledRowNo = Math.min(styledRowNo, Math.max(styleRange.fromRow, nextRowNo));
+				}
+			}
+			if (styledRowNo > rowNo) {
+				break;
+			}
+			Row row = getOrCreateRow(styledRowNo);
+			for (TemplateStyleRange styleRange : styleRanges) {
+				if (styleRange.fromRow <= styledRowNo && styledRowNo <= styleRange.toRow) {
+					Cell cell = row.getCell(styleRange.column);
+					if (cell == null) {
+						cell = row.createCell(styleRange.column, styleRange.cellType);
+						cell.setBlank();
+					}
+					cell.setCellStyle(styleRange.cellStyle);
+				}
+			}
+			nextRowNo = styledRowNo + 1;
+		}
+		currentRowNo = Math.max(currentRowNo, rowNo);
+	}
+
+	/**
+	 * 写完还未写入的模板行样式
+	 */
+	private void finishTemplateStyleRows() {
+		int lastRowNo = currentRowNo;
+		for (TemplateStyleRange styleRange : styleRanges) {
+			lastRowNo = Math.max(lastRowNo, styleRange.toRow);
+		}
+		moveToRow(lastRowNo);
+	}
+
+	private Row getOrCreateRow(int rowNo) {
+		if (currentRow != null && currentRow.getRowNum() == rowNo) {
+			return currentRow;
+		}
+		Row row = currentSheet.getRow(rowNo);
+		if (row == null) {
+			row = currentSheet.createRow(rowNo);
+		}
+		currentRow = row;
+		return row;
+	}
+
+	private void resetSheetState() {
+		currentSheet = null;
+		currentSheetData = null;
+		currentRow = null;
+		currentRowNo = -1;
+		styleRanges.clear();
+		columnWidths.clear();
+	}
+
+	/**
+	 * 删除临时文件并释放workbook资源
+	 *
+	 * @throws IOException
+	 *             假如释放workbook资源失败，则抛出该异常
+	 */
+	@Override
+	public void close() throws IOException {
+		resetSheetState();
+		if (getWorkbook() != null) {
+			((SXSSFWorkbook) getWorkbook()).dispose();
+		}
+		super.close();
+	}
+
+	/**
+	 * 一个cell下方的模板行样式
+	 */
+	private static final class TemplateStyleRange {
+		final int column;
+
+		final int fromRow;
+
+		final int toRow;
+
+		final CellType cellType;
+
+		final CellStyle cellStyle;
+
+		TemplateStyleRange(int column, int fromRow, int toRow, CellType cellType, CellStyle cellStyle) {
+			this.column = column;
+			this.fromRow = fromRow;
+			this.toRow = toRow;
+			this.cellType = cellType;
+			this.cellStyle = cellStyle;
+		}
+	}
+}
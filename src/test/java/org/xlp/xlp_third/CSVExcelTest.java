@@ -0,0 +1,126 @@
+package org.xlp.xlp_third;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.xlp.excel.read.BlankRowOptionType;
+import org.xlp.excel.read.ReadCSVExcel;
+import org.xlp.excel.read.SheetData;
+import org.xlp.excel.write.WriteCSVExcel;
+
+import junit.framework.TestCase;
+
+/**
+ * {@link WriteCSVExcel}写入后用{@link ReadCSVExcel}读取的往返测试
+ */
+public class CSVExcelTest extends TestCase {
+	private static final String[] TITLES = { "中文", "quote", "lines", "empty" };
+
+	public void testRoundTripCsv() throws IOException {
+		assertRoundTrip(WriteCSVExcel.COMMA, "\r\n", false);
+	}
+
+	public void testRoundTripCsvWithBom() throws IOException {
+		assertRoundTrip(WriteCSVExcel.COMMA, "\r\n", true);
+	}
+
+	public void testRoundTripTsv() throws IOException {
+		assertRoundTrip(WriteCSVExcel.TAB, "\r\n", true);
+	}
+
+	public void testRoundTripLfSeparator() throws IOException {
+		assertRoundTrip(WriteCSVExcel.COMMA, "\n", false);
+	}
+
+	public void testRoundTripCrSeparator() throws IOException {
+		assertRoundTrip(';', "\r", true);
+	}
+
+	/**
+	 * 空行按空行处理类型处理：NORMAL时保留，SKIP时跳过，BREAK时中断
+	 *
+	 * @throws IOException
+	 */
+	public void testBlankRows() throws IOException {
+		List<Object[]> dataList = new ArrayList<Object[]>();
+		dataList.add(new Object[] { "a", "b" });
+		dataList.add(null);
+		dataList.add(new Object[] { null, "" });
+		dataList.add(new Object[] { "c", "d" });
+		byte[] bytes = write(WriteCSVExcel.COMMA, "\r\n", false, dataList);
+
+		SheetData sheetData = read(bytes, WriteCSVExcel.COMMA, BlankRowOptionType.NORMAL);
+		assertEquals(Arrays.asList(2, 3, 4, 5), sheetData.getRowNoList());
+		assertEquals(Arrays.<Object>asList(""), Arrays.asList(sheetData.getSheetData().get(1)));
+		assertEquals(Arrays.<Object>asList("", ""), Arrays.asList(sheetData.getSheetData().get(2)));
+
+		sheetData = read(bytes, WriteCSVExcel.COMMA, BlankRowOptionType.SKIP);
+		assertEquals(Arrays.asList(2, 5), sheetData.getRowNoList());
+		assertEquals(Arrays.<Object>asList("c", "d"), Arrays.asList(sheetData.getSheetData().get(1)));
+
+		sheetData = read(bytes, WriteCSVExcel.COMMA, BlankRowOptionType.BREAK);
+		assertEquals(Arrays.asList(2), sheetData.getRowNoList());
+	}
+
+	/**
+	 * 写入包含分隔符、双引号及各种换行符的字段，读取结果与写入的一致；
+	 * 数据量超过读取缓冲区大小，覆盖字段及换行符跨缓冲区的情况
+	 *
+	 * @param delimiter
+	 * @param lineSeparator
+	 * @param writeBom
+	 * @throws IOException
+	 */
+	private void assertRoundTrip(char delimiter, String lineSeparator, boolean writeBom) throws IOException {
+		List<Object[]> dataList = new ArrayList<Object[]>();
+		for (int i = 0; i < 2000; i++) {
+			dataList.add(new Object[] { "a" + delimiter + "b" + i, "say \"hi\"" + delimiter + "\"",
+					"l1\nl2\rl3\r\nl4" + i, "", "\"" });
+			dataList.add(new Object[] { i, "\t,;", " x ", null });
+		}
+		byte[] bytes = write(delimiter, lineSeparator, writeBom, dataList);
+		boolean hasBom = bytes.length >= 3 && (bytes[0] & 0xFF) == 0xEF && (bytes[1] & 0xFF) == 0xBB
+				&& (bytes[2] & 0xFF) == 0xBF;
+		assertEquals(writeBom, hasBom);
+
+		SheetData sheetData = read(bytes, delimiter, BlankRowOptionType.NORMAL);
+		assertEquals(Arrays.asList(TITLES), Arrays.asList(sheetData.getSheetTitles()));
+		List<Object[]> rows = sheetData.getSheetData();
+		assertEquals(dataList.size(), rows.size());
+		for (int i = 0; i < rows.size(); i++) {
+			Object[] expected = dataList.get(i);
+			List<Object> expectedRow = new ArrayList<Object>();
+			for (Object value : expected) {
+				expectedRow.add(value == null ? "" : value.toString());
+			}
+			assertEquals("row " + i, expectedRow, Arrays.asList(rows.get(i)));
+			assertEquals(Integer.valueOf(i + 2), sheetData.getRowNoList().get(i));
+		}
+	}
+
+	private static byte[] write(char delimiter, String lineSeparator, boolean writeBom, List<Object[]> dataList)
+			throws IOException {
+		WriteCSVExcel writeExcel = new WriteCSVExcel(delimiter);
+		writeExcel.setLineSeparator(lineSeparator);
+		writeExcel.setWriteBom(writeBom);
+		writeExcel.addExcelData(TITLES, dataList);
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		writeExcel.write(outputStream);
+		return outputStream.toByteArray();
+	}
+
+	private static SheetData read(byte[] bytes, char delimiter, BlankRowOptionType blankRowOptionType)
+			throws IOException {
+		ReadCSVExcel readExcel = new ReadCSVExcel(new ByteArrayInputStream(bytes));
+		readExcel.setDelimiter(delimiter);
+		readExcel.setCharset(StandardCharsets.UTF_8);
+		readExcel.setBlankRowOptionType(blankRowOptionType);
+		readExcel.readExcel();
+		return readExcel.getSheetData();
+	}
+}
@@ -0,0 +1,30 @@
+package org.xlp.xlp_third;
+
+import org.xlp.excel.util.CellValueConverters;
+
+import junit.framework.TestCase;
+
+/**
+ * {@link CellValueConverters}测试
+ */
+public class CellValueConvertersTest extends TestCase {
+	public void testLongRange() {
+		assertEquals(Long.valueOf(-9223372036854775808L), CellValueConverters.LONG.convertNumeric(-0x1p63, false));
+		assertEquals(Long.valueOf(9223372036854774784L), 
+				CellValueConverters.LONG.convertNumeric(Math.nextDown(0x1p63), false));
+		assertLongRejected(0x1p63);
+		assertLongRejected(Math.nextDown(-0x1p63));
+		assertLongRejected(1.5);
+		assertLongRejected(Double.NaN);
+		assertLongRejected(Double.POSITIVE_INFINITY);
+	}
+
+	private static void assertLongRejected(double value) {
+		try {
+			CellValueConverters.LONG.convertNumeric(value, false);
+			fail("expected IllegalArgumentException: " + value);
+		} catch (IllegalArgumentException e) {
+			// 期望的异常
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package org.xlp.xlp_third;
+
+import org.xlp.excel.annotation.ExcelField;
+import org.xlp.excel.util.ExcelBeanMetadata;
+
+import junit.framework.TestCase;
+
+/**
+ * {@link ExcelBeanMetadata}测试
+ */
+public class ExcelBeanMetadataTest extends TestCase {
+	/**
+	 * 每个类按是否启用注解分别只解析一次
+	 */
+	public void testMetadataCachedPerAnnotationMode() {
+		ExcelBeanMetadata annotation = ExcelBeanMetadata.getMetadata(Bean.class, true);
+		ExcelBeanMetadata property = ExcelBeanMetadata.getMetadata(Bean.class, false);
+		assertSame(annotation, ExcelBeanMetadata.getMetadata(Bean.class));
+		assertSame(property, ExcelBeanMetadata.getMetadata(Bean.class, false));
+		assertTrue(annotation != property);
+		assertSame(Bean.class, annotation.getBeanClass());
+		assertEquals("编码", annotation.getField("code").getColumnName());
+		assertNull(annotation.getField("name"));
+		assertEquals("name", property.getField("name").getColumnName());
+	}
+
+	public static class Bean {
+		@ExcelField(name = "编码")
+		private String code;
+
+		private String name;
+
+		public String getCode() {
+			return code;
+		}
+
+		public void setCode(String code) {
+			this.code = code;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+	}
+
+	public void testNullClassRejected() {
+		try {
+			ExcelBeanMetadata.getMetadata(null, true);
+			fail("expected NullPointerException");
+		} catch (NullPointerException e) {
+			// 期望的异常
+		}
+	}
+}
@@ -0,0 +1,91 @@
+package org.xlp.xlp_third;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.xlp.excel.read.BlankRowOptionType;
+import org.xlp.excel.read.ReadExcel;
+import org.xlp.excel.read.ReadXLSXStreamExcel;
+import org.xlp.excel.read.SheetData;
+
+import junit.framework.TestCase;
+
+/**
+ * {@link ReadExcel#setReadColumnIndexes(int...)}测试
+ */
+public class ReadExcelColumnsTest extends TestCase {
+	private File file;
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (file != null) {
+			file.delete();
+		}
+	}
+
+	/**
+	 * 没有表头行时，第一行与之后的行一样按要读取的列判断是否为空行
+	 *
+	 * @throws IOException
+	 */
+	public void testBlankRowsInSelectedColumnsWithoutTitles() throws IOException {
+		createXlsx();
+		assertSelectedRows(new ReadExcel(file), BlankRowOptionType.SKIP, Arrays.asList(2, 4));
+		assertSelectedRows(new ReadXLSXStreamExcel(file), BlankRowOptionType.SKIP, Arrays.asList(2, 4));
+		assertSelectedRows(new ReadExcel(file), BlankRowOptionType.BREAK, Arrays.<Integer>asList());
+		assertSelectedRows(new ReadXLSXStreamExcel(file), BlankRowOptionType.BREAK, Arrays.<Integer>asList());
+		assertSelectedRows(new ReadExcel(file), BlankRowOptionType.NORMAL, Arrays.asList(1, 2, 3, 4));
+		assertSelectedRows(new ReadXLSXStreamExcel(file), BlankRowOptionType.NORMAL, Arrays.asList(1, 2, 3, 4));
+	}
+
+	private static void assertSelectedRows(ReadExcel readExcel, BlankRowOptionType blankRowOptionType,
+			List<Integer> expectedRowNos) throws IOException {
+		readExcel.setExcelHasTitles(false);
+		readExcel.setReadColumnIndexes(0, 2);
+		readExcel.setBlankRowOptionType(blankRowOptionType);
+		readExcel.readExcel();
+		SheetData sheetData = readExcel.getSheetData();
+		assertEquals(expectedRowNos, sheetData.getRowNoList());
+		assertEquals(Arrays.asList("0", "2"), Arrays.asList(sheetData.getSheetTitles()));
+		for (Object[] rowData : sheetData.getSheetData()) {
+			assertEquals(2, rowData.length);
+		}
+	}
+
+	/**
+	 * 第1、3行只有第2列（不读取的列）有数据，第2、4行要读取的列有数据
+	 *
+	 * @throws IOException
+	 */
+	private void createXlsx() throws IOException {
+		file = File.createTempFile("columns", ".xlsx");
+		XSSFWorkbook workbook = new XSSFWorkbook();
+		try {
+			Sheet sheet = workbook.createSheet("data");
+			for (int i = 0; i < 4; i++) {
+				Row row = sheet.createRow(i);
+				if (i % 2 == 0) {
+					row.createCell(1).setCellValue("other" + i);
+				} else {
+					row.createCell(0).setCellValue("a" + i);
+					row.createCell(2).setCellValue("c" + i);
+				}
+			}
+			OutputStream outputStream = new FileOutputStream(file);
+			try {
+				workbook.write(outputStream);
+			} finally {
+				outputStream.close();
+			}
+		} finally {
+			workbook.close();
+		}
+	}
+}
@@ -0,0 +1,171 @@
+package org.xlp.xlp_third;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.xlp.excel.read.ReadExcel;
+import org.xlp.excel.read.ReadXLSXStreamExcel;
+import org.xlp.excel.read.RowDataHandler;
+import org.xlp.excel.read.SheetData;
+
+import junit.framework.TestCase;
+
+/**
+ * {@link ReadExcel#setParallelRead(boolean)}测试，公式引用其他sheet页时，读取结果与按顺序读取一致
+ */
+public class ReadExcelParallelTest extends TestCase {
+	private static final int SHEETS = 6;
+
+	private static final int ROWS = 300;
+
+	private File file;
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (file != null) {
+			file.delete();
+		}
+	}
+
+	public void testCrossSheetFormulasXlsx() throws IOException {
+		createExcel(new XSSFWorkbook(), ".xlsx", false);
+		assertParallelSameAsSequential(new ReadExcel(file), new ReadExcel(file));
+		assertReadThreads(new ReadExcel(file), false);
+	}
+
+	public void testCrossSheetFormulasXls() throws IOException {
+		createExcel(new HSSFWorkbook(), ".xls", false);
+		assertParallelSameAsSequential(new ReadExcel(file), new ReadExcel(file));
+		assertReadThreads(new ReadExcel(file), false);
+	}
+
+	public void testCrossSheetFormulasXlsxStream() throws IOException {
+		createExcel(new XSSFWorkbook(), ".xlsx", true);
+		assertParallelSameAsSequential(new ReadXLSXStreamExcel(file), new ReadXLSXStreamExcel(file));
+		assertReadThreads(new ReadXLSXStreamExcel(file), true);
+	}
+
+	/**
+	 * usermodel方式读取时总是在当前线程中按顺序读取，流方式读取时在线程池中并行读取
+	 *
+	 * @param readExcel
+	 * @param parallelSupported 是否支持并行读取
+	 * @throws IOException
+	 */
+	private static void assertReadThreads(ReadExcel readExcel, boolean parallelSupported) throws IOException {
+		final Set<Thread> threads = Collections.synchronizedSet(new HashSet<Thread>());
+		readExcel.setReadAllSheet(true);
+		readExcel.setParallelRead(true);
+		ExecutorService executor = Executors.newFixedThreadPool(SHEETS);
+		try {
+			readExcel.setExecutor(executor);
+			readExcel.readExcel(new RowDataHandler() {
+				@Override
+				public boolean handleRowData(SheetData sheetData, int rowNo, Object[] rowData) {
+					threads.add(Thread.currentThread());
+					return true;
+				}
+			});
+		} finally {
+			executor.shutdownNow();
+		}
+		assertFalse(threads.isEmpty());
+		assertEquals(!parallelSupported, threads.contains(Thread.currentThread()));
+		if (!parallelSupported) {
+			assertEquals(1, threads.size());
+		}
+	}
+
+	private static void assertParallelSameAsSequential(ReadExcel sequential, ReadExcel parallel)
+			throws IOException {
+		sequential.setReadAllSheet(true);
+		sequential.readExcel();
+		parallel.setReadAllSheet(true);
+		parallel.setParallelRead(true);
+		// 不按cpu核数创建线程池，保证单核环境下也有多个线程同时读取
+		ExecutorService executor = Executors.newFixedThreadPool(SHEETS);
+		try {
+			parallel.setExecutor(executor);
+			parallel.readExcel();
+		} finally {
+			executor.shutdownNow();
+		}
+
+		List<SheetData> expected = sequential.getSheetDataList();
+		List<SheetData> actual = parallel.getSheetDataList();
+		assertEquals(SHEETS, expected.size());
+		assertEquals(SHEETS, actual.size());
+		for (int i = 0; i < SHEETS; i++) {
+			assertEquals("s" + i, actual.get(i).getSheetName());
+			List<Object[]> expectedRows = expected.get(i).getSheetData();
+			List<Object[]> actualRows = actual.get(i).getSheetData();
+			assertEquals(ROWS, actualRows.size());
+			for (int j = 0; j < ROWS; j++) {
+				assertEquals(Arrays.asList(expectedRows.get(j)), Arrays.asList(actualRows.get(j)));
+				// 第2列引用下一个sheet页的第1列
+				assertEquals(Double.valueOf(((i + 1) % SHEETS) * 1000 + j + 1), actualRows.get(j)[1]);
+				// 第3列引用下一个sheet页的第2列，再间接引用后面的sheet页
+				assertEquals(Double.valueOf(((i + 2) % SHEETS) * 1000 + j + 1), actualRows.get(j)[2]);
+			}
+		}
+	}
+
+	/**
+	 * 生成各sheet页公式相互引用的excel
+	 *
+	 * @param workbook
+	 * @param suffix
+	 * @param evaluate 是否预先计算公式，保存公式的缓存结果
+	 * @throws IOException
+	 */
+	private void createExcel(Workbook workbook, String suffix, boolean evaluate) throws IOException {
+		file = File.createTempFile("parallel", suffix);
+		try {
+			for (int i = 0; i < SHEETS; i++) {
+				Sheet sheet = workbook.createSheet("s" + i);
+				Row head = sheet.createRow(0);
+				head.createCell(0).setCellValue("value");
+				head.createCell(1).setCellValue("next");
+				head.createCell(2).setCellValue("afterNext");
+				for (int j = 1; j <= ROWS; j++) {
+					sheet.createRow(j).createCell(0).setCellValue(i * 1000 + j);
+				}
+			}
+			// xls解析公式时引用的sheet页需已存在，所有sheet页创建后再设置公式
+			for (int i = 0; i < SHEETS; i++) {
+				Sheet sheet = workbook.getSheetAt(i);
+				String next = "s" + ((i + 1) % SHEETS) + "!";
+				for (int j = 1; j <= ROWS; j++) {
+					Row row = sheet.getRow(j);
+					row.createCell(1).setCellFormula(next + "A" + (j + 1));
+					row.createCell(2).setCellFormula(next + "B" + (j + 1));
+				}
+			}
+			if (evaluate) {
+				workbook.getCreationHelper().createFormulaEvaluator().evaluateAll();
+			}
+			OutputStream outputStream = new FileOutputStream(file);
+			try {
+				workbook.write(outputStream);
+			} finally {
+				outputStream.close();
+			}
+		} finally {
+			workbook.close();
+		}
+	}
+}
@@ -0,0 +1,323 @@
+package org.xlp.xlp_third;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.xlp.excel.read.BlankRowOptionType;
+import org.xlp.excel.read.ReadExcel;
+import org.xlp.excel.read.ReadXLSXStreamExcel;
+import org.xlp.excel.read.SheetData;
+
+import junit.framework.TestCase;
+
+/**
+ * {@link ReadXLSXStreamExcel}与{@link ReadExcel}读取同一xlsx文件的结果一致性测试
+ */
+public class ReadXLSXStreamExcelTest extends TestCase {
+	/**
+	 * 第一个sheet页的xml数据：第1行C列缺失；第3行及其cell没有r属性；第4行不存在；
+	 * 第6行是空的row元素；第7行只有带样式的空cell
+	 */
+	private static final String SHEET_XML =
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+			+ "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>"
+			+ "<row r=\"1\"><c r=\"A1\" t=\"s\"><v>0</v></c>"
+			+ "<c r=\"B1\" t=\"inlineStr\"><is><t>inline title</t></is></c>"
+			+ "<c r=\"D1\" t=\"s\"><v>1</v></c></row>"
+			+ "<row r=\"2\"><c r=\"A2\"><v>12.5</v></c><c r=\"B2\" s=\"1\"><v>43831</v></c>"
+			+ "<c r=\"D2\" t=\"e\"><v>#DIV/0!</v></c></row>"
+			+ "<row><c><v>3</v></c><c t=\"b\"><v>1</v></c>"
+			+ "<c t=\"inlineStr\"><is><r><t>rich </t></r><r><t>text</t></r><rPh sb=\"0\" eb=\"1\"><t>x</t></rPh></is></c>"
+			+ "<c t=\"e\"><v>#N/A</v></c></row>"
+			+ "<row r=\"5\"><c r=\"C5\" t=\"s\"><v>2</v></c></row>"
+			+ "<row r=\"6\"/>"
+			+ "<row r=\"7\"><c r=\"B7\" s=\"1\"/></row>"
+			+ "<row r=\"8\"><c r=\"A8\"><f>A2*2</f><v>25</v></c><c r=\"D8\" s=\"1\"><v>1.5</v></c></row>"
+			+ "</sheetData></worksheet>";
+
+	/**
+	 * 第二个sheet页的xml数据，行及cell都没有r属性
+	 */
+	private static final String OTHER_SHEET_XML =
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+			+ "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>"
+			+ "<row><c t=\"s\"><v>2</v></c><c t=\"inlineStr\"><is><t>other</t></is></c></row>"
+			+ "<row><c t=\"s\"><v>0</v></c><c s=\"1\"><v>0.5</v></c></row>"
+			+ "</sheetData></worksheet>";
+
+	private File file;
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (file != null) {
+			file.delete();
+		}
+	}
+
+	public void testSameResultBreakOnBlankRow() throws IOException {
+		createXlsx(false);
+		assertSameResult(BlankRowOptionType.BREAK, true);
+	}
+
+	public void testSameResultSkipBlankRow() throws IOException {
+		createXlsx(false);
+		assertSameResult(BlankRowOptionType.SKIP, true);
+	}
+
+	public void testSameResultNormalBlankRow() throws IOException {
+		createXlsx(false);
+		assertSameResult(BlankRowOptionType.NORMAL, true);
+		assertSameResult(BlankRowOptionType.NORMAL, false);
+	}
+
+	/**
+	 * 1904日期系统下，两者读取的日期一致且按1904日期系统计算
+	 *
+	 * @throws IOException
+	 */
+	public void testSameResultDate1904() throws IOException {
+		createXlsx(true);
+		List<SheetData> sheetDatas = assertSameResult(BlankRowOptionType.NORMAL, true);
+		Calendar calendar = Calendar.getInstance();
+		calendar.clear();
+		calendar.set(2024, Calendar.JANUARY, 2);
+		assertEquals(calendar.getTime(), sheetDatas.get(0).getSheetData().get(0)[1]);
+	}
+
+	public void testSameResultReadColumns() throws IOException {
+		createXlsx(false);
+		ReadExcel readExcel = new ReadExcel(file);
+		ReadExcel streamExcel = new ReadXLSXStreamExcel(file);
+		readExcel.setReadColumnIndexes(3, 0, 5, 3, 2);
+		streamExcel.setReadColumnIndexes(3, 0, 5, 3, 2);
+		readExcel.setBlankRowOptionType(BlankRowOptionType.SKIP);
+		streamExcel.setBlankRowOptionType(BlankRowOptionType.SKIP);
+		List<SheetData> sheetDatas = assertSameResult(readExcel, streamExcel);
+		assertEquals(Arrays.asList(2, 3, 5, 8), sheetDatas.get(0).getRowNoList());
+	}
+
+	/**
+	 * 未加密的xls文件不能用流方式读取，文件及输入流构造方式都抛出IllegalArgumentException
+	 *
+	 * @throws IOException
+	 */
+	public void testXlsRejected() throws IOException {
+		file = File.createTempFile("stream", ".xls");
+		HSSFWorkbook workbook = new HSSFWorkbook();
+		try {
+			workbook.createSheet("data").createRow(0).createCell(0).setCellValue("xls");
+			OutputStream outputStream = new FileOutputStream(file);
+			try {
+				workbook.write(outputStream);
+			} finally {
+				outputStream.close();
+			}
+		} finally {
+			workbook.close();
+		}
+		assertNotXlsx(file);
+	}
+
+	/**
+	 * 其他未加密的OLE2文件也抛出IllegalArgumentException
+	 *
+	 * @throws IOException
+	 */
+	public void testOtherOle2Rejected() throws IOException {
+		file = File.createTempFile("stream", ".ole2");
+		POIFSFileSystem fileSystem = new POIFSFileSystem();
+		try {
+			fileSystem.createDocument(new ByteArrayInputStream(new byte[16]), "Data");
+			OutputStream outputStream = new FileOutputStream(file);
+			try {
+				fileSystem.writeFilesystem(outputStream);
+			} finally {
+				outputStream.close();
+			}
+		} finally {
+			fileSystem.close();
+		}
+		assertNotXlsx(file);
+	}
+
+	private static void assertNotXlsx(File file) throws IOException {
+		try {
+			new ReadXLSXStreamExcel(file);
+			fail("expected IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			assertEquals("只支持读取xlsx格式的excel！", e.getMessage());
+		}
+		InputStream inputStream = new FileInputStream(file);
+		try {
+			new ReadXLSXStreamExcel(inputStream);
+			fail("expected IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			assertEquals("只支持读取xlsx格式的excel！", e.getMessage());
+		} finally {
+			inputStream.close();
+		}
+	}
+
+	private List<SheetData> assertSameResult(BlankRowOptionType blankRowOptionType, boolean hasTitle)
+			throws IOException {
+		ReadExcel readExcel = new ReadExcel(file);
+		ReadExcel streamExcel = new ReadXLSXStreamExcel(file);
+		readExcel.setBlankRowOptionType(blankRowOptionType);
+		streamExcel.setBlankRowOptionType(blankRowOptionType);
+		readExcel.setExcelHasTitles(hasTitle);
+		streamExcel.setExcelHasTitles(hasTitle);
+		return assertSameResult(readExcel, streamExcel);
+	}
+
+	private static List<SheetData> assertSameResult(ReadExcel readExcel, ReadExcel streamExcel)
+			throws IOException {
+		readExcel.setReadAllSheet(true);
+		streamExcel.setReadAllSheet(true);
+		readExcel.readExcel();
+		streamExcel.readExcel();
+		List<SheetData> expected = readExcel.getSheetDataList();
+		List<SheetData> actual = streamExcel.getSheetDataList();
+		assertEquals(2, expected.size());
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			SheetData expectedSheet = expected.get(i);
+			SheetData actualSheet = actual.get(i);
+			assertEquals(expectedSheet.getSheetName(), actualSheet.getSheetName());
+			assertEquals(Arrays.asList(expectedSheet.getSheetTitles()), Arrays.asList(actualSheet.getSheetTitles()));
+			assertEquals(expectedSheet.getRowNoList(), actualSheet.getRowNoList());
+			List<Object[]> expectedRows = expectedSheet.getSheetData();
+			List<Object[]> actualRows = actualSheet.getSheetData();
+			assertEquals(expectedRows.size(), actualRows.size());
+			for (int j = 0; j < expectedRows.size(); j++) {
+				assertEquals("sheet " + i + " row " + j, Arrays.asList(expectedRows.get(j)),
+						Arrays.asList(actualRows.get(j)));
+			}
+		}
+		return expected;
+	}
+
+	public void testValues() throws IOException {
+		createXlsx(false);
+		ReadExcel streamExcel = new ReadXLSXStreamExcel(file);
+		streamExcel.setBlankRowOptionType(BlankRowOptionType.NORMAL);
+		streamExcel.readExcel();
+		SheetData sheetData = streamExcel.getSheetData();
+		assertEquals(Arrays.asList("title A", "inline title", "", "title D"),
+				Arrays.asList(sheetData.getSheetTitles()));
+		List<Object[]> rows = sheetData.getSheetData();
+		assertEquals(Arrays.asList(2, 3, 4, 5, 6, 7, 8), sheetData.getRowNoList());
+		assertEquals(12.5, rows.get(0)[0]);
+		assertTrue(rows.get(0)[1] instanceof Date);
+		assertEquals(FormulaError.DIV0.getCode(), rows.get(0)[3]);
+		assertEquals(Arrays.<Object>asList(3.0, Boolean.TRUE, "rich text", FormulaError.NA.getCode()),
+				Arrays.asList(rows.get(1)));
+		assertEquals(0, rows.get(2).length);
+		assertEquals(Arrays.<Object>asList("", "", "shared"), Arrays.asList(rows.get(3)));
+		assertEquals(25.0, rows.get(6)[0]);
+	}
+
+	/**
+	 * 生成测试用的xlsx文件，共享字符串表及样式表由POI生成，sheet页的xml数据替换成手写的内容
+	 *
+	 * @param date1904 是否使用1904日期系统
+	 * @throws IOException
+	 */
+	private void createXlsx(boolean date1904) throws IOException {
+		file = File.createTempFile("stream", ".xlsx");
+		XSSFWorkbook workbook = new XSSFWorkbook();
+		try {
+			CellStyle dateStyle = workbook.createCellStyle();
+			dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy-mm-dd"));
+			Sheet sheet = workbook.createSheet("data");
+			Row row = sheet.createRow(0);
+			row.createCell(0).setCellValue("title A");
+			row.createCell(1).setCellValue("title D");
+			row.createCell(2).setCellValue("shared");
+			row.createCell(3).setCellStyle(dateStyle);
+			workbook.createSheet("other");
+			OutputStream outputStream = new FileOutputStream(file);
+			try {
+				workbook.write(outputStream);
+			} finally {
+				outputStream.close();
+			}
+		} finally {
+			workbook.close();
+		}
+		rewriteParts(file, date1904);
+	}
+
+	/**
+	 * 替换sheet页的xml数据，并按需设置1904日期系统
+	 *
+	 * @param file
+	 * @param date1904
+	 * @throws IOException
+	 */
+	private static void rewriteParts(File file, boolean date1904) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ZipInputStream zipInputStream = new ZipInputStream(new FileInputStream(file));
+		ZipOutputStream zipOutputStream = new ZipOutputStream(bytes);
+		try {
+			ZipEntry entry;
+			while ((entry = zipInputStream.getNextEntry()) != null) {
+				String name = entry.getName();
+				String content = readEntry(zipInputStream);
+				if (name.equals("xl/worksheets/sheet1.xml")) {
+					content = SHEET_XML;
+				} else if (name.equals("xl/worksheets/sheet2.xml")) {
+					content = OTHER_SHEET_XML;
+				} else if (name.equals("xl/workbook.xml") && date1904) {
+					if (content.contains("<workbookPr")) {
+						content = content.replaceAll("<workbookPr[^>]*/>", "<workbookPr date1904=\"1\"/>");
+					} else {
+						content = content.replace("<bookViews>", "<workbookPr date1904=\"1\"/><bookViews>");
+					}
+				}
+				zipOutputStream.putNextEntry(new ZipEntry(name));
+				zipOutputStream.write(content.getBytes(StandardCharsets.UTF_8));
+				zipOutputStream.closeEntry();
+			}
+		} finally {
+			zipInputStream.close();
+			zipOutputStream.close();
+		}
+		OutputStream outputStream = new FileOutputStream(file);
+		try {
+			bytes.writeTo(outputStream);
+		} finally {
+			outputStream.close();
+		}
+	}
+
+	private static String readEntry(ZipInputStream zipInputStream) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		int count;
+		while ((count = zipInputStream.read(buffer)) > 0) {
+			bytes.write(buffer, 0, count);
+		}
+		return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,343 @@
+package org.xlp.xlp_third;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.ClientAnchor;
+import org.apache.poi.ss.usermodel.Comment;
+import org.apache.poi.ss.usermodel.DataValidation;
+import org.apache.poi.ss.usermodel.Drawing;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.ss.util.CellAddress;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.xlp.excel.write.ExcelType;
+import org.xlp.excel.write.complexity.AbstractWriteExcelExt;
+import org.xlp.excel.write.complexity.ComplicatedSheetData;
+import org.xlp.excel.write.complexity.ExcelCellData;
+import org.xlp.excel.write.complexity.WriteExcelExt;
+import org.xlp.excel.write.complexity.WriteSXSSFExcelExt;
+
+import junit.framework.TestCase;
+
+/**
+ * {@link WriteExcelExt}及{@link WriteSXSSFExcelExt}测试
+ */
+public class WriteExcelExtTest extends TestCase {
+	private File templateFile;
+
+	private File outputFile;
+
+	@Override
+	protected void tearDown() throws Exception {
+		deleteFile(templateFile);
+		deleteFile(outputFile);
+	}
+
+	/**
+	 * xlsx模板中已有批注的cell再写入批注时，替换原有批注；
+	 * 与Excel保存的文件一样，模板中只有批注及其vml绘图，没有DrawingML绘图
+	 *
+	 * @throws IOException
+	 */
+	public void testReplaceTemplateCommentXlsx() throws IOException {
+		replaceTemplateComment(new XSSFWorkbook(), ".xlsx");
+	}
+
+	/**
+	 * xls模板中已有批注的cell再写入批注时，替换原有批注
+	 *
+	 * @throws IOException
+	 */
+	public void testReplaceTemplateCommentXls() throws IOException {
+		replaceTemplateComment(new HSSFWorkbook(), ".xls");
+	}
+
+	private void replaceTemplateComment(Workbook template, String suffix) throws IOException {
+		templateFile = File.createTempFile("template", suffix);
+		outputFile = File.createTempFile("output", suffix);
+		try {
+			Sheet sheet = template.createSheet("data");
+			Cell cell = sheet.createRow(0).createCell(0);
+			cell.setCellValue("old");
+			Drawing<?> drawing = sheet.createDrawingPatriarch();
+			ClientAnchor anchor = drawing.createAnchor(0, 0, 0, 0, 0, 0, 2, 2);
+			Comment comment = drawing.createCellComment(anchor);
+			comment.setString(template.getCreationHelper().createRichTextString("old comment"));
+			cell.setCellComment(comment);
+			OutputStream outputStream = new FileOutputStream(templateFile);
+			try {
+				template.write(outputStream);
+			} finally {
+				outputStream.close();
+			}
+		} finally {
+			template.close();
+		}
+		if (template instanceof XSSFWorkbook) {
+			removeDrawingPart(templateFile);
+		}
+
+		ComplicatedSheetData sheetData = new ComplicatedSheetData("data");
+		ExcelCellData excelCellData = new ExcelCellData("new", 0, 0, 0, 0);
+		excelCellData.setMark("new comment");
+		sheetData.addExcelCellData(excelCellData);
+		excelCellData = new ExcelCellData("other", 1, 1, 1, 1);
+		excelCellData.setMark("other comment");
+		sheetData.addExcelCellData(excelCellData);
+		WriteExcelExt writeExcel = new WriteExcelExt(templateFile);
+		writeExcel.addSheetData(sheetData);
+		writeExcel.write(outputFile);
+
+		Workbook workbook = WorkbookFactory.create(outputFile);
+		try {
+			Sheet sheet = workbook.getSheet("data");
+			assertEquals(2, sheet.getCellComments().size());
+			assertEquals("new comment", sheet.getCellComment(new CellAddress(0, 0)).getString().getString());
+			assertEquals("other comment", sheet.getCellComment(new CellAddress(1, 1)).getString().getString());
+			assertEquals("new", sheet.getRow(0).getCell(0).getStringCellValue());
+		} finally {
+			workbook.close();
+		}
+	}
+
+	/**
+	 * xlsx中较长的下拉框选项写入最后一个隐藏sheet页，不影响其他sheet页的索引及默认名称
+	 *
+	 * @throws IOException
+	 */
+	public void testSelectOptionSheetIsLastXlsx() throws IOException {
+		assertSelectOptionSheetIsLast(new WriteExcelExt(ExcelType.XLSX), ".xlsx");
+	}
+
+	/**
+	 * xls中较长的下拉框选项写入最后一个隐藏sheet页，不影响其他sheet页的索引及默认名称
+	 *
+	 * @throws IOException
+	 */
+	public void testSelectOptionSheetIsLastXls() throws IOException {
+		assertSelectOptionSheetIsLast(new WriteExcelExt(ExcelType.XLS), ".xls");
+	}
+
+	/**
+	 * 流式写入时较长的下拉框选项写入最后一个隐藏sheet页
+	 *
+	 * @throws IOException
+	 */
+	public void testSelectOptionSheetIsLastSxssf() throws IOException {
+		assertSelectOptionSheetIsLast(new WriteSXSSFExcelExt(), ".xlsx");
+	}
+
+	/**
+	 * 模板中已有同名的sheet页时，不能写入较长的下拉框选项
+	 *
+	 * @throws IOException
+	 */
+	public void testExistingSelectOptionSheetRejected() throws IOException {
+		templateFile = File.createTempFile("template", ".xlsx");
+		outputFile = File.createTempFile("output", ".xlsx");
+		Workbook template = new XSSFWorkbook();
+		try {
+			template.createSheet(AbstractWriteExcelExt.SELECT_OPTIONS_SHEET_NAME);
+			OutputStream outputStream = new FileOutputStream(templateFile);
+			try {
+				template.write(outputStream);
+			} finally {
+				outputStream.close();
+			}
+		} finally {
+			template.close();
+		}
+		WriteExcelExt writeExcel = new WriteExcelExt(templateFile);
+		writeExcel.addSheetData(selectOptionSheetData("data", longOptions("a")));
+		try {
+			writeExcel.write(outputFile);
+			fail("expected IllegalStateException");
+		} catch (IllegalStateException e) {
+			// 期望的异常
+		}
+	}
+
+	/**
+	 * 流式写入时结束sheet页失败，也会自动释放workbook资源
+	 *
+	 * @throws IOException
+	 */
+	public void testSxssfClosedWhenEndSheetFails() throws IOException {
+		FailingEndSheetWriter writeExcel = new FailingEndSheetWriter();
+		writeExcel.beginSheet(new ComplicatedSheetData("data"));
+		assertNotNull(writeExcel.workbook());
+		writeExcel.failEndSheet = true;
+		try {
+			writeExcel.write(new ByteArrayOutputStream());
+			fail("expected IllegalStateException");
+		} catch (IllegalStateException e) {
+			// 期望的异常
+		}
+		assertNull(writeExcel.workbook());
+	}
+
+	private void assertSelectOptionSheetIsLast(AbstractWriteExcelExt writeExcel, String suffix) 
+			throws IOException {
+		outputFile = File.createTempFile("options", suffix);
+		List<String> firstOptions = longOptions("a");
+		List<String> thirdOptions = longOptions("b");
+		writeExcel.addSheetData(selectOptionSheetData("first", firstOptions));
+		writeExcel.addSheetData(selectOptionSheetData(null, firstOptions));
+		writeExcel.addSheetData(selectOptionSheetData("third", thirdOptions));
+		writeExcel.write(outputFile);
+
+		Workbook workbook = WorkbookFactory.create(outputFile);
+		try {
+			assertEquals(4, workbook.getNumberOfSheets());
+			assertEquals("first", workbook.getSheetName(0));
+			assertEquals("Sheet1", workbook.getSheetName(1));
+			assertEquals("third", workbook.getSheetName(2));
+			assertEquals(AbstractWriteExcelExt.SELECT_OPTIONS_SHEET_NAME, workbook.getSheetName(3));
+			assertTrue(workbook.isSheetHidden(3));
+			assertFalse(workbook.isSheetHidden(0));
+
+			Sheet optionSheet = workbook.getSheetAt(3);
+			assertEquals(firstOptions.size() + thirdOptions.size() - 1, optionSheet.getLastRowNum());
+			assertEquals("a0", optionSheet.getRow(0).getCell(0).getStringCellValue());
+			assertEquals("b0", optionSheet.getRow(firstOptions.size()).getCell(0).getStringCellValue());
+			
+			assertEquals("$A$1:$A$100", optionFormulaRange(workbook.getSheetAt(0)));
+			assertEquals("$A$1:$A$100", optionFormulaRange(workbook.getSheetAt(1)));
+			assertEquals("$A$101:$A$200", optionFormulaRange(workbook.getSheetAt(2)));
+		} finally {
+			workbook.close();
+		}
+	}
+
+	/**
+	 * 获取sheet页中唯一的下拉框验证引用的选项区域，并检查引用的是下拉框选项sheet页
+	 *
+	 * @param sheet
+	 * @return
+	 */
+	private static String optionFormulaRange(Sheet sheet) {
+		List<? extends DataValidation> dataValidations = sheet.getDataValidations();
+		assertEquals(1, dataValidations.size());
+		String formula = dataValidations.get(0).getValidationConstraint().getFormula1();
+		String sheetRef = AbstractWriteExcelExt.SELECT_OPTIONS_SHEET_NAME + "'!";
+		int index = formula.indexOf(sheetRef);
+		if (index < 0) {
+			sheetRef = AbstractWriteExcelExt.SELECT_OPTIONS_SHEET_NAME + "!";
+			index = formula.indexOf(sheetRef);
+		}
+		assertTrue(formula, index >= 0);
+		return formula.substring(index + sheetRef.length());
+	}
+
+	private static ComplicatedSheetData selectOptionSheetData(String sheetName, List<String> options) {
+		ComplicatedSheetData sheetData = new ComplicatedSheetData(sheetName);
+		for (int i = 0; i < 10; i++) {
+			sheetData.addExcelCellData(new ExcelCellData(options.get(0), i, i, 0, 0, options));
+		}
+		return sheetData;
+	}
+
+	/**
+	 * 生成连起来超过255个字符的选项
+	 *
+	 * @param prefix
+	 * @return
+	 */
+	private static List<String> longOptions(String prefix) {
+		List<String> options = new ArrayList<String>();
+		for (int i = 0; i < 100; i++) {
+			options.add(prefix + i);
+		}
+		return options;
+	}
+
+	/**
+	 * 删除xlsx文件中的DrawingML绘图，只保留批注及其vml绘图
+	 *
+	 * @param file
+	 * @throws IOException
+	 */
+	private static void removeDrawingPart(File file) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ZipInputStream zipInputStream = new ZipInputStream(new FileInputStream(file));
+		ZipOutputStream zipOutputStream = new ZipOutputStream(bytes);
+		try {
+			ZipEntry entry;
+			while ((entry = zipInputStream.getNextEntry()) != null) {
+				String name = entry.getName();
+				if (name.startsWith("xl/drawings/drawing")) {
+					continue;
+				}
+				String content = readEntry(zipInputStream);
+				if (name.equals("[Content_Types].xml")) {
+					content = content.replaceAll("<Override[^>]*PartName=\"/xl/drawings/drawing1.xml\"/>", "");
+				} else if (name.equals("xl/worksheets/_rels/sheet1.xml.rels")) {
+					content = content.replaceAll("<Relationship[^>]*drawing1.xml[^>]*/>", "");
+				} else if (name.equals("xl/worksheets/sheet1.xml")) {
+					content = content.replaceAll("<drawing [^>]*/>", "");
+				}
+				zipOutputStream.putNextEntry(new ZipEntry(name));
+				zipOutputStream.write(content.getBytes(StandardCharsets.UTF_8));
+				zipOutputStream.closeEntry();
+			}
+		} finally {
+			zipInputStream.close();
+			zipOutputStream.close();
+		}
+		OutputStream outputStream = new FileOutputStream(file);
+		try {
+			bytes.writeTo(outputStream);
+		} finally {
+			outputStream.close();
+		}
+	}
+
+	private static String readEntry(ZipInputStream zipInputStream) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		int count;
+		while ((count = zipInputStream.read(buffer)) > 0) {
+			bytes.write(buffer, 0, count);
+		}
+		return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * 结束sheet页时抛出异常的流式写入对象
+	 */
+	private static final class FailingEndSheetWriter extends WriteSXSSFExcelExt {
+		boolean failEndSheet;
+
+		@Override
+		public void endSheet() {
+			if (failEndSheet) {
+				throw new IllegalStateException("end sheet failed");
+			}
+			super.endSheet();
+		}
+
+		Workbook workbook() {
+			return getWorkbook();
+		}
+	}
+
+	private static void deleteFile(File file) {
+		if (file != null) {
+			file.delete();
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package org.xlp.xlp_third;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.xlp.excel.write.AbstractWriteExcel;
+import org.xlp.excel.write.WriteXLSExcel;
+import org.xlp.excel.write.WriteXLSXExcel;
+
+import junit.framework.TestCase;
+
+/**
+ * {@link AbstractWriteExcel#setWriteTypedValue(boolean)}测试
+ */
+public class WriteExcelTypedValueTest extends TestCase {
+	private File outputFile;
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (outputFile != null) {
+			outputFile.delete();
+		}
+	}
+
+	public void testXlsxKeepsPrecision() throws IOException {
+		assertKeepsPrecision(new WriteXLSXExcel(), ".xlsx");
+	}
+
+	public void testXlsKeepsPrecision() throws IOException {
+		assertKeepsPrecision(new WriteXLSExcel(), ".xls");
+	}
+
+	/**
+	 * 不能用double精确表示的数字按字符串写入，其他数字按数字写入
+	 *
+	 * @param writeExcel
+	 * @param suffix
+	 * @throws IOException
+	 */
+	private void assertKeepsPrecision(AbstractWriteExcel writeExcel, String suffix) throws IOException {
+		outputFile = File.createTempFile("typed", suffix);
+		List<Object[]> dataList = new ArrayList<Object[]>();
+		dataList.add(new Object[] { 1234567890123456789L, 9007199254740992L, 
+				new BigInteger("12345678901234567890"), new BigDecimal("12345678901234567.89"),
+				new BigDecimal("1.25"), 2.5d });
+		writeExcel.setWriteTypedValue(true);
+		writeExcel.addExcelData("data", new String[] { "a", "b", "c", "d", "e", "f" }, dataList);
+		writeExcel.write(outputFile);
+
+		Workbook workbook = WorkbookFactory.create(outputFile);
+		try {
+			Row row = workbook.getSheet("data").getRow(1);
+			assertEquals(CellType.STRING, row.getCell(0).getCellType());
+			assertEquals("1234567890123456789", row.getCell(0).getStringCellValue());
+			assertEquals(CellType.NUMERIC, row.getCell(1).getCellType());
+			assertEquals(9007199254740992L, (long) row.getCell(1).getNumericCellValue());
+			assertEquals(CellType.STRING, row.getCell(2).getCellType());
+			assertEquals("12345678901234567890", row.getCell(2).getStringCellValue());
+			assertEquals(CellType.STRING, row.getCell(3).getCellType());
+			assertEquals("12345678901234567.89", row.getCell(3).getStringCellValue());
+			assertEquals(CellType.NUMERIC, row.getCell(4).getCellType());
+			assertEquals(1.25, row.getCell(4).getNumericCellValue(), 0);
+			assertEquals(CellType.NUMERIC, row.getCell(5).getCellType());
+			assertEquals(2.5, row.getCell(5).getNumericCellValue(), 0);
+		} finally {
+			workbook.close();
+		}
+	}
+}
@@ -0,0 +1,190 @@
+package org.xlp.xlp_third;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.ZipFile;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.ss.util.PaneInformation;
+import org.xlp.excel.read.SheetData;
+import org.xlp.excel.write.WriteXLSXStreamExcel;
+
+import junit.framework.TestCase;
+
+/**
+ * {@link WriteXLSXStreamExcel}写入后用POI读取的往返测试
+ */
+public class WriteXLSXStreamExcelTest extends TestCase {
+	private File outputFile;
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (outputFile != null) {
+			outputFile.delete();
+		}
+	}
+
+	public void testRoundTripSharedStrings() throws IOException {
+		assertRoundTrip(true);
+	}
+
+	public void testRoundTripInlineStrings() throws IOException {
+		assertRoundTrip(false);
+	}
+
+	private void assertRoundTrip(boolean useSharedStrings) throws IOException {
+		outputFile = File.createTempFile("stream", ".xlsx");
+		Calendar calendar = Calendar.getInstance();
+		calendar.clear();
+		calendar.set(2021, Calendar.MARCH, 4, 5, 6, 7);
+		Date date = calendar.getTime();
+
+		List<Object[]> dataList = new ArrayList<Object[]>();
+		dataList.add(new Object[] { "a<&>\"b", 12, 2.5d, date, LocalDate.of(2020, 2, 29), Boolean.TRUE });
+		dataList.add(new Object[] { "a<&>\"b", 1234567890123456789L, new BigDecimal("1.25"), null, null, "" });
+		SheetData sheetData = new SheetData();
+		sheetData.setSheetName("data");
+		sheetData.setSheetTitles(new String[] { "text", "int", "double", "date", "localDate", "bool" });
+		sheetData.setSheetData(dataList);
+		sheetData.setFixedRows(1);
+		sheetData.setFixedCols(2);
+		sheetData.addHideColIndexs(2);
+		sheetData.addHideColIndexs(4);
+
+		WriteXLSXStreamExcel writeExcel = new WriteXLSXStreamExcel();
+		writeExcel.setUseSharedStrings(useSharedStrings);
+		writeExcel.addExcelData(sheetData);
+		writeExcel.addExcelData("other", new String[] { "title" }, new ArrayList<Object[]>());
+		writeExcel.write(outputFile);
+		assertEquals(useSharedStrings, hasEntry(outputFile, "xl/sharedStrings.xml"));
+
+		Workbook workbook = WorkbookFactory.create(outputFile);
+		try {
+			assertEquals(2, workbook.getNumberOfSheets());
+			assertEquals("other", workbook.getSheetName(1));
+			Sheet sheet = workbook.getSheet("data");
+			assertEquals(2, sheet.getLastRowNum());
+
+			Row head = sheet.getRow(0);
+			assertEquals("localDate", head.getCell(4).getStringCellValue());
+			for (Cell cell : head) {
+				assertTrue(workbook.getFontAt(cell.getCellStyle().getFontIndexAsInt()).getBold());
+			}
+
+			Row row = sheet.getRow(1);
+			assertFalse(workbook.getFontAt(row.getCell(0).getCellStyle().getFontIndexAsInt()).getBold());
+			assertEquals("a<&>\"b", row.getCell(0).getStringCellValue());
+			assertEquals(12, row.getCell(1).getNumericCellValue(), 0);
+			assertEquals(2.5, row.getCell(2).getNumericCellValue(), 0);
+			assertTrue(DateUtil.isCellDateFormatted(row.getCell(3)));
+			assertEquals(date, row.getCell(3).getDateCellValue());
+			assertTrue(DateUtil.isCellDateFormatted(row.getCell(4)));
+			calendar.clear();
+			calendar.set(2020, Calendar.FEBRUARY, 29);
+			assertEquals(calendar.getTime(), row.getCell(4).getDateCellValue());
+			assertEquals(CellType.BOOLEAN, row.getCell(5).getCellType());
+			assertTrue(row.getCell(5).getBooleanCellValue());
+
+			row = sheet.getRow(2);
+			assertEquals("a<&>\"b", row.getCell(0).getStringCellValue());
+			assertEquals(CellType.STRING, row.getCell(1).getCellType());
+			assertEquals("1234567890123456789", row.getCell(1).getStringCellValue());
+			assertEquals(1.25, row.getCell(2).getNumericCellValue(), 0);
+			assertNull(row.getCell(3));
+
+			PaneInformation pane = sheet.getPaneInformation();
+			assertNotNull(pane);
+			assertTrue(pane.isFreezePane());
+			assertEquals(1, pane.getHorizontalSplitPosition());
+			assertEquals(2, pane.getVerticalSplitPosition());
+
+			assertFalse(sheet.isColumnHidden(0));
+			assertFalse(sheet.isColumnHidden(1));
+			assertTrue(sheet.isColumnHidden(2));
+			assertFalse(sheet.isColumnHidden(3));
+			assertTrue(sheet.isColumnHidden(4));
+			assertFalse(sheet.isColumnHidden(5));
+		} finally {
+			workbook.close();
+		}
+	}
+
+	/**
+	 * 文本长度等于最大长度时可以写入
+	 *
+	 * @throws IOException
+	 */
+	public void testMaxTextLength() throws IOException {
+		outputFile = File.createTempFile("stream", ".xlsx");
+		String text = repeat('a', WriteXLSXStreamExcel.MAX_TEXT_LENGTH);
+		List<Object[]> dataList = new ArrayList<Object[]>();
+		dataList.add(new Object[] { text });
+		WriteXLSXStreamExcel writeExcel = new WriteXLSXStreamExcel();
+		writeExcel.addExcelData("data", new String[] { "title" }, dataList);
+		writeExcel.write(outputFile);
+
+		Workbook workbook = WorkbookFactory.create(outputFile);
+		try {
+			assertEquals(text, workbook.getSheet("data").getRow(1).getCell(0).getStringCellValue());
+		} finally {
+			workbook.close();
+		}
+	}
+
+	/**
+	 * 文本长度超出最大长度时，与POI一样抛出IllegalArgumentException
+	 *
+	 * @throws IOException
+	 */
+	public void testTooLongTextRejected() throws IOException {
+		String text = repeat('a', WriteXLSXStreamExcel.MAX_TEXT_LENGTH + 1);
+		List<Object[]> dataList = new ArrayList<Object[]>();
+		dataList.add(new Object[] { text });
+		assertTooLongTextRejected(true, new String[] { "title" }, dataList);
+		assertTooLongTextRejected(false, new String[] { "title" }, dataList);
+		assertTooLongTextRejected(true, new String[] { text }, new ArrayList<Object[]>());
+		assertTooLongTextRejected(false, new String[] { text }, new ArrayList<Object[]>());
+	}
+
+	private static void assertTooLongTextRejected(boolean useSharedStrings, String[] titles,
+			List<Object[]> dataList) throws IOException {
+		WriteXLSXStreamExcel writeExcel = new WriteXLSXStreamExcel();
+		writeExcel.setUseSharedStrings(useSharedStrings);
+		writeExcel.addExcelData("data", titles, dataList);
+		try {
+			writeExcel.write(new ByteArrayOutputStream());
+			fail("expected IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			// 期望的异常
+		}
+	}
+
+	private static String repeat(char c, int count) {
+		char[] chars = new char[count];
+		Arrays.fill(chars, c);
+		return new String(chars);
+	}
+
+	private static boolean hasEntry(File file, String name) throws IOException {
+		ZipFile zipFile = new ZipFile(file);
+		try {
+			return zipFile.getEntry(name) != null;
+		} finally {
+			zipFile.close();
+		}
+	}
+}